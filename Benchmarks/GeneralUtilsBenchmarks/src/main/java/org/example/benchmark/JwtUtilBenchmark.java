@@ -0,0 +1,68 @@
+package org.example.benchmark;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.example.JWTUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link JWTUtil#validateJWTToken(String, String)} as called by the gateway and the services for every request.
+ *
+ * <ul>
+ *     <li>{@code validToken} : a token already seen, served from the verified token cache.</li>
+ *     <li>{@code tamperedToken} : a token with a broken signature, which is never cached and always goes through jjwt.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET_KEY = "jxgEQeXHuPq8VdbyYFNkANdudQ53YUn4";
+
+    private String validToken;
+    private String tamperedToken;
+
+    @Setup
+    public void setUp() {
+        validToken = Jwts.builder()
+                .issuer("E-Commerce Store")
+                .subject("JWT Token")
+                .claim("username", "john.doe@example.com")
+                .claim("authorities", "ROLE_USER,ROLE_ADMIN")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)))
+                .signWith(Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+        char last = validToken.charAt(validToken.length() - 2);
+        tamperedToken = validToken.substring(0, validToken.length() - 2) + (last == 'A' ? 'B' : 'A') + validToken.charAt(validToken.length() - 1);
+        if (!JWTUtil.validateJWTToken(validToken, SECRET_KEY) || JWTUtil.validateJWTToken(tamperedToken, SECRET_KEY)) {
+            throw new IllegalStateException("The benchmark tokens are not validated as expected");
+        }
+    }
+
+    @Benchmark
+    public Boolean validToken() {
+        return JWTUtil.validateJWTToken(validToken, SECRET_KEY);
+    }
+
+    @Benchmark
+    public Boolean tamperedToken() {
+        return JWTUtil.validateJWTToken(tamperedToken, SECRET_KEY);
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.example.FastJwtVerifier;
+import org.example.JwtIdentity;
+import org.example.JwtKeyStore;
+import org.example.JwtSigner;
+import org.example.JwtVerifier;
+import org.example.VerifiedTokenCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways a service can verify the JWT cookie of a request.
+ *
+ * <ul>
+ *     <li>{@code legacyJjwt} : the original {@code JWTUtil} path, which derives the key and builds a parser on every call.</li>
+ *     <li>{@code prebuiltJjwt} : jjwt with the parser prebuilt by the key ring.</li>
+ *     <li>{@code cachedVerifier} : {@link JwtVerifier#verify(String)} serving the token from the verified token cache.</li>
+ *     <li>{@code fastVerifier} : the allocation-light {@link FastJwtVerifier}.</li>
+ * </ul>
+ *
+ * Run with {@code java -jar target/benchmarks.jar JwtVerifierBenchmark -prof gc} to also compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerifierBenchmark {
+
+    private static final String SECRET_KEY = "jxgEQeXHuPq8VdbyYFNkANdudQ53YUn4";
+
+    private String token;
+    private JwtKeyStore keyStore;
+    private JwtVerifier cachedVerifier;
+    private FastJwtVerifier fastVerifier;
+
+    @Setup
+    public void setUp() {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("benchmark",
+                Collections.singletonMap("jwt.secretKey", SECRET_KEY)));
+        keyStore = new JwtKeyStore(environment);
+        cachedVerifier = new JwtVerifier(keyStore, new VerifiedTokenCache());
+        fastVerifier = new FastJwtVerifier();
+        token = new JwtSigner(keyStore).builder()
+                .issuer("E-Commerce Store")
+                .subject("JWT Token")
+                .claim("username", "john.doe@example.com")
+                .claim("authorities", "ROLE_USER,ROLE_ADMIN")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)))
+                .compact();
+        if (fastVerifier.verify(token, keyStore.current()) == null) {
+            throw new IllegalStateException("The benchmark token is not handled by the fast path");
+        }
+    }
+
+    @Benchmark
+    public Claims legacyJjwt() {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    @Benchmark
+    public Claims prebuiltJjwt() {
+        return keyStore.current().getParser()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    @Benchmark
+    public Claims cachedVerifier() {
+        return cachedVerifier.verify(token);
+    }
+
+    @Benchmark
+    public JwtIdentity fastVerifier() {
+        return fastVerifier.verify(token, keyStore.current());
+    }
+}
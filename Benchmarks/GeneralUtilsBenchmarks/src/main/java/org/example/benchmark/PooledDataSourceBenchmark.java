@@ -0,0 +1,103 @@
+package org.example.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.PooledDataSourceFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways a service can get a JDBC connection to an embedded H2 database.
+ *
+ * <ul>
+ *     <li>{@code pooledConnection} : borrowing a connection from the pool built by {@link PooledDataSourceFactory}.</li>
+ *     <li>{@code driverManagerConnection} : opening a new connection with the {@link DriverManager}, as Hibernate's
+ *     built-in pool does whenever it has no idle connection left.</li>
+ * </ul>
+ *
+ * The setup checks that the pool opens on H2 and registers its metrics, so a broken pool configuration fails the
+ * benchmark run rather than the startup of a service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PooledDataSourceBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:pool-benchmark;DB_CLOSE_DELAY=-1";
+
+    private static final String POOL_NAME = "benchmark";
+
+    private static final String[] METRICS = {
+            "hikaricp.connections.acquire",
+            "hikaricp.connections.usage",
+            "hikaricp.connections.timeout",
+            "hikaricp.connections.active",
+            "hikaricp.connections.idle",
+            "hikaricp.connections.pending"
+    };
+
+    private HikariDataSource dataSource;
+
+    @Setup
+    public void setUp() throws SQLException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.connection.url", URL);
+        properties.put("hibernate.connection.username", "sa");
+        properties.put("hibernate.connection.password", "");
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        dataSource = PooledDataSourceFactory.create(environment, POOL_NAME, meterRegistry);
+
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.isValid(1)) {
+                throw new IllegalStateException("The pool handed out an invalid connection");
+            }
+        }
+        for (String metric : METRICS) {
+            if (meterRegistry.find(metric).tag("pool", POOL_NAME).meter() == null) {
+                throw new IllegalStateException("The pool did not register the " + metric + " metric");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public boolean pooledConnection() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getAutoCommit();
+        }
+    }
+
+    @Benchmark
+    public boolean driverManagerConnection() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "")) {
+            return connection.getAutoCommit();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.benchmark;
+
+import org.example.dto.ProductDTO;
+import org.example.model.UtbCategory;
+import org.example.model.UtbProduct;
+import org.example.utility.DTOMapperUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DTOMapperUtil#toProductDTO(UtbProduct)}, called for every product returned by the ProductService.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DTOMapperUtilBenchmark {
+
+    private UtbProduct product;
+
+    @Setup
+    public void setUp() {
+        UtbCategory category = UtbCategory.builder()
+                .id(1L)
+                .name("Electronics")
+                .description("Electronic devices and accessories")
+                .build();
+        product = UtbProduct.builder()
+                .id(42L)
+                .name("Wireless Headphones")
+                .category(category)
+                .price(new BigDecimal("149.99"))
+                .description("Over-ear wireless headphones with active noise cancellation")
+                .build();
+    }
+
+    @Benchmark
+    public ProductDTO toProductDTO() {
+        return DTOMapperUtil.toProductDTO(product);
+    }
+}
@@ -0,0 +1,170 @@
+package org.example.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Query;
+import org.example.PooledDataSourceFactory;
+import org.example.SessionTemplate;
+import org.example.model.UtbCategory;
+import org.example.model.UtbProduct;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the read paths of the {@link SessionTemplate} for the product lookups of the ProductServices, by ID and by
+ * name, against {@code products} products in an embedded H2 database.
+ *
+ * <ul>
+ *     <li>{@code write*} : a stateful session in a read-write transaction, as every lookup used to run.</li>
+ *     <li>{@code read*} : a read-only stateful session on a read-only connection.</li>
+ *     <li>{@code stateless*} : a stateless session on a read-only connection, as the lookups run now.</li>
+ * </ul>
+ *
+ * Every path uses the current mapping, in which categories load their products lazily. H2 runs in the same process, so
+ * the numbers mostly measure the work done by Hibernate; against a remote database the round trips add the same cost
+ * to every path. Run with {@code java -jar target/benchmarks.jar ReadPathBenchmark -bm sample} to also compare the
+ * latency percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadPathBenchmark {
+
+    private static final int PRODUCTS_PER_CATEGORY = 50;
+
+    private static final String BY_NAME = "FROM UtbProduct p WHERE p.name=:name";
+
+    @Param({"10000"})
+    private int products;
+
+    private HikariDataSource dataSource;
+    private SessionFactory sessionFactory;
+    private SessionTemplate sessionTemplate;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.connection.url", "jdbc:h2:mem:read-path-benchmark;DB_CLOSE_DELAY=-1");
+        properties.put("hibernate.connection.username", "sa");
+        properties.put("hibernate.connection.password", "");
+        properties.put("datasource.pool.leakDetectionThresholdMillis", "0");
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        dataSource = PooledDataSourceFactory.create(environment, "benchmark", null);
+
+        Properties hibernateProperties = new Properties();
+        hibernateProperties.put(AvailableSettings.CONNECTION_PROVIDER, PooledDataSourceFactory.connectionProvider(dataSource));
+        hibernateProperties.put(AvailableSettings.HBM2DDL_AUTO, "create");
+        sessionFactory = new Configuration().setProperties(hibernateProperties)
+                .addAnnotatedClass(UtbProduct.class)
+                .addAnnotatedClass(UtbCategory.class)
+                .buildSessionFactory();
+        sessionTemplate = new SessionTemplate(sessionFactory, new SimpleMeterRegistry());
+        populate();
+
+        if (statelessById() == null || statelessByName() == null) {
+            throw new IllegalStateException("The benchmark products are not found along the stateless path");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public UtbProduct writeById() {
+        long id = nextId();
+        return sessionTemplate.write("benchmark.write", session -> session.get(UtbProduct.class, id));
+    }
+
+    @Benchmark
+    public UtbProduct readById() {
+        long id = nextId();
+        return sessionTemplate.read("benchmark.read", session -> session.get(UtbProduct.class, id));
+    }
+
+    @Benchmark
+    public UtbProduct statelessById() {
+        long id = nextId();
+        return sessionTemplate.readStateless("benchmark.stateless", session -> session.get(UtbProduct.class, id));
+    }
+
+    @Benchmark
+    public UtbProduct writeByName() {
+        String name = nextName();
+        return sessionTemplate.write("benchmark.write", session -> byName(session.createQuery(BY_NAME), name));
+    }
+
+    @Benchmark
+    public UtbProduct readByName() {
+        String name = nextName();
+        return sessionTemplate.read("benchmark.read", session -> byName(session.createQuery(BY_NAME), name));
+    }
+
+    @Benchmark
+    public UtbProduct statelessByName() {
+        String name = nextName();
+        return sessionTemplate.readStateless("benchmark.stateless", session -> byName(session.createQuery(BY_NAME), name));
+    }
+
+    private void populate() {
+        sessionTemplate.write("benchmark.populate", session -> {
+            UtbCategory category = null;
+            for (int i = 0; i < products; i++) {
+                if (i % PRODUCTS_PER_CATEGORY == 0) {
+                    category = UtbCategory.builder().name("category-" + i / PRODUCTS_PER_CATEGORY).build();
+                    session.persist(category);
+                }
+                session.persist(UtbProduct.builder()
+                        .name("product-" + i)
+                        .description("Benchmark product " + i)
+                        .price(BigDecimal.valueOf(i, 2))
+                        .category(category)
+                        .build());
+                if (i % PRODUCTS_PER_CATEGORY == PRODUCTS_PER_CATEGORY - 1) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            return null;
+        });
+    }
+
+    private long nextId() {
+        return ThreadLocalRandom.current().nextInt(products) + 1L;
+    }
+
+    private String nextName() {
+        return "product-" + ThreadLocalRandom.current().nextInt(products);
+    }
+
+    private static UtbProduct byName(Query query, String name) {
+        return (UtbProduct) query.setParameter("name", name).getSingleResult();
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.benchmark;
+
+import org.example.dto.APIResponseDTO;
+import org.example.dto.ProductDTO;
+import org.example.exception.ResourceNotFoundException;
+import org.example.utility.ResponseUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the ProductService {@link ResponseUtil}, which builds the body of every response of the service.
+ *
+ * <ul>
+ *     <li>{@code buildSuccessResponse} : the success response returned by the controllers for a product.</li>
+ *     <li>{@code setErrorResponse} : the error response written as JSON by the security filters.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseUtilBenchmark {
+
+    private ProductDTO body;
+    private Exception exception;
+
+    @Setup
+    public void setUp() {
+        body = ProductDTO.builder()
+                .id(42L)
+                .name("Wireless Headphones")
+                .price(new BigDecimal("149.99"))
+                .category("Electronics")
+                .description("Over-ear wireless headphones with active noise cancellation")
+                .build();
+        exception = new ResourceNotFoundException("Product not found");
+    }
+
+    @Benchmark
+    public ResponseEntity<APIResponseDTO> buildSuccessResponse() {
+        return ResponseUtil.buildSuccessResponse(HttpStatus.OK, body);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse setErrorResponse() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseUtil.setErrorResponse(HttpStatus.UNAUTHORIZED, exception, "Unauthorized", response);
+        return response;
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.benchmark;
+
+import org.example.model.UtbAuthority;
+import org.example.model.UtbRole;
+import org.example.model.UtbUser;
+import org.example.security.CustomUserDetailsService;
+import org.example.service.UserServices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how {@link CustomUserDetailsService#loadUserByUsername(String)} flattens the roles of a user and the
+ * authorities of each role into the granted authorities of the {@link UserDetails}.
+ *
+ * The database lookup is replaced by a {@link UserServices} returning a prebuilt user, so only the flattening is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomUserDetailsServiceBenchmark {
+
+    private static final String USERNAME = "john.doe@example.com";
+
+    @Param({"1", "4"})
+    private int roles;
+
+    @Param({"4", "16"})
+    private int authoritiesPerRole;
+
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Setup
+    public void setUp() {
+        Set<UtbRole> userRoles = new HashSet<>();
+        for (int i = 0; i < roles; i++) {
+            Set<UtbAuthority> authorities = new HashSet<>();
+            for (int j = 0; j < authoritiesPerRole; j++) {
+                authorities.add(UtbAuthority.builder().id(i * authoritiesPerRole + j).name("AUTHORITY_" + i + "_" + j).build());
+            }
+            userRoles.add(UtbRole.builder().id(i).name("ROLE_" + i).authorities(authorities).build());
+        }
+        UtbUser user = UtbUser.builder()
+                .id(1L)
+                .username(USERNAME)
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z5FqGzG6Fj1ZpF7e6yZ4i1eK")
+                .email(USERNAME)
+                .roles(userRoles)
+                .build();
+        customUserDetailsService = new CustomUserDetailsService();
+        ReflectionTestUtils.setField(customUserDetailsService, "userServices", new UserServices() {
+            @Override
+            public UtbUser findByUsername(String username) {
+                return user;
+            }
+        });
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        return customUserDetailsService.loadUserByUsername(USERNAME);
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.benchmark;
+
+import org.example.dto.SuccessResponseDTO;
+import org.example.exception.InvalidTokenException;
+import org.example.utility.ResponseUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the UserMicroservice {@link ResponseUtil}, which builds the body of every response of the service.
+ *
+ * <ul>
+ *     <li>{@code buildSuccessResponse} : the success response returned by the controllers.</li>
+ *     <li>{@code setErrorResponse} : the error response written as JSON by the security filters, e.g. for an invalid token.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseUtilBenchmark {
+
+    private Object body;
+    private Exception exception;
+
+    @Setup
+    public void setUp() {
+        body = "john.doe@example.com";
+        exception = new InvalidTokenException("Invalid JWT token");
+    }
+
+    @Benchmark
+    public ResponseEntity<SuccessResponseDTO> buildSuccessResponse() {
+        return ResponseUtil.buildSuccessResponse(HttpStatus.OK, body, "User logged in successfully");
+    }
+
+    @Benchmark
+    public MockHttpServletResponse setErrorResponse() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseUtil.setErrorResponse(HttpStatus.UNAUTHORIZED, exception, "Unauthorized", response);
+        return response;
+    }
+}
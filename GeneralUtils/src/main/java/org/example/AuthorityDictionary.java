@@ -0,0 +1,150 @@
+package org.example;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable dictionary of the role and authority names, used to carry the authorities of a JWT token as a bitset.
+ *
+ * Instead of the comma-separated {@code authorities} claim, a token may carry the compact {@value #CLAIM_NAME} claim
+ * {@code <version>.<bits>}, where bit {@code i} of the base64url-encoded bitset is set if the user holds the
+ * {@code i}-th name of the dictionary. The version is derived from the names themselves, so every service which builds
+ * the dictionary from the same {@code UtbRole}/{@code UtbAuthority} rows agrees on it, and a token encoded against
+ * another dictionary is never decoded with the wrong names.
+ *
+ * Decoded authority lists are immutable and interned, so every request of users holding the same roles shares one list
+ * of {@link GrantedAuthority} instead of splitting and rebuilding it.
+ */
+public class AuthorityDictionary {
+
+    /**
+     * Name of the compact authorities claim.
+     */
+    public static final String CLAIM_NAME = "auth";
+
+    private static final int MAX_INTERNED_SETS = 1024;
+
+    private final String version;
+    private final Map<String, Integer> indexes;
+    private final GrantedAuthority[] authorities;
+    private final Map<String, List<GrantedAuthority>> internedSets = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a dictionary from the given names. Every service must list the names in the same order.
+     *
+     * @param names The role and authority names, in dictionary order. Duplicate names keep their first position.
+     */
+    public AuthorityDictionary(List<String> names) {
+        Map<String, Integer> indexes = new LinkedHashMap<>();
+        for (String name : names) {
+            if (name != null && !indexes.containsKey(name)) {
+                indexes.put(name, indexes.size());
+            }
+        }
+        this.indexes = Collections.unmodifiableMap(indexes);
+        this.authorities = new GrantedAuthority[indexes.size()];
+        for (Map.Entry<String, Integer> entry : indexes.entrySet()) {
+            authorities[entry.getValue()] = new SimpleGrantedAuthority(entry.getKey());
+        }
+        this.version = version(indexes.keySet());
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Encodes authority names into the compact claim.
+     *
+     * @param names The names of the authorities held by the user.
+     * @return The compact claim, or null if one of the names is not in the dictionary.
+     */
+    public String encode(Collection<String> names) {
+        byte[] bits = new byte[(authorities.length + 7) / 8];
+        int length = 0;
+        for (String name : names) {
+            Integer index = indexes.get(name);
+            if (index == null) {
+                return null;
+            }
+            bits[index >> 3] |= (byte) (1 << (index & 7));
+            length = Math.max(length, (index >> 3) + 1);
+        }
+        byte[] trimmed = new byte[length];
+        System.arraycopy(bits, 0, trimmed, 0, length);
+        return version + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(trimmed);
+    }
+
+    /**
+     * Decodes the compact claim into the shared list of authorities it stands for.
+     *
+     * @param claim The compact claim.
+     * @return The immutable list of authorities, or null if the claim is malformed or was encoded against another dictionary.
+     */
+    public List<GrantedAuthority> decode(String claim) {
+        int dot = claim.indexOf('.');
+        if (dot < 0 || !claim.regionMatches(0, version, 0, dot) || dot != version.length()) {
+            return null;
+        }
+        String encodedBits = claim.substring(dot + 1);
+        List<GrantedAuthority> interned = internedSets.get(encodedBits);
+        if (interned != null) {
+            return interned;
+        }
+        byte[] bits;
+        try {
+            bits = Base64.getUrlDecoder().decode(encodedBits);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+        List<GrantedAuthority> decoded = new ArrayList<>();
+        for (int index = 0; index < bits.length * 8; index++) {
+            if ((bits[index >> 3] & (1 << (index & 7))) != 0) {
+                if (index >= authorities.length) {
+                    return null;
+                }
+                decoded.add(authorities[index]);
+            }
+        }
+        decoded = Collections.unmodifiableList(decoded);
+        if (internedSets.size() < MAX_INTERNED_SETS) {
+            List<GrantedAuthority> previous = internedSets.putIfAbsent(encodedBits, decoded);
+            if (previous != null) {
+                return previous;
+            }
+        }
+        return decoded;
+    }
+
+    /**
+     * Returns the version of the given names: the first 4 bytes of their SHA-256 digest, in hexadecimal.
+     */
+    private static String version(Collection<String> names) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String name : names) {
+                digest.update(name.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            byte[] hash = digest.digest();
+            StringBuilder version = new StringBuilder();
+            for (int i = 0; i < 4; i++) {
+                version.append(String.format("%02x", hash[i]));
+            }
+            return version.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", ex);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.example;
+
+import org.springframework.security.core.GrantedAuthority;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Holder of the current {@link AuthorityDictionary} of a service, loaded lazily from the role and authority tables.
+ *
+ * Roles and authorities can be added while the services are running, so a token may be encoded against a newer
+ * dictionary than the one a service holds, or hold a name the issuer does not know yet. In both cases the dictionary
+ * is reloaded, at most once every {@value #MIN_RELOAD_INTERVAL_MILLIS} ms, before giving up.
+ */
+public class AuthorityDictionaryStore {
+
+    /**
+     * Minimum time, in milliseconds, between two reloads triggered by an unknown version or name.
+     */
+    public static final long MIN_RELOAD_INTERVAL_MILLIS = 60 * 1000L;
+
+    private final Supplier<List<String>> loader;
+    private volatile AuthorityDictionary dictionary;
+    private volatile long loadedAt;
+
+    /**
+     * Creates a store which loads the dictionary with the given loader on first use.
+     *
+     * @param loader Supplies the role and authority names, in dictionary order.
+     */
+    public AuthorityDictionaryStore(Supplier<List<String>> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the dictionary currently in use, loading it if needed.
+     *
+     * @return The current dictionary.
+     */
+    public AuthorityDictionary current() {
+        AuthorityDictionary current = dictionary;
+        if (current == null) {
+            synchronized (this) {
+                current = dictionary;
+                if (current == null) {
+                    current = reload();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Loads the dictionary again and swaps it in.
+     *
+     * @return The new dictionary.
+     */
+    public synchronized AuthorityDictionary reload() {
+        AuthorityDictionary reloaded = new AuthorityDictionary(loader.get());
+        loadedAt = System.currentTimeMillis();
+        dictionary = reloaded;
+        return reloaded;
+    }
+
+    /**
+     * Encodes authority names into the compact claim, reloading the dictionary if one of the names is unknown.
+     *
+     * @param names The names of the authorities held by the user.
+     * @return The compact claim, or null if one of the names is still not in the dictionary.
+     */
+    public String encode(Collection<String> names) {
+        String claim = current().encode(names);
+        if (claim == null && reloadAllowed()) {
+            claim = reload().encode(names);
+        }
+        return claim;
+    }
+
+    /**
+     * Decodes the compact claim, reloading the dictionary if the claim was encoded against another version.
+     *
+     * @param claim The compact claim.
+     * @return The immutable list of authorities, or null if the claim can't be decoded.
+     */
+    public List<GrantedAuthority> decode(String claim) {
+        List<GrantedAuthority> authorities = current().decode(claim);
+        if (authorities == null && reloadAllowed()) {
+            authorities = reload().decode(claim);
+        }
+        return authorities;
+    }
+
+    private boolean reloadAllowed() {
+        return System.currentTimeMillis() - loadedAt >= MIN_RELOAD_INTERVAL_MILLIS;
+    }
+}
@@ -0,0 +1,79 @@
+package org.example;
+
+/**
+ * Fixed-size Bloom filter over strings, used to answer "definitely not present" without touching a map.
+ *
+ * Each entry is a string tagged with a one character kind, so that several key spaces (e.g. token IDs and usernames)
+ * can share one filter without building concatenated keys on the lookup path. Lookups hash the characters of the
+ * string in place and do not allocate.
+ */
+public class BloomFilter {
+
+    private final long[] bits;
+    private final int bitCount;
+    private final int hashCount;
+
+    /**
+     * Creates a filter sized for the given number of entries with a false positive rate of about 1%.
+     *
+     * @param expectedEntries The number of entries the filter is expected to hold.
+     */
+    public BloomFilter(int expectedEntries) {
+        // About 9.6 bits per entry and 7 hash functions give a false positive rate of 1%
+        int words = Math.max(1, (int) Math.min(Integer.MAX_VALUE / 64, (Math.max(expectedEntries, 1) * 10L + 63) / 64));
+        this.bits = new long[words];
+        this.bitCount = words * 64;
+        this.hashCount = 7;
+    }
+
+    /**
+     * Adds an entry to the filter.
+     *
+     * @param kind The kind of the entry.
+     * @param value The entry.
+     */
+    public void add(char kind, String value) {
+        long hash = hash(kind, value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int index = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+            bits[index >>> 6] |= 1L << index;
+        }
+    }
+
+    /**
+     * Checks whether an entry may have been added to the filter.
+     *
+     * @param kind The kind of the entry.
+     * @param value The entry.
+     * @return false if the entry was definitely never added, true if it may have been.
+     */
+    public boolean mightContain(char kind, String value) {
+        long hash = hash(kind, value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int index = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+            if ((bits[index >>> 6] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the kind and the characters of the value, followed by a final avalanche step.
+     */
+    private static long hash(char kind, String value) {
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ kind) * 0x100000001b3L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,72 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keeps a concurrent map of expiring cache entries under its maximum size.
+ *
+ * Once the map is full, expired entries are dropped first and arbitrary entries after that, until the map is down to
+ * its low-water mark (90% of the maximum size). The map then takes a tenth of its maximum size of new entries before
+ * it is scanned again, so the cost of the scan is spread over those inserts instead of being paid by every insert of
+ * a full cache. Only one thread scans at a time: the others insert straight away, so the map may briefly hold a few
+ * more entries than its maximum size.
+ *
+ * @param <V> The type of the entries.
+ */
+public class CacheEvictor<V> {
+
+    private final int maxSize;
+    private final int lowWaterMark;
+    private final ToLongFunction<V> expiresAt;
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /**
+     * Creates an evictor for a map holding at most the given number of entries.
+     *
+     * @param maxSize The maximum number of entries of the map.
+     * @param expiresAt Returns the time, in milliseconds since the epoch, at which an entry expires.
+     */
+    public CacheEvictor(int maxSize, ToLongFunction<V> expiresAt) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.lowWaterMark = maxSize - Math.max(1, maxSize / 10);
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Makes room for a new entry if the map is full. To be called before every insert.
+     *
+     * @param entries The map of entries.
+     * @param now The current time in milliseconds.
+     * @return The number of entries removed.
+     */
+    public int makeRoom(Map<?, V> entries, long now) {
+        if (entries.size() < maxSize || !evicting.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            int evicted = 0;
+            Iterator<V> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (expiresAt.applyAsLong(iterator.next()) <= now) {
+                    iterator.remove();
+                    evicted++;
+                }
+            }
+            iterator = entries.values().iterator();
+            while (entries.size() > lowWaterMark && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                evicted++;
+            }
+            return evicted;
+        } finally {
+            evicting.set(false);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.example;
+
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+/**
+ * Spring Cloud Bus event announcing that a product or a product category has been created or changed.
+ * The API Gateway invalidates the cached responses of the routes depending on the changed entity when it receives it.
+ *
+ * Services must register the event type with
+ * {@code @RemoteApplicationEventScan(basePackageClasses = CatalogChangedEvent.class)} to receive it from the bus.
+ */
+public class CatalogChangedEvent extends RemoteApplicationEvent {
+
+    /**
+     * Entity name of products.
+     */
+    public static final String PRODUCT = "product";
+
+    /**
+     * Entity name of product categories.
+     */
+    public static final String CATEGORY = "category";
+
+    private String entity;
+    private Long entityId;
+
+    /**
+     * Creates an empty event, used when the event is read from the bus.
+     */
+    public CatalogChangedEvent() {
+    }
+
+    /**
+     * Creates an event broadcast to every service.
+     *
+     * @param source The object publishing the event.
+     * @param originService The bus ID of the publishing service.
+     * @param entity The kind of the changed entity, {@link #PRODUCT} or {@link #CATEGORY}.
+     * @param entityId The ID of the changed entity.
+     */
+    public CatalogChangedEvent(Object source, String originService, String entity, Long entityId) {
+        super(source, originService, DEFAULT_DESTINATION_FACTORY.getDestination(null));
+        this.entity = entity;
+        this.entityId = entityId;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+}
@@ -0,0 +1,142 @@
+package org.example;
+
+import org.springframework.cloud.client.ServiceInstance;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable consistent hash ring over the instances of a service, choosing instances with bounded loads.
+ *
+ * Each instance is placed at a number of points (virtual nodes) of a 64-bit ring, at the hash of its key (see
+ * {@link InstanceLoadStats#keyOf(ServiceInstance)}). A request key goes to the first instance found walking clockwise
+ * from the hash of the key, so when an instance joins or leaves only the keys next to its points move, about one in
+ * the number of instances.
+ *
+ * To keep a hot key from overloading its instance, an instance is skipped while its calls in flight reach the load
+ * factor times the average of the candidates (consistent hashing with bounded loads), and the walk goes on to the next
+ * instance of the ring.
+ */
+public class ConsistentHashRing {
+
+    /**
+     * Default number of points of each instance on the ring, spreading the keys within a few percent of the average.
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final ServiceInstance[] instances;
+    private final Set<String> instanceKeys;
+    private final long[] points;
+    private final int[] owners;
+
+    /**
+     * Creates a ring over the given instances.
+     *
+     * @param instances The instances of the service.
+     * @param virtualNodes The number of points of each instance on the ring.
+     */
+    public ConsistentHashRing(List<ServiceInstance> instances, int virtualNodes) {
+        this.instances = instances.toArray(new ServiceInstance[0]);
+        this.instanceKeys = new HashSet<>();
+        long[][] entries = new long[this.instances.length * virtualNodes][];
+        for (int i = 0; i < this.instances.length; i++) {
+            String key = InstanceLoadStats.keyOf(this.instances[i]);
+            instanceKeys.add(key);
+            for (int node = 0; node < virtualNodes; node++) {
+                entries[i * virtualNodes + node] = new long[]{hash(key + '#' + node), i};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+        this.points = new long[entries.length];
+        this.owners = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = (int) entries[i][1];
+        }
+    }
+
+    /**
+     * Checks whether the ring was built over the given instances, so it does not need to be rebuilt.
+     *
+     * @param instances The current instances of the service.
+     * @return Returns true if the ring holds the same instances, false otherwise.
+     */
+    public boolean hasInstances(List<ServiceInstance> instances) {
+        if (instances.size() != instanceKeys.size()) {
+            return false;
+        }
+        for (ServiceInstance instance : instances) {
+            if (!instanceKeys.contains(InstanceLoadStats.keyOf(instance))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Chooses the instance of a key among the candidates.
+     *
+     * @param key The request key.
+     * @param candidates The instances which may be chosen, a subset of the instances of the ring.
+     * @param stats The load statistics of the instances.
+     * @param loadFactor The maximum calls in flight of an instance relative to the average, greater than 1.
+     * @return The chosen candidate, or null if there is none.
+     */
+    public ServiceInstance choose(String key, List<ServiceInstance> candidates, InstanceLoadStats stats, double loadFactor) {
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        Map<String, ServiceInstance> byKey = new HashMap<>();
+        int totalInflight = 0;
+        for (ServiceInstance candidate : candidates) {
+            byKey.put(InstanceLoadStats.keyOf(candidate), candidate);
+            totalInflight += stats.get(candidate).getInflight();
+        }
+        double capacity = Math.ceil(loadFactor * (totalInflight + 1) / candidates.size());
+
+        ServiceInstance first = null;
+        boolean[] visited = new boolean[instances.length];
+        int visitedCount = 0;
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        for (int i = 0; i < points.length && visitedCount < instances.length; i++) {
+            int owner = owners[(index + i) % points.length];
+            if (visited[owner]) {
+                continue;
+            }
+            visited[owner] = true;
+            visitedCount++;
+            ServiceInstance candidate = byKey.get(InstanceLoadStats.keyOf(instances[owner]));
+            if (candidate == null) {
+                continue;
+            }
+            if (stats.get(candidate).getInflight() < capacity) {
+                return candidate;
+            }
+            if (first == null) {
+                first = candidate;
+            }
+        }
+        // Candidates missing from the ring are only chosen when the ring holds none of them
+        return first != null ? first : candidates.get(0);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the characters of the value, followed by a final avalanche step.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
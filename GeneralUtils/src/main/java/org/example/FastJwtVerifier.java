@@ -0,0 +1,507 @@
+package org.example;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Allocation-light verifier for the HMAC-signed JWT tokens issued by the services.
+ *
+ * Instead of going through jjwt, which decodes every part into Strings and Jackson maps, this verifier
+ * base64url-decodes the token straight into per-thread byte buffers, computes the HMAC over the
+ * {@code header.payload} characters without building intermediate Strings, and pulls only the
+ * {@code username}, {@code authorities}, {@value AuthorityDictionary#CLAIM_NAME}, {@code jti}, {@code iat},
+ * {@code exp} and {@code nbf} claims out of the payload with a small streaming JSON reader.
+ *
+ * The fast path only positively confirms tokens it fully understands: a header made of {@code alg}, {@code typ}
+ * and {@code kid} only, an HS256/HS384/HS512 signature which matches, plain (unescaped) string claims and a valid
+ * time window. For anything else {@link #verify(String, JwtKeyRing)} returns null and the caller falls back to
+ * jjwt, which remains the authority on rejecting tokens and reporting why.
+ */
+public class FastJwtVerifier {
+
+    private static final String[] HMAC_ALGORITHMS = {"HS256", "HS384", "HS512"};
+    private static final String[] MAC_ALGORITHMS = {"HmacSHA256", "HmacSHA384", "HmacSHA512"};
+    private static final int[] MAC_LENGTHS = {32, 48, 64};
+
+    private static final byte[] ALG = ascii("alg");
+    private static final byte[] TYP = ascii("typ");
+    private static final byte[] KID = ascii("kid");
+    private static final byte[] USERNAME = ascii("username");
+    private static final byte[] AUTHORITIES = ascii("authorities");
+    private static final byte[] AUTHORITY_BITS = ascii(AuthorityDictionary.CLAIM_NAME);
+    private static final byte[] TOKEN_ID = ascii("jti");
+    private static final byte[] EXP = ascii("exp");
+    private static final byte[] NBF = ascii("nbf");
+    private static final byte[] IAT = ascii("iat");
+
+    private static final int[] BASE64URL = new int[128];
+
+    static {
+        for (int i = 0; i < BASE64URL.length; i++) {
+            BASE64URL[i] = -1;
+        }
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private final ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(Workspace::new);
+
+    /**
+     * Verifies a JWT token on the fast path.
+     *
+     * @param token The compact JWT token.
+     * @param keyRing The keys the token may be signed with.
+     * @return The identity carried by the token, or null if the token could not be confirmed on the fast path
+     *         and has to be verified by jjwt.
+     */
+    public JwtIdentity verify(String token, JwtKeyRing keyRing) {
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            return null;
+        }
+        Workspace workspace = workspaces.get();
+
+        // Header : only 'alg', 'typ' and 'kid' are understood
+        int headerLength = decode(token, 0, firstDot, workspace.header = workspace.ensure(workspace.header, firstDot));
+        if (headerLength < 0 || !readHeader(workspace, workspace.header, headerLength)) {
+            return null;
+        }
+        KeyEntry keyEntry = workspace.keyEntry(keyRing, workspace.kidStart, workspace.kidEnd, workspace.algorithm);
+        if (keyEntry == null) {
+            return null;
+        }
+
+        // Signature : HMAC over the ASCII characters of 'header.payload'
+        int signedLength = secondDot;
+        byte[] signingInput = workspace.signingInput = workspace.ensure(workspace.signingInput, signedLength);
+        for (int i = 0; i < signedLength; i++) {
+            char c = token.charAt(i);
+            if (c > 127) {
+                return null;
+            }
+            signingInput[i] = (byte) c;
+        }
+        int signatureLength = decode(token, secondDot + 1, token.length(),
+                workspace.signature = workspace.ensure(workspace.signature, token.length() - secondDot - 1));
+        if (signatureLength != MAC_LENGTHS[keyEntry.algorithm]) {
+            return null;
+        }
+        try {
+            keyEntry.mac.update(signingInput, 0, signedLength);
+            keyEntry.mac.doFinal(workspace.expected, 0);
+        } catch (GeneralSecurityException ex) {
+            keyEntry.mac.reset();
+            return null;
+        }
+        int difference = 0;
+        for (int i = 0; i < signatureLength; i++) {
+            difference |= workspace.expected[i] ^ workspace.signature[i];
+        }
+        if (difference != 0) {
+            return null;
+        }
+
+        // Payload : only 'username', 'authorities', 'auth', 'jti', 'iat', 'exp' and 'nbf' are extracted, every other claim is skipped
+        int payloadLength = decode(token, firstDot + 1, secondDot,
+                workspace.payload = workspace.ensure(workspace.payload, secondDot - firstDot - 1));
+        if (payloadLength < 0) {
+            return null;
+        }
+        return readPayload(workspace, workspace.payload, payloadLength);
+    }
+
+    /**
+     * Reads the token header and records the signature algorithm and the position of the key ID.
+     *
+     * @return true if the header only holds understood fields and names an HMAC algorithm.
+     */
+    private boolean readHeader(Workspace workspace, byte[] json, int length) {
+        workspace.algorithm = -1;
+        workspace.kidStart = -1;
+        workspace.kidEnd = -1;
+        JsonCursor cursor = workspace.cursor.reset(json, length);
+        if (!cursor.beginObject()) {
+            return false;
+        }
+        while (cursor.hasNextField()) {
+            int nameStart = cursor.readString();
+            if (nameStart < 0 || !cursor.expect(':')) {
+                return false;
+            }
+            int nameEnd = cursor.stringEnd;
+            int valueStart = cursor.readString();
+            if (valueStart < 0) {
+                return false;
+            }
+            if (cursor.nameIs(nameStart, nameEnd, ALG)) {
+                workspace.algorithm = algorithmIndex(json, valueStart, cursor.stringEnd);
+            } else if (cursor.nameIs(nameStart, nameEnd, KID)) {
+                workspace.kidStart = valueStart;
+                workspace.kidEnd = cursor.stringEnd;
+            } else if (!cursor.nameIs(nameStart, nameEnd, TYP)) {
+                return false;
+            }
+        }
+        return cursor.endObject() && workspace.algorithm >= 0;
+    }
+
+    /**
+     * Reads the needed claims from the payload and checks the token's time window.
+     *
+     * @return The identity, or null if the payload is not understood or the token is outside its time window.
+     */
+    private JwtIdentity readPayload(Workspace workspace, byte[] json, int length) {
+        JsonCursor cursor = workspace.cursor.reset(json, length);
+        String username = null;
+        String authorities = null;
+        String authorityBits = null;
+        String tokenId = null;
+        long issuedAt = Long.MIN_VALUE;
+        long expiresAt = Long.MAX_VALUE;
+        long notBefore = Long.MIN_VALUE;
+        if (!cursor.beginObject()) {
+            return null;
+        }
+        while (cursor.hasNextField()) {
+            int nameStart = cursor.readString();
+            if (nameStart < 0 || !cursor.expect(':')) {
+                return null;
+            }
+            int nameEnd = cursor.stringEnd;
+            if (cursor.nameIs(nameStart, nameEnd, USERNAME) || cursor.nameIs(nameStart, nameEnd, AUTHORITIES)
+                    || cursor.nameIs(nameStart, nameEnd, AUTHORITY_BITS) || cursor.nameIs(nameStart, nameEnd, TOKEN_ID)) {
+                int valueStart = cursor.readString();
+                if (valueStart < 0) {
+                    return null;
+                }
+                String value = new String(json, valueStart, cursor.stringEnd - valueStart, StandardCharsets.UTF_8);
+                if (nameEnd - nameStart == USERNAME.length) {
+                    username = value;
+                } else if (nameEnd - nameStart == AUTHORITIES.length) {
+                    authorities = value;
+                } else if (nameEnd - nameStart == AUTHORITY_BITS.length) {
+                    authorityBits = value;
+                } else {
+                    tokenId = value;
+                }
+            } else if (cursor.nameIs(nameStart, nameEnd, EXP) || cursor.nameIs(nameStart, nameEnd, NBF)
+                    || cursor.nameIs(nameStart, nameEnd, IAT)) {
+                long seconds = cursor.readLong();
+                if (seconds < 0) {
+                    return null;
+                }
+                if (json[nameStart] == 'e') {
+                    expiresAt = seconds * 1000;
+                } else if (json[nameStart] == 'n') {
+                    notBefore = seconds * 1000;
+                } else {
+                    issuedAt = seconds * 1000;
+                }
+            } else if (!cursor.skipValue()) {
+                return null;
+            }
+        }
+        if (!cursor.endObject()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now > expiresAt || now < notBefore) {
+            return null;
+        }
+        return new JwtIdentity(username, authorities, authorityBits, tokenId, issuedAt, expiresAt);
+    }
+
+    private static int algorithmIndex(byte[] json, int start, int end) {
+        for (int i = 0; i < HMAC_ALGORITHMS.length; i++) {
+            String algorithm = HMAC_ALGORITHMS[i];
+            if (end - start == algorithm.length() && json[start + 2] == algorithm.charAt(2)
+                    && json[start + 3] == algorithm.charAt(3) && json[start + 4] == algorithm.charAt(4)
+                    && json[start] == 'H' && json[start + 1] == 'S') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the unpadded base64url characters {@code token[start, end)} into {@code out}.
+     *
+     * @return The number of decoded bytes, or -1 if the characters are not valid unpadded base64url.
+     */
+    private static int decode(String token, int start, int end, byte[] out) {
+        int length = 0;
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = start; i < end; i++) {
+            char c = token.charAt(i);
+            int value = c < 128 ? BASE64URL[c] : -1;
+            if (value < 0) {
+                return -1;
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                out[length++] = (byte) (bits >> bitCount);
+            }
+        }
+        // A single leftover character can't encode a byte
+        return bitCount >= 6 ? -1 : length;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * A key of the key ring along with a Mac already initialised with it, for one signature algorithm.
+     */
+    private static final class KeyEntry {
+        private final byte[] keyId;
+        private final int algorithm;
+        private final Mac mac;
+
+        private KeyEntry(byte[] keyId, int algorithm, Mac mac) {
+            this.keyId = keyId;
+            this.algorithm = algorithm;
+            this.mac = mac;
+        }
+    }
+
+    /**
+     * Per-thread buffers, JSON cursor and initialised Macs, reused from one token to the next.
+     */
+    private static final class Workspace {
+        private byte[] header = new byte[64];
+        private byte[] payload = new byte[512];
+        private byte[] signingInput = new byte[1024];
+        private byte[] signature = new byte[64];
+        private final byte[] expected = new byte[64];
+        private final JsonCursor cursor = new JsonCursor();
+
+        private int algorithm;
+        private int kidStart;
+        private int kidEnd;
+
+        private JwtKeyRing keyRing;
+        private final List<KeyEntry> keyEntries = new ArrayList<>();
+
+        private byte[] ensure(byte[] buffer, int length) {
+            return buffer.length >= length ? buffer : new byte[Math.max(length, buffer.length * 2)];
+        }
+
+        /**
+         * Returns the initialised Mac for the given key ID and algorithm, creating it on first use.
+         * The Macs are dropped as soon as the key ring is rotated.
+         *
+         * @return The matching key entry, or null if the key is unknown or too weak for the algorithm.
+         */
+        private KeyEntry keyEntry(JwtKeyRing currentKeyRing, int kidStart, int kidEnd, int algorithm) {
+            if (keyRing != currentKeyRing) {
+                keyEntries.clear();
+                keyRing = currentKeyRing;
+            }
+            for (KeyEntry entry : keyEntries) {
+                if (entry.algorithm == algorithm && sameKeyId(entry.keyId, kidStart, kidEnd)) {
+                    return entry;
+                }
+            }
+            String keyId = kidStart < 0 ? null : new String(header, kidStart, kidEnd - kidStart, StandardCharsets.UTF_8);
+            try {
+                SecretKey key = currentKeyRing.getKey(keyId);
+                if (key.getEncoded().length < MAC_LENGTHS[algorithm]) {
+                    // jjwt rejects keys weaker than the algorithm, leave it to report the error
+                    return null;
+                }
+                Mac mac = Mac.getInstance(MAC_ALGORITHMS[algorithm]);
+                mac.init(key);
+                KeyEntry entry = new KeyEntry(keyId == null ? null : keyId.getBytes(StandardCharsets.UTF_8), algorithm, mac);
+                keyEntries.add(entry);
+                return entry;
+            } catch (Exception ex) {
+                return null;
+            }
+        }
+
+        private boolean sameKeyId(byte[] keyId, int kidStart, int kidEnd) {
+            if (keyId == null || kidStart < 0) {
+                return keyId == null && kidStart < 0;
+            }
+            if (keyId.length != kidEnd - kidStart) {
+                return false;
+            }
+            for (int i = 0; i < keyId.length; i++) {
+                if (keyId[i] != header[kidStart + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Minimal streaming reader over a JSON object held in a byte buffer.
+     * Strings containing escape sequences are not supported and make the reader give up.
+     */
+    private static final class JsonCursor {
+        private byte[] json;
+        private int position;
+        private int end;
+        private int stringEnd;
+        private boolean first;
+
+        private JsonCursor reset(byte[] json, int length) {
+            this.json = json;
+            this.position = 0;
+            this.end = length;
+            return this;
+        }
+
+        private void skipWhitespace() {
+            while (position < end && (json[position] == ' ' || json[position] == '\t'
+                    || json[position] == '\n' || json[position] == '\r')) {
+                position++;
+            }
+        }
+
+        private boolean expect(char c) {
+            skipWhitespace();
+            if (position < end && json[position] == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean beginObject() {
+            first = true;
+            return expect('{');
+        }
+
+        private boolean hasNextField() {
+            skipWhitespace();
+            if (position >= end || json[position] == '}') {
+                return false;
+            }
+            if (first) {
+                first = false;
+                return true;
+            }
+            return expect(',');
+        }
+
+        private boolean endObject() {
+            if (!expect('}')) {
+                return false;
+            }
+            skipWhitespace();
+            return position == end;
+        }
+
+        /**
+         * Reads a string without escapes.
+         *
+         * @return The start of the string content, with {@link #stringEnd} set to its end, or -1 if not a plain string.
+         */
+        private int readString() {
+            if (!expect('"')) {
+                return -1;
+            }
+            int start = position;
+            while (position < end) {
+                byte b = json[position];
+                if (b == '"') {
+                    stringEnd = position++;
+                    return start;
+                }
+                if (b == '\\' || (b >= 0 && b < 0x20)) {
+                    return -1;
+                }
+                position++;
+            }
+            return -1;
+        }
+
+        /**
+         * Reads a non-negative integer.
+         *
+         * @return The number, or -1 if the value is not a non-negative integer.
+         */
+        private long readLong() {
+            skipWhitespace();
+            int start = position;
+            long value = 0;
+            while (position < end && json[position] >= '0' && json[position] <= '9' && position - start < 18) {
+                value = value * 10 + (json[position++] - '0');
+            }
+            if (position == start || (position < end && (json[position] == '.' || json[position] == 'e'
+                    || json[position] == 'E' || (json[position] >= '0' && json[position] <= '9')))) {
+                return -1;
+            }
+            return value;
+        }
+
+        /**
+         * Skips any JSON value, including nested objects and arrays.
+         *
+         * @return true if a value was skipped.
+         */
+        private boolean skipValue() {
+            skipWhitespace();
+            if (position >= end) {
+                return false;
+            }
+            byte b = json[position];
+            if (b == '"') {
+                return readString() >= 0;
+            }
+            if (b == '{' || b == '[') {
+                int depth = 0;
+                while (position < end) {
+                    b = json[position];
+                    if (b == '"') {
+                        if (readString() < 0) {
+                            return false;
+                        }
+                        continue;
+                    }
+                    if (b == '{' || b == '[') {
+                        depth++;
+                    } else if (b == '}' || b == ']') {
+                        depth--;
+                    }
+                    position++;
+                    if (depth == 0) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            // Numbers, true, false and null
+            int start = position;
+            while (position < end && json[position] != ',' && json[position] != '}' && json[position] != ' ') {
+                position++;
+            }
+            return position > start;
+        }
+
+        private boolean nameIs(int start, int stop, byte[] name) {
+            if (stop - start != name.length) {
+                return false;
+            }
+            for (int i = 0; i < name.length; i++) {
+                if (json[start + i] != name[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
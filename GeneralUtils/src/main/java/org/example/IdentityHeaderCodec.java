@@ -0,0 +1,195 @@
+package org.example;
+
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Encodes and checks the internal identity header forwarded by the API Gateway to the downstream services.
+ *
+ * When {@code jwt.identityHeader.enabled} is true, the gateway verifies the JWT cookie once and forwards the identity
+ * it carries in the {@value #HEADER_NAME} header, signed with a short HMAC under {@code jwt.identityHeader.secretKey}.
+ * Downstream services trust a header whose MAC matches instead of parsing the JWT token again, and fall back to the
+ * JWT cookie when the header is missing, invalid or expired.
+ *
+ * The header has the form {@code v1.<expiresAt>.<issuedAt>.<username>.<authorities>.<authorityBits>.<tokenId>.<mac>},
+ * where the username, the authorities, the compact authorities (see {@link AuthorityDictionary}) and the token ID are
+ * base64url-encoded and the MAC is the first 16 bytes of the HMAC-SHA256 of everything before it. A header is never
+ * trusted for longer than {@code jwt.identityHeader.ttlSeconds} (60 seconds by default) nor past the expiry of the
+ * JWT token it was issued for.
+ *
+ * The settings are reloaded whenever a {@code jwt.*} property is changed by a configuration refresh.
+ */
+public class IdentityHeaderCodec implements ApplicationListener<EnvironmentChangeEvent> {
+
+    /**
+     * Name of the request header carrying the verified identity.
+     */
+    public static final String HEADER_NAME = "X-Verified-Identity";
+
+    private static final String VERSION = "v1";
+    private static final int MAC_LENGTH = 16;
+    private static final int MIN_SECRET_LENGTH = 32;
+    private static final long DEFAULT_TTL_SECONDS = 60;
+
+    private final Environment environment;
+    private final AtomicReference<Settings> settings;
+
+    /**
+     * Creates a codec initialised from the identity header properties of the given environment.
+     *
+     * @param environment The environment holding the identity header properties.
+     */
+    public IdentityHeaderCodec(Environment environment) {
+        this.environment = environment;
+        this.settings = new AtomicReference<>(Settings.fromEnvironment(environment));
+    }
+
+    /**
+     * Checks whether identity headers are issued and trusted.
+     *
+     * @return Returns true if the identity header is enabled, false otherwise.
+     */
+    public boolean isEnabled() {
+        return settings.get().key != null;
+    }
+
+    /**
+     * Encodes the identity of a verified JWT token into a header value.
+     *
+     * @param identity The identity of the verified token.
+     * @return The header value, or null if the identity header is disabled.
+     */
+    public String encode(JwtIdentity identity) {
+        Settings current = settings.get();
+        if (current.key == null) {
+            return null;
+        }
+        long expiresAt = Math.min(identity.getExpiresAt(), System.currentTimeMillis() + current.ttlMillis);
+        StringBuilder value = new StringBuilder(VERSION)
+                .append('.').append(expiresAt)
+                .append('.').append(identity.getIssuedAt())
+                .append('.').append(base64(identity.getUsername()))
+                .append('.').append(base64(identity.getAuthorities()))
+                .append('.').append(base64(identity.getAuthorityBits()))
+                .append('.').append(base64(identity.getTokenId()));
+        byte[] mac = current.mac(value.toString());
+        return value.append('.').append(Base64.getUrlEncoder().withoutPadding().encodeToString(mac)).toString();
+    }
+
+    /**
+     * Checks a header value and returns the identity it carries.
+     *
+     * @param value The header value, possibly null.
+     * @return The identity, or null if the identity header is disabled or the value is missing, malformed,
+     *         forged or expired.
+     */
+    public JwtIdentity decode(String value) {
+        Settings current = settings.get();
+        if (current.key == null || value == null) {
+            return null;
+        }
+        String[] parts = value.split("\\.", -1);
+        if (parts.length != 8 || !VERSION.equals(parts[0])) {
+            return null;
+        }
+        try {
+            byte[] expected = current.mac(value.substring(0, value.lastIndexOf('.')));
+            byte[] actual = Base64.getUrlDecoder().decode(parts[7]);
+            if (!MessageDigest.isEqual(expected, actual)) {
+                return null;
+            }
+            long expiresAt = Long.parseLong(parts[1]);
+            if (expiresAt <= System.currentTimeMillis()) {
+                return null;
+            }
+            return new JwtIdentity(unbase64(parts[3]), unbase64(parts[4]), optionalUnbase64(parts[5]), optionalUnbase64(parts[6]),
+                    Long.parseLong(parts[2]), expiresAt);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Rebuilds the settings from the environment and swaps them in.
+     */
+    public void reload() {
+        settings.set(Settings.fromEnvironment(environment));
+    }
+
+    /**
+     * Reloads the settings whenever a JWT property has been changed by a configuration refresh.
+     *
+     * @param event The event listing the changed property keys.
+     */
+    @Override
+    public void onApplicationEvent(EnvironmentChangeEvent event) {
+        for (String key : event.getKeys()) {
+            if (key.startsWith("jwt.")) {
+                reload();
+                return;
+            }
+        }
+    }
+
+    private static String base64(String value) {
+        return value == null ? "" : Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String unbase64(String value) {
+        return new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+
+    private static String optionalUnbase64(String value) {
+        return value.isEmpty() ? null : unbase64(value);
+    }
+
+    /**
+     * The MAC key and time-to-live currently in use. The key is null when the identity header is disabled.
+     */
+    private static final class Settings {
+        private final SecretKeySpec key;
+        private final long ttlMillis;
+        private final ThreadLocal<Mac> macs;
+
+        private Settings(SecretKeySpec key, long ttlMillis) {
+            this.key = key;
+            this.ttlMillis = ttlMillis;
+            this.macs = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac mac = Mac.getInstance("HmacSHA256");
+                    mac.init(key);
+                    return mac;
+                } catch (GeneralSecurityException ex) {
+                    throw new IllegalStateException("HmacSHA256 is not supported by this JVM", ex);
+                }
+            });
+        }
+
+        private static Settings fromEnvironment(Environment environment) {
+            if (!environment.getProperty("jwt.identityHeader.enabled", Boolean.class, false)) {
+                return new Settings(null, 0);
+            }
+            byte[] secret = environment.getRequiredProperty("jwt.identityHeader.secretKey").getBytes(StandardCharsets.UTF_8);
+            if (secret.length < MIN_SECRET_LENGTH) {
+                throw new IllegalArgumentException(String.format("The identity header secret key must be at least %d bytes long", MIN_SECRET_LENGTH));
+            }
+            long ttlSeconds = environment.getProperty("jwt.identityHeader.ttlSeconds", Long.class, DEFAULT_TTL_SECONDS);
+            return new Settings(new SecretKeySpec(secret, "HmacSHA256"), ttlSeconds * 1000L);
+        }
+
+        private byte[] mac(String input) {
+            byte[] mac = macs.get().doFinal(input.getBytes(StandardCharsets.US_ASCII));
+            byte[] truncated = new byte[MAC_LENGTH];
+            System.arraycopy(mac, 0, truncated, 0, MAC_LENGTH);
+            return truncated;
+        }
+    }
+}
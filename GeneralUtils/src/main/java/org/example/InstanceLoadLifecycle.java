@@ -0,0 +1,53 @@
+package org.example;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+/**
+ * Load balancer lifecycle feeding the {@link InstanceLoadStats} of a service with the calls made to its instances.
+ *
+ * The lifecycle callbacks are invoked by the API Gateway, the load balanced RestTemplates and the Feign clients alike,
+ * so the latencies of every kind of call are tracked.
+ */
+public class InstanceLoadLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final InstanceLoadStats stats;
+
+    /**
+     * Creates a lifecycle feeding the given statistics.
+     *
+     * @param stats The load statistics of the instances of the service.
+     */
+    public InstanceLoadLifecycle(InstanceLoadStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (lbResponse != null && lbResponse.hasServer()) {
+            stats.onStart(lbResponse.getServer(), request, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (completionContext.status() == CompletionContext.Status.DISCARD || lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        stats.onComplete(lbResponse.getServer(), completionContext.getLoadBalancerRequest(),
+                completionContext.status() == CompletionContext.Status.FAILED, System.nanoTime());
+    }
+}
@@ -0,0 +1,189 @@
+package org.example;
+
+import org.springframework.cloud.client.ServiceInstance;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Load statistics of the instances of one service, as seen by the calls of this service: the number of calls in flight
+ * to each instance and the exponentially weighted moving average (EWMA) of their latency.
+ *
+ * The average is "peak" sensitive: a latency above the average replaces it at once, while lower latencies only pull
+ * it down gradually, with a decay over time rather than over a number of calls. A slow instance is therefore avoided
+ * straight away, and is tried again once it has recovered. Failed calls count as slow calls.
+ *
+ * Calls are tracked from their start, so calls which never complete (e.g. cancelled ones) are forgotten after a while
+ * instead of counting as in flight forever.
+ */
+public class InstanceLoadStats {
+
+    /**
+     * Default time constant of the latency average, in milliseconds.
+     */
+    public static final long DEFAULT_DECAY_MILLIS = 10000;
+
+    private static final int FAILURE_PENALTY = 5;
+    private static final long PRUNE_INTERVAL_NANOS = 60_000_000_000L;
+    private static final long MAX_CALL_NANOS = 300_000_000_000L;
+
+    private final double decayNanos;
+    private final Map<String, Instance> instances = new ConcurrentHashMap<>();
+    private volatile long nextPrune = System.nanoTime() + PRUNE_INTERVAL_NANOS;
+
+    /**
+     * Creates empty statistics with a latency average decaying over {@value #DEFAULT_DECAY_MILLIS} ms.
+     */
+    public InstanceLoadStats() {
+        this(DEFAULT_DECAY_MILLIS);
+    }
+
+    /**
+     * Creates empty statistics.
+     *
+     * @param decayMillis The time constant of the latency average: the weight of a latency is divided by e after that time.
+     */
+    public InstanceLoadStats(long decayMillis) {
+        this.decayNanos = Math.max(1, decayMillis) * 1_000_000d;
+    }
+
+    /**
+     * Returns the statistics of an instance, creating them if needed.
+     *
+     * @param instance The service instance.
+     * @return The statistics of the instance.
+     */
+    public Instance get(ServiceInstance instance) {
+        String key = keyOf(instance);
+        Instance stats = instances.get(key);
+        if (stats == null) {
+            stats = instances.computeIfAbsent(key, k -> new Instance());
+        }
+        return stats;
+    }
+
+    /**
+     * Records the start of a call to an instance.
+     *
+     * @param instance The service instance.
+     * @param call The object identifying the call until it completes (e.g. the load balancer request).
+     * @param now The current time, as returned by {@link System#nanoTime()}.
+     */
+    public void onStart(ServiceInstance instance, Object call, long now) {
+        get(instance).pending.put(new CallKey(call), now);
+        if (now - nextPrune >= 0) {
+            prune(now);
+        }
+    }
+
+    /**
+     * Records the completion of a call to an instance.
+     *
+     * @param instance The service instance.
+     * @param call The object the start of the call was recorded with.
+     * @param failed Whether the call failed.
+     * @param now The current time, as returned by {@link System#nanoTime()}.
+     */
+    public void onComplete(ServiceInstance instance, Object call, boolean failed, long now) {
+        Instance stats = get(instance);
+        Long start = stats.pending.remove(new CallKey(call));
+        if (start != null) {
+            stats.record(now - start, failed, now, decayNanos);
+        }
+    }
+
+    /**
+     * Returns the number of instances tracked.
+     *
+     * @return The number of instances.
+     */
+    public int size() {
+        return instances.size();
+    }
+
+    /**
+     * Forgets the calls which have been in flight for too long, and the instances without calls for a while.
+     */
+    private void prune(long now) {
+        nextPrune = now + PRUNE_INTERVAL_NANOS;
+        Iterator<Instance> iterator = instances.values().iterator();
+        while (iterator.hasNext()) {
+            Instance stats = iterator.next();
+            stats.pending.values().removeIf(start -> now - start > MAX_CALL_NANOS);
+            if (stats.pending.isEmpty() && now - stats.lastUpdate > MAX_CALL_NANOS) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the key identifying an instance in the statistics.
+     *
+     * @param instance The service instance.
+     * @return The host and port of the instance.
+     */
+    public static String keyOf(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+
+    /**
+     * Load statistics of one instance.
+     */
+    public static final class Instance {
+        private final Map<CallKey, Long> pending = new ConcurrentHashMap<>();
+        private volatile double latencyNanos;
+        private volatile long lastUpdate = System.nanoTime();
+
+        /**
+         * Returns the number of calls in flight to the instance.
+         *
+         * @return The number of calls in flight.
+         */
+        public int getInflight() {
+            return pending.size();
+        }
+
+        /**
+         * Returns the average latency of the instance.
+         *
+         * @return The average latency in nanoseconds, or 0 if no call to the instance has completed yet.
+         */
+        public double getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        private synchronized void record(long elapsedNanos, boolean failed, long now, double decayNanos) {
+            double latency = failed ? Math.max(elapsedNanos, latencyNanos) * FAILURE_PENALTY : elapsedNanos;
+            double current = latencyNanos;
+            if (current == 0 || latency > current) {
+                latencyNanos = latency;
+            } else {
+                double weight = Math.exp(-Math.max(0, now - lastUpdate) / decayNanos);
+                latencyNanos = current * weight + latency * (1 - weight);
+            }
+            lastUpdate = now;
+        }
+    }
+
+    /**
+     * Identifies a call by the identity of the object it was started with, as the load balancer requests of identical
+     * calls are equal.
+     */
+    private static final class CallKey {
+        private final Object call;
+
+        private CallKey(Object call) {
+            this.call = call;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof CallKey && ((CallKey) other).call == call;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(call);
+        }
+    }
+}
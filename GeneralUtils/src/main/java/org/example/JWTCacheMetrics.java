@@ -0,0 +1,49 @@
+package org.example;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Micrometer binder which publishes the statistics of a {@link VerifiedTokenCache}.
+ *
+ * Registering this binder as a bean makes the hit, miss and eviction counters, along with the current size,
+ * available through the actuator metrics endpoint under the {@code jwt.cache.*} names.
+ */
+public class JWTCacheMetrics implements MeterBinder {
+
+    private final VerifiedTokenCache cache;
+
+    /**
+     * Creates a binder for the cache shared by {@link JWTUtil}.
+     */
+    public JWTCacheMetrics() {
+        this(JWTUtil.getVerifiedTokenCache());
+    }
+
+    /**
+     * Creates a binder for the given cache.
+     *
+     * @param cache The cache whose statistics are to be published.
+     */
+    public JWTCacheMetrics(VerifiedTokenCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("jwt.cache.hits", cache, VerifiedTokenCache::getHitCount)
+                .description("Number of JWT tokens served from the verified token cache")
+                .register(registry);
+        FunctionCounter.builder("jwt.cache.misses", cache, VerifiedTokenCache::getMissCount)
+                .description("Number of JWT tokens which had to be verified")
+                .register(registry);
+        FunctionCounter.builder("jwt.cache.evictions", cache, VerifiedTokenCache::getEvictionCount)
+                .description("Number of verified tokens dropped from the cache")
+                .register(registry);
+        Gauge.builder("jwt.cache.size", cache, VerifiedTokenCache::size)
+                .description("Number of verified tokens currently held in the cache")
+                .register(registry);
+    }
+}
@@ -1,6 +1,7 @@
 package org.example;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import javax.crypto.SecretKey;
@@ -12,33 +13,98 @@ import java.nio.charset.StandardCharsets;
  */
 public class JWTUtil {
 
+    /**
+     * Cache of tokens which have already been verified, shared by every caller of this class.
+     */
+    private static final VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache();
+
+    /**
+     * Parser built for the last secret key seen. Services use a single secret key, so deriving the key and building
+     * the parser only happens again when the secret key changes.
+     */
+    private static volatile KeyedParser keyedParser;
+
+    /**
+     * Returns the cache of verified tokens, e.g. to expose its statistics or to clear it after a key rotation.
+     *
+     * @return The shared cache of verified tokens.
+     */
+    public static VerifiedTokenCache getVerifiedTokenCache() {
+        return verifiedTokenCache;
+    }
+
     /**
      * Validates a JWT token against a given secret key.
      *
      * @param token The JWT token to validate.
      * @param secretKey The secret key used to validate the token.
      * @return Returns true if the token is valid, false otherwise.
-     *
-     * @throws IllegalArgumentException if the secret key is invalid or not compatible.
-     * @throws io.jsonwebtoken.JwtException if the token is invalid or cannot be parsed.
      */
     public static Boolean validateJWTToken(String token, String secretKey) {
         try {
-            // Generate a SecretKey object from the provided secret key string
-            SecretKey key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
-
-            // Parse the JWT token and extract claims (payload)
-            Claims claims = Jwts.parser()
-                    .verifyWith(key) // Verify the JWT token's signature with the secret key
-                    .build()
-                    .parseSignedClaims(token) // Parse the JWT and return the payload (claims)
-                    .getPayload();
-
             // If parsing is successful, the token is valid
+            parseJWTToken(token, secretKey);
             return true;
         } catch (Exception ex) {
             // Return false if any exception occurs (e.g., signature validation fails)
             return false;
         }
     }
+
+    /**
+     * Verifies a JWT token against a given secret key and returns its claims.
+     *
+     * Tokens which have already been verified are served from the {@link VerifiedTokenCache}, so the signature
+     * check and payload parsing only happen the first time a token is seen.
+     *
+     * @param token The JWT token to verify.
+     * @param secretKey The secret key used to verify the token.
+     * @return The claims (payload) of the token.
+     *
+     * @throws IllegalArgumentException if the secret key is invalid or not compatible.
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or cannot be parsed.
+     */
+    public static Claims parseJWTToken(String token, String secretKey) {
+        Claims claims = verifiedTokenCache.get(token, secretKey);
+        if (claims == null) {
+            // Parse the JWT token and extract claims (payload)
+            claims = parser(secretKey)
+                    .parseSignedClaims(token) // Parse the JWT and return the payload (claims)
+                    .getPayload();
+            verifiedTokenCache.put(token, secretKey, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * Returns the parser verifying signatures with the given secret key, building it if the secret key has changed.
+     *
+     * @param secretKey The secret key used to verify the tokens.
+     * @return The parser for the secret key.
+     */
+    private static JwtParser parser(String secretKey) {
+        KeyedParser current = keyedParser;
+        if (current == null || !current.secretKey.equals(secretKey)) {
+            // Generate a SecretKey object from the provided secret key string
+            SecretKey key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+            current = new KeyedParser(secretKey, Jwts.parser()
+                    .verifyWith(key) // Verify the JWT token's signature with the secret key
+                    .build());
+            keyedParser = current;
+        }
+        return current.parser;
+    }
+
+    /**
+     * A parser along with the secret key string it was built from.
+     */
+    private static final class KeyedParser {
+        private final String secretKey;
+        private final JwtParser parser;
+
+        private KeyedParser(String secretKey, JwtParser parser) {
+            this.secretKey = secretKey;
+            this.parser = parser;
+        }
+    }
 }
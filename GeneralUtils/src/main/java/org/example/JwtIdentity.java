@@ -0,0 +1,80 @@
+package org.example;
+
+/**
+ * The identity carried by a verified JWT token: the claims the services actually need to authenticate a request.
+ */
+public class JwtIdentity {
+
+    private final String username;
+    private final String authorities;
+    private final String authorityBits;
+    private final String tokenId;
+    private final long issuedAt;
+    private final long expiresAt;
+
+    /**
+     * Creates an identity.
+     *
+     * @param username The value of the {@code username} claim.
+     * @param authorities The value of the {@code authorities} claim, a comma-separated list of authority names.
+     * @param expiresAt The expiry time of the token in milliseconds since the epoch, or {@link Long#MAX_VALUE} if it never expires.
+     */
+    public JwtIdentity(String username, String authorities, long expiresAt) {
+        this(username, authorities, null, expiresAt);
+    }
+
+    /**
+     * Creates an identity whose authorities may be carried in the compact form.
+     *
+     * @param username The value of the {@code username} claim.
+     * @param authorities The value of the {@code authorities} claim, a comma-separated list of authority names.
+     * @param authorityBits The value of the compact {@value AuthorityDictionary#CLAIM_NAME} claim, see {@link AuthorityDictionary}.
+     * @param expiresAt The expiry time of the token in milliseconds since the epoch, or {@link Long#MAX_VALUE} if it never expires.
+     */
+    public JwtIdentity(String username, String authorities, String authorityBits, long expiresAt) {
+        this(username, authorities, authorityBits, null, Long.MIN_VALUE, expiresAt);
+    }
+
+    /**
+     * Creates an identity which can be checked against the {@link TokenRevocationList}.
+     *
+     * @param username The value of the {@code username} claim.
+     * @param authorities The value of the {@code authorities} claim, a comma-separated list of authority names.
+     * @param authorityBits The value of the compact {@value AuthorityDictionary#CLAIM_NAME} claim, see {@link AuthorityDictionary}.
+     * @param tokenId The value of the {@code jti} claim, or null if the token has no ID.
+     * @param issuedAt The issue time of the token in milliseconds since the epoch, or {@link Long#MIN_VALUE} if unknown.
+     * @param expiresAt The expiry time of the token in milliseconds since the epoch, or {@link Long#MAX_VALUE} if it never expires.
+     */
+    public JwtIdentity(String username, String authorities, String authorityBits, String tokenId, long issuedAt, long expiresAt) {
+        this.username = username;
+        this.authorities = authorities;
+        this.authorityBits = authorityBits;
+        this.tokenId = tokenId;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getAuthorities() {
+        return authorities;
+    }
+
+    public String getAuthorityBits() {
+        return authorityBits;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
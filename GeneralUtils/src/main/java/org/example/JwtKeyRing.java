@@ -0,0 +1,123 @@
+package org.example;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.core.env.Environment;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable set of the HMAC keys currently accepted for JWT tokens, along with the key used to sign new tokens.
+ *
+ * Keys are identified by their {@code kid} (key ID). Tokens carry the {@code kid} of the key they were signed with
+ * in their header, which lets several keys be active at the same time while a secret is being rotated.
+ * Tokens without a {@code kid} (issued before key IDs were introduced) are verified with the signing key.
+ *
+ * The key derivation and the {@link JwtParser} are built once when the key ring is created, so verifying a token
+ * does not have to rebuild either of them.
+ */
+public class JwtKeyRing {
+
+    /**
+     * Key ID used when the keys are configured through the single {@code jwt.secretKey} property.
+     */
+    public static final String DEFAULT_KEY_ID = "default";
+
+    private final Map<String, SecretKey> keys;
+    private final String signingKeyId;
+    private final JwtParser parser;
+
+    /**
+     * Creates a key ring from the given secrets.
+     *
+     * @param secrets The secret of each accepted key, by key ID.
+     * @param signingKeyId The ID of the key used to sign new tokens. It must be one of the accepted keys.
+     *
+     * @throws IllegalArgumentException if no secret is provided, the signing key is unknown or a secret is too weak.
+     */
+    public JwtKeyRing(Map<String, String> secrets, String signingKeyId) {
+        if (secrets == null || secrets.isEmpty()) {
+            throw new IllegalArgumentException("At least one JWT secret key must be configured");
+        }
+        if (!secrets.containsKey(signingKeyId)) {
+            throw new IllegalArgumentException(String.format("Unknown JWT signing key ID : %s", signingKeyId));
+        }
+        Map<String, SecretKey> derivedKeys = new LinkedHashMap<>();
+        for (Map.Entry<String, String> secret : secrets.entrySet()) {
+            // Generate a SecretKey object from the provided secret key string
+            derivedKeys.put(secret.getKey(), Keys.hmacShaKeyFor(secret.getValue().getBytes(StandardCharsets.UTF_8)));
+        }
+        this.keys = Collections.unmodifiableMap(derivedKeys);
+        this.signingKeyId = signingKeyId;
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        // Select the key the token was signed with from its 'kid' header
+                        return getKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Creates a key ring from the JWT properties of the given environment.
+     *
+     * When {@code jwt.keys.ids} lists the accepted key IDs, the secret of each key is read from
+     * {@code jwt.keys.<kid>.secretKey} and {@code jwt.keys.active} names the signing key (the first listed key
+     * by default). Otherwise the single {@code jwt.secretKey} property is used under the {@value #DEFAULT_KEY_ID} key ID.
+     *
+     * @param environment The environment holding the JWT properties.
+     * @return The key ring described by the environment.
+     */
+    public static JwtKeyRing fromEnvironment(Environment environment) {
+        String keyIds = environment.getProperty("jwt.keys.ids");
+        if (keyIds == null || keyIds.trim().isEmpty()) {
+            return new JwtKeyRing(Collections.singletonMap(DEFAULT_KEY_ID, environment.getProperty("jwt.secretKey")), DEFAULT_KEY_ID);
+        }
+        Map<String, String> secrets = new LinkedHashMap<>();
+        for (String keyId : keyIds.split(",")) {
+            keyId = keyId.trim();
+            if (!keyId.isEmpty()) {
+                secrets.put(keyId, environment.getRequiredProperty(String.format("jwt.keys.%s.secretKey", keyId)));
+            }
+        }
+        String signingKeyId = environment.getProperty("jwt.keys.active", secrets.keySet().iterator().next());
+        return new JwtKeyRing(secrets, signingKeyId);
+    }
+
+    /**
+     * Returns the key with the given ID, or the signing key if no ID is given.
+     *
+     * @param keyId The ID of the key, possibly null.
+     * @return The matching key.
+     *
+     * @throws io.jsonwebtoken.security.InvalidKeyException if no key with the given ID is accepted.
+     */
+    public SecretKey getKey(String keyId) {
+        SecretKey key = keys.get(keyId == null ? signingKeyId : keyId);
+        if (key == null) {
+            throw new io.jsonwebtoken.security.InvalidKeyException(String.format("Unknown JWT key ID : %s", keyId));
+        }
+        return key;
+    }
+
+    public SecretKey getSigningKey() {
+        return keys.get(signingKeyId);
+    }
+
+    public String getSigningKeyId() {
+        return signingKeyId;
+    }
+
+    public JwtParser getParser() {
+        return parser;
+    }
+}
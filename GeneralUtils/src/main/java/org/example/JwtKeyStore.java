@@ -0,0 +1,61 @@
+package org.example;
+
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holder of the current {@link JwtKeyRing}, shared by the {@link JwtVerifier} and {@link JwtSigner} of a service.
+ *
+ * When registered as a bean, the key store listens for {@link EnvironmentChangeEvent}s, which are published after the
+ * Config Server pushes new properties over Spring Cloud Bus. If any {@code jwt.*} property changed, a new key ring is
+ * built off the request path and swapped in atomically, so secrets can be rotated without a restart.
+ */
+public class JwtKeyStore implements ApplicationListener<EnvironmentChangeEvent> {
+
+    private final Environment environment;
+    private final AtomicReference<JwtKeyRing> keyRing;
+
+    /**
+     * Creates a key store initialised from the JWT properties of the given environment.
+     *
+     * @param environment The environment holding the JWT properties.
+     */
+    public JwtKeyStore(Environment environment) {
+        this.environment = environment;
+        this.keyRing = new AtomicReference<>(JwtKeyRing.fromEnvironment(environment));
+    }
+
+    /**
+     * Returns the key ring currently in use.
+     *
+     * @return The current key ring.
+     */
+    public JwtKeyRing current() {
+        return keyRing.get();
+    }
+
+    /**
+     * Rebuilds the key ring from the environment and swaps it in.
+     * If the new properties are invalid, the current key ring is kept and the error is rethrown.
+     */
+    public void reload() {
+        keyRing.set(JwtKeyRing.fromEnvironment(environment));
+    }
+
+    /**
+     * Reloads the key ring whenever a JWT property has been changed by a configuration refresh.
+     *
+     * @param event The event listing the changed property keys.
+     */
+    @Override
+    public void onApplicationEvent(EnvironmentChangeEvent event) {
+        for (String key : event.getKeys()) {
+            if (key.startsWith("jwt.")) {
+                reload();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.example;
+
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+
+/**
+ * Signs new JWT tokens with the signing key of a {@link JwtKeyStore}.
+ *
+ * The ID of the signing key is written to the {@code kid} header of every token, so that verifiers can pick the
+ * right key while several keys are active during a rotation.
+ */
+public class JwtSigner {
+
+    private final JwtKeyStore keyStore;
+
+    /**
+     * Creates a signer which uses the signing key of the given key store.
+     *
+     * @param keyStore The key store holding the signing key.
+     */
+    public JwtSigner(JwtKeyStore keyStore) {
+        this.keyStore = keyStore;
+    }
+
+    /**
+     * Returns a JWT builder already set up with the current signing key and its key ID.
+     * The caller adds the claims and calls {@link JwtBuilder#compact()} to obtain the token.
+     *
+     * @return A JWT builder which signs with the current signing key.
+     */
+    public JwtBuilder builder() {
+        JwtKeyRing keyRing = keyStore.current();
+        return Jwts.builder()
+                .header().keyId(keyRing.getSigningKeyId()).and()
+                .signWith(keyRing.getSigningKey());
+    }
+}
@@ -0,0 +1,112 @@
+package org.example;
+
+import io.jsonwebtoken.Claims;
+import java.util.Date;
+
+/**
+ * Verifies JWT tokens against the keys of a {@link JwtKeyStore}.
+ *
+ * Verification uses the parser prebuilt by the current {@link JwtKeyRing}, and tokens which have already been
+ * verified with that key ring are served from a {@link VerifiedTokenCache}. Once the key ring is rotated, cached
+ * tokens are verified again against the new keys.
+ *
+ * When the fast path is enabled, {@link #verifyIdentity(String)} first tries the allocation-light
+ * {@link FastJwtVerifier} and only falls back to jjwt for tokens the fast path does not confirm.
+ */
+public class JwtVerifier {
+
+    private final JwtKeyStore keyStore;
+    private final VerifiedTokenCache cache;
+    private final FastJwtVerifier fastJwtVerifier;
+
+    /**
+     * Creates a verifier which shares the verified token cache of {@link JWTUtil}.
+     *
+     * @param keyStore The key store holding the accepted keys.
+     */
+    public JwtVerifier(JwtKeyStore keyStore) {
+        this(keyStore, JWTUtil.getVerifiedTokenCache());
+    }
+
+    /**
+     * Creates a verifier which uses the given verified token cache.
+     *
+     * @param keyStore The key store holding the accepted keys.
+     * @param cache The cache of already verified tokens.
+     */
+    public JwtVerifier(JwtKeyStore keyStore, VerifiedTokenCache cache) {
+        this(keyStore, cache, false);
+    }
+
+    /**
+     * Creates a verifier which uses the given verified token cache and, optionally, the fast path.
+     *
+     * @param keyStore The key store holding the accepted keys.
+     * @param cache The cache of already verified tokens.
+     * @param fastPath Whether {@link #verifyIdentity(String)} should try the {@link FastJwtVerifier} first.
+     */
+    public JwtVerifier(JwtKeyStore keyStore, VerifiedTokenCache cache, boolean fastPath) {
+        this.keyStore = keyStore;
+        this.cache = cache;
+        this.fastJwtVerifier = fastPath ? new FastJwtVerifier() : null;
+    }
+
+    /**
+     * Verifies a JWT token and returns its claims.
+     *
+     * @param token The JWT token to verify.
+     * @return The claims (payload) of the token.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is invalid, expired or signed with an unknown key.
+     */
+    public Claims verify(String token) {
+        JwtKeyRing keyRing = keyStore.current();
+        Claims claims = cache.get(token, keyRing);
+        if (claims == null) {
+            claims = keyRing.getParser()
+                    .parseSignedClaims(token)
+                    .getPayload();
+            cache.put(token, keyRing, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * Verifies a JWT token and returns the identity it carries.
+     *
+     * @param token The JWT token to verify.
+     * @return The username, authorities and expiry of the token.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is invalid, expired or signed with an unknown key.
+     */
+    public JwtIdentity verifyIdentity(String token) {
+        if (fastJwtVerifier != null) {
+            JwtIdentity identity = fastJwtVerifier.verify(token, keyStore.current());
+            if (identity != null) {
+                return identity;
+            }
+        }
+        Claims claims = verify(token);
+        Date issuedAt = claims.getIssuedAt();
+        Date expiration = claims.getExpiration();
+        return new JwtIdentity((String) claims.get("username"), (String) claims.get("authorities"),
+                (String) claims.get(AuthorityDictionary.CLAIM_NAME), claims.getId(),
+                issuedAt == null ? Long.MIN_VALUE : issuedAt.getTime(),
+                expiration == null ? Long.MAX_VALUE : expiration.getTime());
+    }
+
+    /**
+     * Checks whether a JWT token is valid.
+     *
+     * @param token The JWT token to validate.
+     * @return Returns true if the token is valid, false otherwise.
+     */
+    public boolean isValid(String token) {
+        try {
+            verifyIdentity(token);
+            return true;
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.example;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Load balancer lifecycle reporting the outcome of the calls to the instances of a service to an {@link OutlierDetector}.
+ *
+ * A call fails if it ends with an error or with a 5xx status, whether it is made by the API Gateway, a load balanced
+ * RestTemplate or a Feign client.
+ */
+public class OutlierDetectionLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final String serviceId;
+    private final OutlierDetector outlierDetector;
+
+    /**
+     * Creates a lifecycle reporting to the given detector.
+     *
+     * @param serviceId The ID of the service.
+     * @param outlierDetector The detector, or null if the application has none, in which case the lifecycle is inactive.
+     */
+    public OutlierDetectionLifecycle(String serviceId, OutlierDetector outlierDetector) {
+        this.serviceId = serviceId;
+        this.outlierDetector = outlierDetector;
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return outlierDetector != null && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (completionContext.status() == CompletionContext.Status.DISCARD || lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        boolean failed = completionContext.status() == CompletionContext.Status.FAILED
+                || isServerError(completionContext.getClientResponse());
+        outlierDetector.onResult(serviceId, lbResponse.getServer(), failed, System.nanoTime());
+    }
+
+    private static boolean isServerError(Object clientResponse) {
+        HttpStatusCode status = null;
+        if (clientResponse instanceof ResponseData) {
+            status = ((ResponseData) clientResponse).getHttpStatus();
+        } else if (clientResponse instanceof ClientHttpResponse) {
+            try {
+                status = ((ClientHttpResponse) clientResponse).getStatusCode();
+            } catch (Exception ex) {
+                return true;
+            }
+        }
+        return status != null && status.is5xxServerError();
+    }
+}
@@ -0,0 +1,217 @@
+package org.example;
+
+import org.springframework.cloud.client.ServiceInstance;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Passive outlier detection: instances of a service whose calls keep failing are ejected from the instances the
+ * {@link PowerOfTwoChoicesLoadBalancer} chooses from, without waiting for their registration to expire.
+ *
+ * An instance is ejected when its calls fail a number of times in a row, or when the share of failed calls in the
+ * current interval exceeds a threshold once enough calls have been made. Failed calls are those ending with an error
+ * (e.g. a timeout or a refused connection) or a 5xx status. An ejected instance is readmitted after an ejection time
+ * which doubles with every ejection in a row, and is halved again for every interval the instance spends without
+ * being ejected.
+ *
+ * Never more than a maximum share of the instances of a service are ejected at the same time, so a failure of the
+ * whole service (or of the caller) does not leave the service without any instance.
+ */
+public class OutlierDetector {
+
+    private final int consecutiveErrors;
+    private final double errorRate;
+    private final int minRequests;
+    private final long intervalNanos;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+    private final double maxEjectionPercent;
+    private final Map<String, Service> services = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a detector.
+     *
+     * @param consecutiveErrors The number of failed calls in a row ejecting an instance.
+     * @param errorRate The share of failed calls in an interval ejecting an instance, between 0 and 1.
+     * @param minRequests The number of calls in an interval needed before the share of failed calls is considered.
+     * @param intervalMillis The length of the intervals the share of failed calls is computed over.
+     * @param baseEjectionMillis The time an instance is ejected for the first time.
+     * @param maxEjectionMillis The longest time an instance is ejected.
+     * @param maxEjectionPercent The maximum share of the instances of a service ejected at the same time, in percent.
+     */
+    public OutlierDetector(int consecutiveErrors, double errorRate, int minRequests, long intervalMillis,
+                           long baseEjectionMillis, long maxEjectionMillis, double maxEjectionPercent) {
+        this.consecutiveErrors = consecutiveErrors;
+        this.errorRate = errorRate;
+        this.minRequests = minRequests;
+        this.intervalNanos = Math.max(1, intervalMillis) * 1_000_000L;
+        this.baseEjectionNanos = Math.max(1, baseEjectionMillis) * 1_000_000L;
+        this.maxEjectionNanos = Math.max(baseEjectionMillis, maxEjectionMillis) * 1_000_000L;
+        this.maxEjectionPercent = maxEjectionPercent;
+    }
+
+    /**
+     * Records the outcome of a call to an instance.
+     *
+     * @param serviceId The ID of the service.
+     * @param instance The service instance.
+     * @param failed Whether the call failed.
+     * @param now The current time, as returned by {@link System#nanoTime()}.
+     */
+    public void onResult(String serviceId, ServiceInstance instance, boolean failed, long now) {
+        Service service = service(serviceId);
+        Instance stats = service.instances.computeIfAbsent(InstanceLoadStats.keyOf(instance), k -> new Instance(now));
+        if (stats.record(failed, now)) {
+            service.eject(stats, now);
+        }
+    }
+
+    /**
+     * Removes the ejected instances from the instances of a service.
+     *
+     * @param serviceId The ID of the service.
+     * @param instances The instances of the service.
+     * @param now The current time, as returned by {@link System#nanoTime()}.
+     * @return The instances which are not ejected, or all of them if every instance is ejected.
+     */
+    public List<ServiceInstance> filter(String serviceId, List<ServiceInstance> instances, long now) {
+        Service service = service(serviceId);
+        service.knownInstances = instances.size();
+        if (service.ejectedCount(now) == 0) {
+            return instances;
+        }
+        List<ServiceInstance> remaining = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            Instance stats = service.instances.get(InstanceLoadStats.keyOf(instance));
+            if (stats == null || !stats.isEjected(now)) {
+                remaining.add(instance);
+            }
+        }
+        return remaining.isEmpty() ? instances : remaining;
+    }
+
+    /**
+     * Returns the state of the instances of every service, e.g. to expose it through actuator.
+     *
+     * @return The instances by service, each with its ejection state and the outcome of its calls in the current interval.
+     */
+    public Map<String, Object> snapshot() {
+        long now = System.nanoTime();
+        Map<String, Object> result = new LinkedHashMap<>();
+        services.forEach((serviceId, service) -> {
+            Map<String, Object> instances = new LinkedHashMap<>();
+            service.instances.forEach((key, stats) -> {
+                synchronized (stats) {
+                    Map<String, Object> state = new LinkedHashMap<>();
+                    state.put("ejected", stats.isEjected(now));
+                    state.put("ejectedForMillis", Math.max(0, (stats.ejectedUntil - now) / 1_000_000L));
+                    state.put("ejections", stats.ejections);
+                    state.put("consecutiveErrors", stats.consecutive);
+                    state.put("requests", stats.requests);
+                    state.put("errors", stats.errors);
+                    instances.put(key, state);
+                }
+            });
+            result.put(serviceId, instances);
+        });
+        return result;
+    }
+
+    /**
+     * Readmits every ejected instance and forgets the outcome of past calls.
+     */
+    public void reset() {
+        services.clear();
+    }
+
+    private Service service(String serviceId) {
+        Service service = services.get(serviceId);
+        if (service == null) {
+            service = services.computeIfAbsent(serviceId, id -> new Service());
+        }
+        return service;
+    }
+
+    /**
+     * Instances of one service.
+     */
+    private final class Service {
+        private final Map<String, Instance> instances = new ConcurrentHashMap<>();
+        private volatile int knownInstances;
+
+        private int ejectedCount(long now) {
+            int count = 0;
+            for (Instance stats : instances.values()) {
+                if (stats.isEjected(now)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private void eject(Instance stats, long now) {
+            int known = Math.max(knownInstances, instances.size());
+            if (ejectedCount(now) + 1 > known * maxEjectionPercent / 100) {
+                return;
+            }
+            synchronized (stats) {
+                if (stats.isEjected(now)) {
+                    return;
+                }
+                stats.ejections++;
+                long ejection = baseEjectionNanos << Math.min(30, stats.ejections - 1);
+                stats.ejectedUntil = now + Math.min(maxEjectionNanos, ejection > 0 ? ejection : maxEjectionNanos);
+                stats.consecutive = 0;
+                stats.requests = 0;
+                stats.errors = 0;
+            }
+        }
+    }
+
+    /**
+     * Outcome of the calls to one instance.
+     */
+    private final class Instance {
+        private int consecutive;
+        private int requests;
+        private int errors;
+        private int ejections;
+        private long intervalStart;
+        private volatile long ejectedUntil;
+
+        private Instance(long now) {
+            this.intervalStart = now;
+            this.ejectedUntil = now;
+        }
+
+        private boolean isEjected(long now) {
+            return ejectedUntil - now > 0;
+        }
+
+        /**
+         * @return true if the instance should be ejected.
+         */
+        private synchronized boolean record(boolean failed, long now) {
+            if (now - intervalStart >= intervalNanos) {
+                if (ejections > 0 && !isEjected(now) && now - ejectedUntil >= intervalNanos) {
+                    // A healthy interval shortens the next ejection
+                    ejections--;
+                }
+                intervalStart = now;
+                requests = 0;
+                errors = 0;
+            }
+            requests++;
+            if (!failed) {
+                consecutive = 0;
+                return false;
+            }
+            errors++;
+            consecutive++;
+            return consecutive >= consecutiveErrors || (requests >= minRequests && errors > requests * errorRate);
+        }
+    }
+}
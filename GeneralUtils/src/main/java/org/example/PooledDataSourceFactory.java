@@ -0,0 +1,101 @@
+package org.example;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.engine.jdbc.connections.internal.DatasourceConnectionProviderImpl;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.springframework.core.env.Environment;
+import javax.sql.DataSource;
+
+/**
+ * Builds the pooled {@link HikariDataSource} the services hand over to Hibernate, instead of letting Hibernate open
+ * connections with its built-in DriverManager pool, which is not meant for production.
+ *
+ * The connection is read from the {@code hibernate.connection.*} properties, and the pool from the
+ * {@code datasource.pool.*} properties:
+ * <ul>
+ *     <li>{@code minIdle} / {@code maxSize} : the number of idle connections kept, and the size of the pool (2 / 10 by default).</li>
+ *     <li>{@code connectionTimeoutMillis} : the time a caller waits for a connection before failing (3000 by default).</li>
+ *     <li>{@code validationTimeoutMillis} : the time a connection is given to prove it is alive (1000 by default).
+ *     Connections are validated with {@code Connection.isValid} when borrowed after being idle, and every
+ *     {@code keepaliveMillis} while idle (120000 by default).</li>
+ *     <li>{@code idleTimeoutMillis} / {@code maxLifetimeMillis} : the time after which idle connections are closed, and
+ *     the time after which every connection is replaced (600000 / 1800000 by default).</li>
+ *     <li>{@code leakDetectionThresholdMillis} : the time a connection may be held before a warning is logged along with
+ *     the stack trace of the code which borrowed it, 0 to disable (20000 by default).</li>
+ *     <li>{@code statementCache.enabled}, {@code statementCache.size} and {@code statementCache.sqlLimit} : the cache of
+ *     prepared statements kept by the driver for each connection (true, 250 statements of up to 2048 characters by
+ *     default). The driver does the caching, so it is only set up for MySQL.</li>
+ * </ul>
+ * When a {@link MeterRegistry} is given, the pool publishes its wait time ({@code hikaricp.connections.acquire}),
+ * usage time ({@code hikaricp.connections.usage}), timeouts and active, idle and pending connection counts.
+ */
+public class PooledDataSourceFactory {
+
+    private static final String PROPERTY_PREFIX = "datasource.pool.";
+
+    private PooledDataSourceFactory() {
+    }
+
+    /**
+     * Creates a pool from the properties of the given environment. The pool opens its first connections straight away,
+     * so a wrong URL or password fails the startup rather than the first request.
+     *
+     * @param environment The environment holding the connection and pool properties.
+     * @param poolName The name of the pool, used in the logs and as the {@code pool} tag of the metrics.
+     * @param meterRegistry The registry the pool metrics are registered in, or null to publish no metrics.
+     * @return The pool, to be closed when the service stops.
+     */
+    public static HikariDataSource create(Environment environment, String poolName, MeterRegistry meterRegistry) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        String driverClassName = environment.getProperty("hibernate.connection.driver_class");
+        if (driverClassName != null && !driverClassName.isEmpty()) {
+            config.setDriverClassName(driverClassName);
+        }
+        String url = environment.getRequiredProperty("hibernate.connection.url");
+        config.setJdbcUrl(url);
+        config.setUsername(environment.getProperty("hibernate.connection.username"));
+        config.setPassword(environment.getProperty("hibernate.connection.password"));
+
+        config.setMinimumIdle(environment.getProperty(PROPERTY_PREFIX + "minIdle", Integer.class, 2));
+        config.setMaximumPoolSize(environment.getProperty(PROPERTY_PREFIX + "maxSize", Integer.class, 10));
+        config.setConnectionTimeout(environment.getProperty(PROPERTY_PREFIX + "connectionTimeoutMillis", Long.class, 3000L));
+        config.setValidationTimeout(environment.getProperty(PROPERTY_PREFIX + "validationTimeoutMillis", Long.class, 1000L));
+        config.setKeepaliveTime(environment.getProperty(PROPERTY_PREFIX + "keepaliveMillis", Long.class, 120000L));
+        config.setIdleTimeout(environment.getProperty(PROPERTY_PREFIX + "idleTimeoutMillis", Long.class, 600000L));
+        config.setMaxLifetime(environment.getProperty(PROPERTY_PREFIX + "maxLifetimeMillis", Long.class, 1800000L));
+        config.setLeakDetectionThreshold(environment.getProperty(PROPERTY_PREFIX + "leakDetectionThresholdMillis", Long.class, 20000L));
+
+        if (environment.getProperty(PROPERTY_PREFIX + "statementCache.enabled", Boolean.class, true) && url.startsWith("jdbc:mysql:")) {
+            // Connector/J keeps the parsed statements per connection, so Hibernate's repeated queries are not parsed again
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty("prepStmtCacheSize", environment.getProperty(PROPERTY_PREFIX + "statementCache.size", "250"));
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", environment.getProperty(PROPERTY_PREFIX + "statementCache.sqlLimit", "2048"));
+            config.addDataSourceProperty("useServerPrepStmts", "true");
+            // Only send the read-only and autocommit changes to the server when they actually change the session state
+            config.addDataSourceProperty("useLocalSessionState", "true");
+        }
+        if (meterRegistry != null) {
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        }
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Wraps a pool into the {@link ConnectionProvider} handed over to Hibernate with the
+     * {@code hibernate.connection.provider_class} setting. The {@code hibernate.connection.datasource} setting is
+     * deprecated, and its replacement {@code jakarta.persistence.nonJtaDataSource} is only read by the JPA bootstrap,
+     * not by {@code org.hibernate.cfg.Configuration}.
+     *
+     * @param dataSource The pool Hibernate takes its connections from.
+     * @return The connection provider.
+     */
+    public static ConnectionProvider connectionProvider(DataSource dataSource) {
+        DatasourceConnectionProviderImpl connectionProvider = new DatasourceConnectionProviderImpl();
+        connectionProvider.setDataSource(dataSource);
+        return connectionProvider;
+    }
+}
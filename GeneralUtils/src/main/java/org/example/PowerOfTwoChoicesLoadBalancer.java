@@ -0,0 +1,188 @@
+package org.example;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Spring Cloud LoadBalancer implementation picking the less loaded of two instances chosen at random
+ * ("power of two choices").
+ *
+ * The load of an instance is its average latency times the number of calls in flight to it plus one, taken from the
+ * {@link InstanceLoadStats} fed by the {@link InstanceLoadLifecycle}. Comparing two random instances rather than all of
+ * them is enough to steer the calls away from a slow instance, without sending every call to the same fastest one.
+ * Instances no call has completed for yet are compared on their calls in flight only.
+ *
+ * When an {@link OutlierDetector} is given, the instances it has ejected are not chosen.
+ *
+ * Instances can be excluded from a choice by putting their keys (see {@link InstanceLoadStats#keyOf(ServiceInstance)})
+ * in the Reactor context of the choice under {@link #EXCLUDED_INSTANCES_CONTEXT_KEY}, e.g. to send a hedged request to
+ * another instance than the first attempt. They are only excluded as long as another instance is left.
+ *
+ * A choice can instead be made by consistent hashing by putting a request key in the Reactor context under
+ * {@link #HASH_KEY_CONTEXT_KEY}, so the requests with the same key go to the same instance as long as it is not
+ * overloaded (see {@link ConsistentHashRing}), e.g. to keep the requests for a product on the instance caching it.
+ * The load factor of the ring can be set under {@link #HASH_LOAD_FACTOR_CONTEXT_KEY}.
+ *
+ * It is used through {@link PowerOfTwoChoicesLoadBalancerConfiguration}, for the calls of the API Gateway, of the
+ * load balanced RestTemplates and of the Feign clients alike.
+ */
+public class PowerOfTwoChoicesLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    /**
+     * Key of the Reactor context entry holding the keys of the instances not to choose, as a {@code Collection<String>}.
+     */
+    public static final String EXCLUDED_INSTANCES_CONTEXT_KEY = PowerOfTwoChoicesLoadBalancer.class.getName() + ".excludedInstances";
+
+    /**
+     * Key of the Reactor context entry holding the key by which the instance is chosen on the consistent hash ring,
+     * as a {@code String}.
+     */
+    public static final String HASH_KEY_CONTEXT_KEY = PowerOfTwoChoicesLoadBalancer.class.getName() + ".hashKey";
+
+    /**
+     * Key of the Reactor context entry holding the load factor of the consistent hash ring, as a {@code Double}.
+     */
+    public static final String HASH_LOAD_FACTOR_CONTEXT_KEY = PowerOfTwoChoicesLoadBalancer.class.getName() + ".hashLoadFactor";
+
+    /**
+     * Default maximum calls in flight of an instance chosen by consistent hashing, relative to the average.
+     */
+    public static final double DEFAULT_HASH_LOAD_FACTOR = 1.25;
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+    private final String serviceId;
+    private final InstanceLoadStats stats;
+    private final OutlierDetector outlierDetector;
+    private volatile ConsistentHashRing ring;
+
+    /**
+     * Creates a load balancer for a service.
+     *
+     * @param serviceInstanceListSupplierProvider The provider of the instances of the service.
+     * @param serviceId The ID of the service.
+     * @param stats The load statistics of the instances of the service.
+     */
+    public PowerOfTwoChoicesLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                         String serviceId, InstanceLoadStats stats) {
+        this(serviceInstanceListSupplierProvider, serviceId, stats, null);
+    }
+
+    /**
+     * Creates a load balancer for a service, which does not choose the instances ejected by an outlier detector.
+     *
+     * @param serviceInstanceListSupplierProvider The provider of the instances of the service.
+     * @param serviceId The ID of the service.
+     * @param stats The load statistics of the instances of the service.
+     * @param outlierDetector The outlier detector, or null to choose from every instance.
+     */
+    public PowerOfTwoChoicesLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                         String serviceId, InstanceLoadStats stats, OutlierDetector outlierDetector) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.stats = stats;
+        this.outlierDetector = outlierDetector;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return Mono.deferContextual(context -> supplier.get(request).next().map(instances -> {
+            List<ServiceInstance> candidates = outlierDetector != null
+                    ? outlierDetector.filter(serviceId, instances, System.nanoTime()) : instances;
+            candidates = exclude(candidates, context.getOrDefault(EXCLUDED_INSTANCES_CONTEXT_KEY, null));
+            String hashKey = context.getOrDefault(HASH_KEY_CONTEXT_KEY, null);
+            Response<ServiceInstance> response = hashKey != null
+                    ? choose(hashKey, instances, candidates, context.getOrDefault(HASH_LOAD_FACTOR_CONTEXT_KEY, DEFAULT_HASH_LOAD_FACTOR))
+                    : choose(candidates);
+            if (supplier instanceof SelectedInstanceCallback && response.hasServer()) {
+                ((SelectedInstanceCallback) supplier).selectedServiceInstance(response.getServer());
+            }
+            return response;
+        }));
+    }
+
+    private static List<ServiceInstance> exclude(List<ServiceInstance> instances, Collection<String> excluded) {
+        if (excluded == null || excluded.isEmpty() || instances.size() <= 1) {
+            return instances;
+        }
+        List<ServiceInstance> remaining = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!excluded.contains(InstanceLoadStats.keyOf(instance))) {
+                remaining.add(instance);
+            }
+        }
+        return remaining.isEmpty() ? instances : remaining;
+    }
+
+    /**
+     * Picks the instance of a key on the consistent hash ring, rebuilding the ring when the instances have changed.
+     *
+     * @param key The request key.
+     * @param instances The instances of the service, the ring is built from.
+     * @param candidates The instances which may be chosen, without the ejected and excluded ones.
+     * @param loadFactor The load factor of the ring.
+     * @return The chosen instance, or an empty response if there is none.
+     */
+    private Response<ServiceInstance> choose(String key, List<ServiceInstance> instances, List<ServiceInstance> candidates,
+                                             double loadFactor) {
+        ConsistentHashRing current = ring;
+        if (current == null || !current.hasInstances(instances)) {
+            current = new ConsistentHashRing(instances, ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+            ring = current;
+        }
+        ServiceInstance instance = current.choose(key, candidates, stats, loadFactor);
+        return instance != null ? new DefaultResponse(instance) : new EmptyResponse();
+    }
+
+    /**
+     * Picks the less loaded of two random instances.
+     *
+     * @param instances The instances of the service.
+     * @return The chosen instance, or an empty response if there is none.
+     */
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        if (instances.size() == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(instances.size());
+        int second = random.nextInt(instances.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        InstanceLoadStats.Instance statsA = stats.get(a);
+        InstanceLoadStats.Instance statsB = stats.get(b);
+        double latencyA = statsA.getLatencyNanos();
+        double latencyB = statsB.getLatencyNanos();
+        if (latencyA == 0 || latencyB == 0) {
+            // Without a latency for both, only the calls in flight can be compared
+            latencyA = 1;
+            latencyB = 1;
+        }
+        double loadA = latencyA * (statsA.getInflight() + 1);
+        double loadB = latencyB * (statsB.getInflight() + 1);
+        return new DefaultResponse(loadA <= loadB ? a : b);
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+}
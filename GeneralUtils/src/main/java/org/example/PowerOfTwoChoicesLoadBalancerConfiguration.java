@@ -0,0 +1,80 @@
+package org.example;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Load balancer client configuration replacing the round robin load balancer with the
+ * {@link PowerOfTwoChoicesLoadBalancer}.
+ *
+ * It is meant to be registered with {@code @LoadBalancerClients(defaultConfiguration = PowerOfTwoChoicesLoadBalancerConfiguration.class)},
+ * which creates its beans in the load balancer context of each service. It is deliberately not annotated with
+ * {@code @Configuration}, so it is not picked up by the component scan of the services.
+ *
+ * The time constant of the latency average is read from the {@code loadbalancer.latencyDecayMillis} property.
+ * If the application defines an {@link OutlierDetector} bean, the instances it ejects are not chosen.
+ */
+public class PowerOfTwoChoicesLoadBalancerConfiguration {
+
+    /**
+     * Creates the load statistics of the instances of the service.
+     *
+     * @param environment the environment holding the load balancer properties.
+     * @return empty InstanceLoadStats.
+     */
+    @Bean
+    public InstanceLoadStats getInstanceLoadStats(Environment environment) {
+        return new InstanceLoadStats(environment.getProperty("loadbalancer.latencyDecayMillis", Long.class,
+                InstanceLoadStats.DEFAULT_DECAY_MILLIS));
+    }
+
+    /**
+     * Creates the load balancer of the service.
+     *
+     * @param environment the environment holding the name of the service.
+     * @param loadBalancerClientFactory the factory of the load balancer contexts.
+     * @param instanceLoadStats the load statistics of the instances of the service.
+     * @param outlierDetector the outlier detector of the application, if any.
+     * @return a PowerOfTwoChoicesLoadBalancer for the service.
+     */
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> getReactorLoadBalancer(Environment environment,
+                                                                       LoadBalancerClientFactory loadBalancerClientFactory,
+                                                                       InstanceLoadStats instanceLoadStats,
+                                                                       ObjectProvider<OutlierDetector> outlierDetector) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        ObjectProvider<ServiceInstanceListSupplier> supplier = loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class);
+        return new PowerOfTwoChoicesLoadBalancer(supplier, serviceId, instanceLoadStats, outlierDetector.getIfAvailable());
+    }
+
+    /**
+     * Creates the lifecycle feeding the load statistics with the calls to the service.
+     *
+     * @param instanceLoadStats the load statistics of the instances of the service.
+     * @return an InstanceLoadLifecycle for the service.
+     */
+    @Bean
+    public LoadBalancerLifecycle<Object, Object, ServiceInstance> getInstanceLoadLifecycle(InstanceLoadStats instanceLoadStats) {
+        return new InstanceLoadLifecycle(instanceLoadStats);
+    }
+
+    /**
+     * Creates the lifecycle reporting the outcome of the calls to the service to the outlier detector.
+     *
+     * @param environment the environment holding the name of the service.
+     * @param outlierDetector the outlier detector of the application, if any.
+     * @return an OutlierDetectionLifecycle for the service.
+     */
+    @Bean
+    public LoadBalancerLifecycle<Object, Object, ServiceInstance> getOutlierDetectionLifecycle(Environment environment,
+                                                                                              ObjectProvider<OutlierDetector> outlierDetector) {
+        return new OutlierDetectionLifecycle(environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME),
+                outlierDetector.getIfAvailable());
+    }
+}
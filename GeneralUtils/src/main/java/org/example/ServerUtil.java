@@ -1,21 +1,25 @@
 package org.example;
 
-import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
-import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.util.MultiValueMap;
+import java.util.Enumeration;
+import java.util.List;
 
 /**
  * Utility class for server-related functions.
  * Provides methods to handle common tasks such as extracting cookies from HTTP requests.
+ *
+ * Cookies are read by scanning the raw {@code Cookie} request headers for the one cookie asked for, instead of going
+ * through {@code getCookies()}, which makes the container parse every cookie of the request into a collection of
+ * cookie objects. Only the value of the matching cookie is copied.
  */
 public class ServerUtil {
 
     /**
      * Extracts the value of a specified cookie from the HttpServletRequest.
      *
-     * This method iterates through all cookies in the request and returns the value of the cookie
+     * This method scans the Cookie headers of the request and returns the value of the first cookie
      * with the given name. If no matching cookie is found, the method returns null.
      *
      * @param request The HttpServletRequest object containing the cookies.
@@ -23,44 +27,99 @@ public class ServerUtil {
      * @return The value of the specified cookie, or null if the cookie is not present.
      */
     public static String extractCookieFromHttpRequest(HttpServletRequest request, String cookieName) {
-        String cookieValue = null;
-        // Retrieve all cookies from the HTTP request
-        Cookie[] cookies = request.getCookies();
-        // Check if cookies are present
-        if (cookies != null) {
-            // Iterate over the cookies
-            for (Cookie cookie : cookies) {
-                // Check if the current cookie matches the specified name
-                if (cookie.getName().equals(cookieName)) {
-                    // Extract the value of the matching cookie
-                    cookieValue = cookie.getValue();
-                    break;  // Exit the loop once the cookie is found
+        Enumeration<String> cookieHeaders = request.getHeaders(HttpHeaders.COOKIE);
+        if (cookieHeaders != null) {
+            while (cookieHeaders.hasMoreElements()) {
+                String cookieValue = extractCookieFromHeader(cookieHeaders.nextElement(), cookieName);
+                if (cookieValue != null) {
+                    return cookieValue;
                 }
             }
         }
-        return cookieValue;  // Return the cookie value or null if not found
+        return null;  // Return null if the cookie is not found
     }
 
     /**
      * Extracts the value of a specified cookie from the ServerHttpRequest.
      *
-     * This method uses Spring's reactive WebFlux framework to retrieve the cookies from the request.
-     * It returns the value of the first cookie with the given name. If no matching cookie is found,
-     * the method returns null.
+     * This method scans the Cookie headers of the reactive request and returns the value of the first cookie
+     * with the given name. If no matching cookie is found, the method returns null.
      *
      * @param request The ServerHttpRequest object containing the cookies.
      * @param cookieName The name of the cookie to extract.
      * @return The value of the specified cookie, or null if the cookie is not present.
      */
     public static String extractCookieFromHttpRequest(ServerHttpRequest request, String cookieName) {
-        String cookieValue = null;
-        // Retrieve all cookies from the reactive HTTP request
-        MultiValueMap<String, HttpCookie> cookies = request.getCookies();
-        // Check if a cookie with the provided name is present
-        if (cookies != null && cookies.containsKey(cookieName)) {
-            // Extract the value of the first cookie in the list with the given name
-            cookieValue = cookies.getFirst(cookieName).getValue();
+        List<String> cookieHeaders = request.getHeaders().get(HttpHeaders.COOKIE);
+        if (cookieHeaders != null) {
+            for (int i = 0; i < cookieHeaders.size(); i++) {
+                String cookieValue = extractCookieFromHeader(cookieHeaders.get(i), cookieName);
+                if (cookieValue != null) {
+                    return cookieValue;
+                }
+            }
         }
-        return cookieValue;  // Return the cookie value or null if not found
+        return null;  // Return null if the cookie is not found
+    }
+
+    /**
+     * Extracts the value of a specified cookie from the value of a Cookie header.
+     *
+     * The header is a list of {@code name=value} pairs separated by semicolons (RFC 6265). Names are compared case
+     * sensitively, whitespace around names and values is ignored and a value enclosed in double quotes is returned
+     * without them. Pairs without an equals sign are skipped.
+     *
+     * @param cookieHeader The value of the Cookie header, may be null.
+     * @param cookieName The name of the cookie to extract.
+     * @return The value of the first cookie with the given name, or null if the cookie is not present.
+     */
+    public static String extractCookieFromHeader(String cookieHeader, String cookieName) {
+        if (cookieHeader == null) {
+            return null;
+        }
+        int length = cookieHeader.length();
+        int nameLength = cookieName.length();
+        int position = 0;
+        while (position < length) {
+            // Skip the separators and whitespace before the name
+            char c = cookieHeader.charAt(position);
+            if (c == ';' || c == ' ' || c == '\t') {
+                position++;
+                continue;
+            }
+            int end = cookieHeader.indexOf(';', position);
+            if (end < 0) {
+                end = length;
+            }
+            if (cookieHeader.startsWith(cookieName, position)) {
+                // Allow whitespace between the name and the equals sign
+                int equals = position + nameLength;
+                while (equals < end && isWhitespace(cookieHeader.charAt(equals))) {
+                    equals++;
+                }
+                if (equals < end && cookieHeader.charAt(equals) == '=') {
+                    int valueStart = equals + 1;
+                    int valueEnd = end;
+                    while (valueStart < valueEnd && isWhitespace(cookieHeader.charAt(valueStart))) {
+                        valueStart++;
+                    }
+                    while (valueEnd > valueStart && isWhitespace(cookieHeader.charAt(valueEnd - 1))) {
+                        valueEnd--;
+                    }
+                    if (valueEnd - valueStart >= 2 && cookieHeader.charAt(valueStart) == '"' && cookieHeader.charAt(valueEnd - 1) == '"') {
+                        valueStart++;
+                        valueEnd--;
+                    }
+                    return cookieHeader.substring(valueStart, valueEnd);
+                }
+            }
+            // Not the cookie we are looking for, move on to the next pair
+            position = end + 1;
+        }
+        return null;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
     }
 }
@@ -0,0 +1,222 @@
+package org.example;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs units of work in a Hibernate {@link Session} and transaction, and always releases them.
+ *
+ * The session is opened with try-with-resources, so it is closed, and its connection handed back to the pool, whatever
+ * the work throws. The transaction is committed when the work returns, and rolled back when it throws; the exception
+ * is then rethrown unchanged, so callers keep catching {@code NoResultException} and the like as before.
+ *
+ * Three variants are offered:
+ * <ul>
+ *     <li>{@link #readStateless(String, Function)} : a {@link StatelessSession}, which has no persistence context at
+ *     all. Entities are returned detached, straight from the result set, and are never tracked. The fastest path for
+ *     lookups whose entities are only read, as long as the work does not rely on lazy loading.</li>
+ *     <li>{@link #read(String, Function)} : the entities loaded are read-only and the session is never flushed, so
+ *     Hibernate neither keeps snapshots of them nor dirty-checks them on commit.</li>
+ *     <li>{@link #write(String, Function)} : a regular session, flushed on commit.</li>
+ * </ul>
+ * Unless disabled, both read variants also mark the JDBC connection read-only, so the database can skip the
+ * bookkeeping of a read-write transaction. The pool resets the flag when the connection is returned.
+ *
+ * Each unit of work is named after the query it runs. The time taken by each name is published as the
+ * {@code db.session} timer (tags {@code query}, {@code mode} and {@code outcome}), along with the number of sessions
+ * currently open ({@code db.sessions.open}) and the number of sessions which could not be closed
+ * ({@code db.sessions.leaked}), whose connections may never return to the pool.
+ */
+public class SessionTemplate {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTemplate.class);
+
+    private final SessionFactory sessionFactory;
+    private final MeterRegistry meterRegistry;
+    private final boolean readOnlyConnections;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final AtomicInteger openSessions = new AtomicInteger();
+    private final Counter leakedSessions;
+
+    /**
+     * Creates a template opening its sessions from the given factory, with read-only JDBC connections for the reads.
+     *
+     * @param sessionFactory The factory the sessions are opened from.
+     * @param meterRegistry The registry the session metrics are registered in.
+     */
+    public SessionTemplate(SessionFactory sessionFactory, MeterRegistry meterRegistry) {
+        this(sessionFactory, meterRegistry, true);
+    }
+
+    /**
+     * Creates a template opening its sessions from the given factory.
+     *
+     * @param sessionFactory The factory the sessions are opened from.
+     * @param meterRegistry The registry the session metrics are registered in.
+     * @param readOnlyConnections Whether the JDBC connections of the reads are marked read-only.
+     */
+    public SessionTemplate(SessionFactory sessionFactory, MeterRegistry meterRegistry, boolean readOnlyConnections) {
+        this.sessionFactory = sessionFactory;
+        this.meterRegistry = meterRegistry;
+        this.readOnlyConnections = readOnlyConnections;
+        Gauge.builder("db.sessions.open", openSessions, AtomicInteger::get)
+                .description("Number of Hibernate sessions currently open")
+                .register(meterRegistry);
+        this.leakedSessions = Counter.builder("db.sessions.leaked")
+                .description("Number of Hibernate sessions which could not be closed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a unit of work which only reads from the database, in a {@link StatelessSession}.
+     *
+     * @param queryName The name the time taken is recorded under, e.g. product.findByName.
+     * @param work The work, given the open stateless session.
+     * @param <T> The type of the result.
+     * @return The result of the work.
+     */
+    public <T> T readStateless(String queryName, Function<StatelessSession, T> work) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try (SessionHandle handle = new SessionHandle(sessionFactory.openStatelessSession())) {
+            StatelessSession session = (StatelessSession) handle.session;
+            if (readOnlyConnections) {
+                session.doWork(connection -> connection.setReadOnly(true));
+            }
+            T result = inTransaction(session, work);
+            success = true;
+            return result;
+        } finally {
+            timer(queryName, "stateless", success).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Runs a unit of work which only reads from the database.
+     *
+     * @param queryName The name the time taken is recorded under, e.g. product.findByName.
+     * @param work The work, given the open session.
+     * @param <T> The type of the result.
+     * @return The result of the work.
+     */
+    public <T> T read(String queryName, Function<Session, T> work) {
+        return execute(queryName, true, work);
+    }
+
+    /**
+     * Runs a unit of work which writes to the database.
+     *
+     * @param queryName The name the time taken is recorded under, e.g. product.save.
+     * @param work The work, given the open session.
+     * @param <T> The type of the result.
+     * @return The result of the work.
+     */
+    public <T> T write(String queryName, Function<Session, T> work) {
+        return execute(queryName, false, work);
+    }
+
+    /**
+     * Returns the number of sessions which could not be closed.
+     *
+     * @return The number of leaked sessions.
+     */
+    public long getLeakedSessionCount() {
+        return (long) leakedSessions.count();
+    }
+
+    private <T> T execute(String queryName, boolean readOnly, Function<Session, T> work) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try (SessionHandle handle = new SessionHandle(sessionFactory.openSession())) {
+            Session session = (Session) handle.session;
+            if (readOnly) {
+                session.setDefaultReadOnly(true);
+                session.setHibernateFlushMode(FlushMode.MANUAL);
+                if (readOnlyConnections) {
+                    session.doWork(connection -> connection.setReadOnly(true));
+                }
+            }
+            T result = inTransaction(session, work);
+            success = true;
+            return result;
+        } finally {
+            timer(queryName, readOnly ? "read" : "write", success).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static <S extends SharedSessionContract, T> T inTransaction(S session, Function<S, T> work) {
+        Transaction transaction = session.beginTransaction();
+        try {
+            T result = work.apply(session);
+            transaction.commit();
+            return result;
+        } catch (RuntimeException | Error ex) {
+            rollback(transaction, ex);
+            throw ex;
+        }
+    }
+
+    private static void rollback(Transaction transaction, Throwable cause) {
+        try {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+        } catch (RuntimeException ex) {
+            cause.addSuppressed(ex);
+        }
+    }
+
+    private Timer timer(String queryName, String mode, boolean success) {
+        String outcome = success ? "success" : "error";
+        return timers.computeIfAbsent(queryName + ' ' + mode + ' ' + outcome, key -> Timer.builder("db.session")
+                .description("Time taken by the units of work run in a Hibernate session, including the commit")
+                .tag("query", queryName)
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Open session, closed by try-with-resources. A session which fails to close is counted as leaked rather than
+     * failing the work, which has already been committed or rolled back.
+     */
+    private final class SessionHandle implements AutoCloseable {
+        private final SharedSessionContract session;
+
+        private SessionHandle(SharedSessionContract session) {
+            this.session = session;
+            openSessions.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+            boolean closed = false;
+            try {
+                session.close();
+                closed = !session.isOpen();
+            } catch (RuntimeException ex) {
+                log.warn("Failed to close a Hibernate session, its connection may not return to the pool", ex);
+            } finally {
+                openSessions.decrementAndGet();
+                if (!closed) {
+                    leakedSessions.increment();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.example;
+
+import org.springframework.context.ApplicationListener;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Local set of revoked JWT tokens, checked on every request without a database lookup.
+ *
+ * A single token is revoked by its ID ({@code jti} claim), and every token of a user is revoked by a "not before"
+ * time: tokens of that user issued before it are rejected. Revocations are received as {@link TokenRevokedEvent}s
+ * over Spring Cloud Bus, and are forgotten once the tokens they apply to have expired anyway.
+ *
+ * Revocations are rare and lookups happen on every request, so the state is an immutable snapshot replaced on every
+ * revocation, fronted by a {@link BloomFilter}. The common "not revoked" case is answered by the Bloom filter alone,
+ * without locking or allocating.
+ *
+ * Revocations are only held in memory: an instance which starts after a revocation was broadcast does not know it.
+ */
+public class TokenRevocationList implements ApplicationListener<TokenRevokedEvent> {
+
+    /**
+     * Default maximum lifetime of a token in milliseconds, matching the validity of the tokens issued by the UserMicroservice.
+     */
+    public static final long DEFAULT_MAX_TOKEN_LIFETIME_MILLIS = 30000000L;
+
+    private static final int MIN_BLOOM_FILTER_ENTRIES = 1024;
+
+    private final long maxTokenLifetimeMillis;
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap(), Collections.emptyMap());
+
+    /**
+     * Creates an empty revocation list for tokens living at most {@value #DEFAULT_MAX_TOKEN_LIFETIME_MILLIS} ms.
+     */
+    public TokenRevocationList() {
+        this(DEFAULT_MAX_TOKEN_LIFETIME_MILLIS);
+    }
+
+    /**
+     * Creates an empty revocation list.
+     *
+     * @param maxTokenLifetimeMillis The maximum lifetime of a token, after which the revocation of a user is forgotten.
+     */
+    public TokenRevocationList(long maxTokenLifetimeMillis) {
+        this.maxTokenLifetimeMillis = maxTokenLifetimeMillis;
+    }
+
+    /**
+     * Checks whether the token an identity was read from has been revoked.
+     *
+     * @param identity The identity of a verified token.
+     * @return Returns true if the token has been revoked, false otherwise.
+     */
+    public boolean isRevoked(JwtIdentity identity) {
+        Snapshot current = snapshot;
+        if (current.isEmpty()) {
+            return false;
+        }
+        String tokenId = identity.getTokenId();
+        if (tokenId != null && current.bloomFilter.mightContain('t', tokenId) && current.revokedTokens.containsKey(tokenId)) {
+            return true;
+        }
+        String username = identity.getUsername();
+        if (username != null && current.bloomFilter.mightContain('u', username)) {
+            Long notBefore = current.revokedUsers.get(username);
+            return notBefore != null && identity.getIssuedAt() < notBefore;
+        }
+        return false;
+    }
+
+    /**
+     * Revokes a single token.
+     *
+     * @param tokenId The ID of the token.
+     * @param expiresAt The expiry time of the token in milliseconds since the epoch.
+     */
+    public synchronized void revokeToken(String tokenId, long expiresAt) {
+        Map<String, Long> revokedTokens = new HashMap<>(snapshot.revokedTokens);
+        revokedTokens.put(tokenId, expiresAt);
+        replace(revokedTokens, new HashMap<>(snapshot.revokedUsers));
+    }
+
+    /**
+     * Revokes every token of a user issued before the given time.
+     *
+     * @param username The user.
+     * @param notBefore The time in milliseconds since the epoch. As the issue time of a token has a precision of one
+     *                  second, it should be a whole second.
+     */
+    public synchronized void revokeUser(String username, long notBefore) {
+        Map<String, Long> revokedUsers = new HashMap<>(snapshot.revokedUsers);
+        revokedUsers.merge(username, notBefore, Math::max);
+        replace(new HashMap<>(snapshot.revokedTokens), revokedUsers);
+    }
+
+    public int size() {
+        Snapshot current = snapshot;
+        return current.revokedTokens.size() + current.revokedUsers.size();
+    }
+
+    /**
+     * Applies a revocation received over the bus, or published locally.
+     *
+     * @param event The revocation.
+     */
+    @Override
+    public void onApplicationEvent(TokenRevokedEvent event) {
+        if (event.getTokenId() != null) {
+            revokeToken(event.getTokenId(), event.getExpiresAt());
+        }
+        if (event.getUsername() != null) {
+            revokeUser(event.getUsername(), event.getNotBefore());
+        }
+    }
+
+    /**
+     * Drops the revocations of tokens which have expired anyway and swaps in a new snapshot.
+     */
+    private void replace(Map<String, Long> revokedTokens, Map<String, Long> revokedUsers) {
+        long now = System.currentTimeMillis();
+        Iterator<Long> iterator = revokedTokens.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() <= now) {
+                iterator.remove();
+            }
+        }
+        iterator = revokedUsers.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() + maxTokenLifetimeMillis <= now) {
+                iterator.remove();
+            }
+        }
+        snapshot = new Snapshot(revokedTokens, revokedUsers);
+    }
+
+    /**
+     * Immutable revocation state along with the Bloom filter over its keys.
+     */
+    private static final class Snapshot {
+        private final Map<String, Long> revokedTokens;
+        private final Map<String, Long> revokedUsers;
+        private final BloomFilter bloomFilter;
+
+        private Snapshot(Map<String, Long> revokedTokens, Map<String, Long> revokedUsers) {
+            this.revokedTokens = Collections.unmodifiableMap(revokedTokens);
+            this.revokedUsers = Collections.unmodifiableMap(revokedUsers);
+            this.bloomFilter = new BloomFilter(Math.max(MIN_BLOOM_FILTER_ENTRIES, 2 * (revokedTokens.size() + revokedUsers.size())));
+            for (String tokenId : revokedTokens.keySet()) {
+                bloomFilter.add('t', tokenId);
+            }
+            for (String username : revokedUsers.keySet()) {
+                bloomFilter.add('u', username);
+            }
+        }
+
+        private boolean isEmpty() {
+            return revokedTokens.isEmpty() && revokedUsers.isEmpty();
+        }
+    }
+}
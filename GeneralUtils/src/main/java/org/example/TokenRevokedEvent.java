@@ -0,0 +1,58 @@
+package org.example;
+
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+/**
+ * Spring Cloud Bus event announcing that a JWT token, or every token of a user issued before a given time, has been
+ * revoked. Every service receiving it applies it to its {@link TokenRevocationList}.
+ *
+ * Services must register the event type with
+ * {@code @RemoteApplicationEventScan(basePackageClasses = TokenRevokedEvent.class)} to receive it from the bus.
+ */
+public class TokenRevokedEvent extends RemoteApplicationEvent {
+
+    private String tokenId;
+    private String username;
+    private long notBefore;
+    private long expiresAt;
+
+    /**
+     * Creates an empty event, used when the event is read from the bus.
+     */
+    public TokenRevokedEvent() {
+    }
+
+    /**
+     * Creates an event broadcast to every service.
+     *
+     * @param source The object publishing the event.
+     * @param originService The bus ID of the publishing service.
+     * @param tokenId The ID of the revoked token, or null if a user is revoked.
+     * @param username The revoked user, or null if a single token is revoked.
+     * @param notBefore The time, in milliseconds since the epoch, before which the tokens of the user are revoked.
+     * @param expiresAt The time, in milliseconds since the epoch, after which the revocation no longer needs to be remembered.
+     */
+    public TokenRevokedEvent(Object source, String originService, String tokenId, String username, long notBefore, long expiresAt) {
+        super(source, originService, DEFAULT_DESTINATION_FACTORY.getDestination(null));
+        this.tokenId = tokenId;
+        this.username = username;
+        this.notBefore = notBefore;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getNotBefore() {
+        return notBefore;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,184 @@
+package org.example;
+
+import io.jsonwebtoken.Claims;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, expiry-aware cache of JWT tokens which have already been verified.
+ *
+ * The same JWT cookie is sent with every request of a session, so verifying its signature and parsing its
+ * payload every time is wasted work. This cache remembers the parsed claims of a verified token, keyed by the
+ * SHA-256 digest of the compact token, until either the token itself expires or the configured time-to-live
+ * elapses, whichever comes first.
+ *
+ * Each entry also remembers the key it was verified with (a secret key string or a {@link JwtKeyRing}), so a token
+ * is never served from the cache once the key has changed.
+ */
+public class VerifiedTokenCache {
+
+    /**
+     * Default maximum number of verified tokens held in the cache.
+     */
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    /**
+     * Default time, in milliseconds, for which a verified token is trusted without being verified again.
+     */
+    public static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000L;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", ex);
+        }
+    });
+
+    private final Map<TokenDigest, Entry> entries = new ConcurrentHashMap<>();
+    private final CacheEvictor<Entry> evictor;
+    private final long ttlMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache with the default size and time-to-live.
+     */
+    public VerifiedTokenCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * Creates a cache with the given size and time-to-live.
+     *
+     * @param maxSize The maximum number of verified tokens held in the cache.
+     * @param ttlMillis The maximum time, in milliseconds, for which a verified token is served from the cache.
+     */
+    public VerifiedTokenCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Cache size and time-to-live must be positive");
+        }
+        this.evictor = new CacheEvictor<>(maxSize, entry -> entry.expiresAt);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns the claims of a previously verified token.
+     *
+     * @param token The compact JWT token.
+     * @param verificationKey The key the token is expected to be verified with.
+     * @return The cached claims, or null if the token is not cached, has expired or was verified with another key.
+     */
+    public Claims get(String token, Object verificationKey) {
+        TokenDigest digest = TokenDigest.of(token);
+        Entry entry = entries.get(digest);
+        if (entry != null) {
+            if (entry.expiresAt > System.currentTimeMillis() && entry.verificationKey.equals(verificationKey)) {
+                hits.increment();
+                return entry.claims;
+            }
+            // Stale entries are dropped as soon as they are seen
+            if (entries.remove(digest, entry)) {
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Remembers the claims of a token which has just been verified.
+     *
+     * @param token The compact JWT token.
+     * @param verificationKey The key the token was verified with.
+     * @param claims The parsed claims of the token.
+     */
+    public void put(String token, Object verificationKey, Claims claims) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttlMillis;
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            expiresAt = Math.min(expiresAt, expiration.getTime());
+        }
+        if (expiresAt <= now) {
+            return;
+        }
+        evictions.add(evictor.makeRoom(entries, now));
+        entries.put(TokenDigest.of(token), new Entry(claims, verificationKey, expiresAt));
+    }
+
+    /**
+     * Removes every token from the cache, e.g. after the secret key has been rotated.
+     */
+    public void clear() {
+        int size = entries.size();
+        entries.clear();
+        evictions.add(size);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * A verified token's claims along with the key it was verified with and the time at which it stops being trusted.
+     */
+    private static final class Entry {
+        private final Claims claims;
+        private final Object verificationKey;
+        private final long expiresAt;
+
+        private Entry(Claims claims, Object verificationKey, long expiresAt) {
+            this.claims = claims;
+            this.verificationKey = verificationKey;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * SHA-256 digest of a compact token, used as the cache key so that raw tokens are never held in memory as keys.
+     */
+    private static final class TokenDigest {
+        private final byte[] bytes;
+        private final int hash;
+
+        private TokenDigest(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        private static TokenDigest of(String token) {
+            return new TokenDigest(SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TokenDigest && Arrays.equals(bytes, ((TokenDigest) other).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
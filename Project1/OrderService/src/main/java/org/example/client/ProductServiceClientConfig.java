@@ -2,8 +2,9 @@ package org.example.client;
 
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
-import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
+import org.example.IdentityHeaderCodec;
+import org.example.ServerUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,7 +15,8 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 /**
  * Configuration class for Feign Client specific to the ProductService.
  * This class defines an interceptor that modifies Feign requests to include
- * specific headers, such as the JWT Token retrieved from cookies in incoming HTTP requests.
+ * specific headers, such as the JWT Token retrieved from cookies in incoming HTTP requests
+ * and the identity header issued by the API Gateway.
  */
 @Configuration
 public class ProductServiceClientConfig {
@@ -50,22 +52,22 @@ public class ProductServiceClientConfig {
                 if (requestAttributes != null) {
                     HttpServletRequest httpServletRequest = requestAttributes.getRequest();
 
-                    // Get the cookies from the incoming HttpServletRequest
-                    Cookie[] cookies = httpServletRequest.getCookies();
+                    // Forward the identity header issued by the API Gateway so the ProductService can trust it
+                    // instead of verifying the JWT Token again
+                    String identityHeader = httpServletRequest.getHeader(IdentityHeaderCodec.HEADER_NAME);
+                    if (identityHeader != null) {
+                        requestTemplate.header(IdentityHeaderCodec.HEADER_NAME, identityHeader);
+                    }
 
                     // Get the configured cookie name for JWT Token from the application properties
                     String jwtCookieName = environment.getProperty("jwt.cookie.name");
 
-                    // If cookies are present in the request
-                    if (cookies != null) {
-                        for (Cookie cookie : cookies) {
-                            // Check if the cookie matches the JWT Token cookie name
-                            if (jwtCookieName.equals(cookie.getName())) {
-                                // Add the JWT Token value as a 'Cookie' header in the outgoing Feign request
-                                requestTemplate.header("Cookie", jwtCookieName + "=" + cookie.getValue());
-                                break;  // Exit the loop once the JWT Token cookie is found
-                            }
-                        }
+                    // Get the JWT Token from the cookies of the incoming HttpServletRequest
+                    String jwtToken = ServerUtil.extractCookieFromHttpRequest(httpServletRequest, jwtCookieName);
+
+                    // If the JWT Token is present, add it as a 'Cookie' header in the outgoing Feign request
+                    if (jwtToken != null) {
+                        requestTemplate.header("Cookie", jwtCookieName + "=" + jwtToken);
                     }
                 }
             }
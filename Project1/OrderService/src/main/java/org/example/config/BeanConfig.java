@@ -1,7 +1,9 @@
 package org.example.config;
 
 import feign.Logger;
+import org.example.PowerOfTwoChoicesLoadBalancerConfiguration;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
@@ -10,8 +12,10 @@ import org.springframework.web.client.RestTemplate;
  * Configuration class for defining beans used in the application.
  * This class is responsible for setting up beans related to HTTP communication,
  * including RestTemplate and Feign logging configurations.
+ * Both the RestTemplate and the Feign clients are balanced by the PowerOfTwoChoicesLoadBalancer.
  */
 @Configuration  // Indicates that this class contains Spring configuration and bean definitions.
+@LoadBalancerClients(defaultConfiguration = PowerOfTwoChoicesLoadBalancerConfiguration.class)  // Favours the least loaded instances instead of round robin.
 public class BeanConfig {
 
     /**
@@ -23,7 +27,7 @@ public class BeanConfig {
      * @return A RestTemplate instance configured with load-balancing support.
      */
     @Bean
-    @LoadBalanced  // Indicates that this RestTemplate bean will use Ribbon for client-side load balancing.
+    @LoadBalanced  // Indicates that this RestTemplate bean will use Spring Cloud LoadBalancer for client-side load balancing.
     public RestTemplate getRestTemplate() {
         return new RestTemplate();  // Returns a new instance of RestTemplate.
     }
@@ -0,0 +1,97 @@
+package org.example.config;
+
+import org.example.AuthorityDictionaryStore;
+import org.example.IdentityHeaderCodec;
+import org.example.JWTCacheMetrics;
+import org.example.JWTUtil;
+import org.example.JwtKeyStore;
+import org.example.JwtVerifier;
+import org.example.TokenRevocationList;
+import org.example.TokenRevokedEvent;
+import org.example.service.AuthorityServices;
+import org.springframework.cloud.bus.jackson.RemoteApplicationEventScan;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Configuration class to define beans for the application context.
+ */
+@Configuration
+@RemoteApplicationEventScan(basePackageClasses = TokenRevokedEvent.class)
+public class BeanConfig {
+
+    /**
+     * Creates a {@link JWTCacheMetrics} bean to publish the verified JWT token cache statistics.
+     * Once registered, the hit, miss and eviction counters of the cache used by the JWT validation filter
+     * are available through Actuator's metrics endpoint under the {@code jwt.cache.*} names.
+     *
+     * @return a JWTCacheMetrics instance bound to the shared verified token cache.
+     */
+    @Bean
+    public JWTCacheMetrics getJWTCacheMetrics() {
+        return new JWTCacheMetrics();
+    }
+
+    /**
+     * Creates the {@link JwtKeyStore} holding the JWT keys accepted by this service.
+     * The key store rebuilds its keys whenever the JWT properties are refreshed over Spring Cloud Bus.
+     *
+     * @param environment the environment holding the JWT properties.
+     * @return a JwtKeyStore initialised from the current JWT properties.
+     */
+    @Bean
+    public JwtKeyStore getJwtKeyStore(Environment environment) {
+        return new JwtKeyStore(environment);
+    }
+
+    /**
+     * Creates the {@link JwtVerifier} used to verify JWT tokens of incoming requests.
+     *
+     * The allocation-light fast path is used when {@code jwt.fastPath.enabled} is set to true.
+     *
+     * @param jwtKeyStore the key store holding the accepted keys.
+     * @param environment the environment holding the JWT properties.
+     * @return a JwtVerifier backed by the given key store.
+     */
+    @Bean
+    public JwtVerifier getJwtVerifier(JwtKeyStore jwtKeyStore, Environment environment) {
+        return new JwtVerifier(jwtKeyStore, JWTUtil.getVerifiedTokenCache(),
+                environment.getProperty("jwt.fastPath.enabled", Boolean.class, false));
+    }
+
+    /**
+     * Creates the {@link IdentityHeaderCodec} used to check the internal identity header.
+     * The header is only trusted when {@code jwt.identityHeader.enabled} is set to true.
+     *
+     * @param environment the environment holding the identity header properties.
+     * @return an IdentityHeaderCodec initialised from the current identity header properties.
+     */
+    @Bean
+    public IdentityHeaderCodec getIdentityHeaderCodec(Environment environment) {
+        return new IdentityHeaderCodec(environment);
+    }
+
+    /**
+     * Creates the {@link AuthorityDictionaryStore} used to decode the compact authorities claim of JWT tokens.
+     * The dictionary is loaded from the role and authority tables on first use.
+     *
+     * @param authorityServices the service reading the role and authority names.
+     * @return an AuthorityDictionaryStore backed by the role and authority tables.
+     */
+    @Bean
+    public AuthorityDictionaryStore getAuthorityDictionaryStore(AuthorityServices authorityServices) {
+        return new AuthorityDictionaryStore(authorityServices::getAuthorityDictionaryNames);
+    }
+
+    /**
+     * Creates the {@link TokenRevocationList} checked for every JWT token.
+     * Revocations are received as {@link TokenRevokedEvent}s over Spring Cloud Bus.
+     *
+     * @return an empty TokenRevocationList.
+     */
+    @Bean
+    public TokenRevocationList getTokenRevocationList() {
+        return new TokenRevocationList();
+    }
+}
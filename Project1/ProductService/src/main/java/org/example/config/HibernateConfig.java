@@ -1,11 +1,19 @@
 package org.example.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.PooledDataSourceFactory;
+import org.example.SessionTemplate;
 import org.example.model.*;
 import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
+import javax.sql.DataSource;
 import java.util.Properties;
 
 /**
@@ -14,8 +22,11 @@ import java.util.Properties;
  * This class is responsible for configuring and creating a Hibernate {@link SessionFactory} bean.
  * The {@code @Configuration} annotation indicates that this class contains Spring configuration.
  *
+ * The {@code getDataSource} method creates the pool of connections to the database, see {@link PooledDataSourceFactory}.
+ *
  * The {@code getSessionFactory} method:
  * - Loads Hibernate properties from the {@code application.properties} file.
+ * - Hands the pooled {@code DataSource} over to Hibernate, which no longer opens connections itself.
  * - Configures Hibernate using these properties.
  * - Adds model classes ({@code UtbUser}, {@code UtbAuthority}, {@code UtbPermission}) to the Hibernate configuration.
  * - Builds and returns a {@code SessionFactory} based on the provided configuration.
@@ -42,6 +53,19 @@ public class HibernateConfig {
             UtbPermission.class
     };
 
+    /**
+     * Creates the pooled {@link DataSource} the {@link SessionFactory} takes its connections from.
+     * The pool is configured by the {@code datasource.pool.*} properties, and its wait time and usage metrics are
+     * available through the actuator metrics endpoint (e.g. /monitor/metrics/hikaricp.connections.acquire).
+     *
+     * @param meterRegistry the registry the pool metrics are registered in, if any.
+     * @return a pooled DataSource, closed when the application stops.
+     */
+    @Bean
+    public HikariDataSource getDataSource(ObjectProvider<MeterRegistry> meterRegistry) {
+        return PooledDataSourceFactory.create(environment, "product-ms", meterRegistry.getIfAvailable());
+    }
+
     /**
      * Creates and configures a {@link SessionFactory} bean.
      *
@@ -49,17 +73,15 @@ public class HibernateConfig {
      * the Hibernate {@code Configuration} object, and adds annotated model classes to it. Finally,
      * it builds and returns the {@code SessionFactory}.
      *
+     * @param dataSource the pooled DataSource Hibernate takes its connections from.
      * @return a configured {@code SessionFactory} bean
      * @throws RuntimeException if there is an issue loading properties or creating the {@code SessionFactory}
      */
     @Bean
-    public SessionFactory getSessionFactory() {
+    public SessionFactory getSessionFactory(DataSource dataSource) {
         try {
             Properties properties = new Properties();
-            properties.put("hibernate.connection.driver_class", environment.getProperty("hibernate.connection.driver_class"));
-            properties.put("hibernate.connection.url", environment.getProperty("hibernate.connection.url"));
-            properties.put("hibernate.connection.username", environment.getProperty("hibernate.connection.username"));
-            properties.put("hibernate.connection.password", environment.getProperty("hibernate.connection.password"));
+            properties.put(AvailableSettings.CONNECTION_PROVIDER, PooledDataSourceFactory.connectionProvider(dataSource));
             properties.put("hibernate.dialect", environment.getProperty("hibernate.dialect"));
             properties.put("hibernate.hbm2ddl.auto", environment.getProperty("hibernate.hbm2ddl.auto"));
             properties.put("hibernate.show_sql", environment.getProperty("hibernate.show_sql"));
@@ -80,4 +102,20 @@ public class HibernateConfig {
             throw new RuntimeException("Error creating SessionFactory", ex);
         }
     }
+
+    /**
+     * Creates the {@link SessionTemplate} the service classes run their queries with. It closes every session it
+     * opens, and publishes the time taken by each query under the {@code db.session} metric
+     * (e.g. /monitor/metrics/db.session). The JDBC connections of the reads are marked read-only unless
+     * {@code datasource.readOnlyConnections} is false.
+     *
+     * @param sessionFactory the factory the sessions are opened from.
+     * @param meterRegistry the registry the session metrics are registered in, if any.
+     * @return a SessionTemplate over the given factory.
+     */
+    @Bean
+    public SessionTemplate getSessionTemplate(SessionFactory sessionFactory, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new SessionTemplate(sessionFactory, meterRegistry.getIfAvailable(SimpleMeterRegistry::new),
+                environment.getProperty("datasource.readOnlyConnections", Boolean.class, true));
+    }
 }
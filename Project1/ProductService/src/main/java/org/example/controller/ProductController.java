@@ -11,6 +11,7 @@ import org.example.exception.BadRequestException;
 import org.example.exception.ResourceNotFoundException;
 import org.example.model.UtbCategory;
 import org.example.model.UtbProduct;
+import org.example.service.CatalogEventServices;
 import org.example.service.CategoryServices;
 import org.example.service.ProductServices;
 import org.example.utility.DTOMapperUtil;
@@ -38,6 +39,9 @@ public class ProductController {
     @Autowired
     private CategoryServices categoryServices;
 
+    @Autowired
+    private CatalogEventServices catalogEventServices;
+
     @Autowired
     private Environment environment;
     // Provides access to application environment properties, such as server port, which can be useful for diagnostics and configuration.
@@ -100,7 +104,8 @@ public class ProductController {
 
     /**
      * Endpoint to create a new product.
-     * If the product is successfully created, it returns the product details; otherwise, it throws an InternalServerErrorException.
+     * If the product is successfully created, it announces the change over Spring Cloud Bus and returns the product details;
+     * otherwise, it throws an InternalServerErrorException.
      *
      * @param product The product entity to be created.
      * @return A ResponseEntity containing the APIResponseDTO with the created product details.
@@ -114,6 +119,8 @@ public class ProductController {
     public ResponseEntity<APIResponseDTO> createProduct(@RequestBody UtbProduct product) {
         product = productServices.save(product);
         if(product != null && product.getId() != null) {
+            // Let the API Gateway drop the cached product responses
+            catalogEventServices.publishProductChanged(product.getId());
             ProductDTO productDTO = DTOMapperUtil.toProductDTO(product);
             return ResponseUtil.buildSuccessResponse(HttpStatus.CREATED, productDTO);
         } else {
@@ -154,7 +161,8 @@ public class ProductController {
      * If a category with the same name exists, it throws a {@link BadRequestException} indicating a conflict.
      * If no such category exists, it saves the new category using {@link CategoryServices#save(UtbCategory)}.
      * <p>
-     * If the category is successfully created, it returns an HTTP 201 Created response along with the newly created category data.
+     * If the category is successfully created, the change is announced over Spring Cloud Bus and an HTTP 201 Created response
+     * is returned along with the newly created category data.
      * Otherwise, an {@link InternalServerErrorException} is thrown, indicating that the category creation process failed.
      *
      * @param category The category object to be created, provided in the request body.
@@ -176,6 +184,8 @@ public class ProductController {
         }
         category = categoryServices.save(category);
         if(category != null && category.getId() != null) {
+            // Let the API Gateway drop the cached category responses
+            catalogEventServices.publishCategoryChanged(category.getId());
             CategoryDTO categoryDTO = DTOMapperUtil.toCategoryDTO(category);
             return ResponseUtil.buildSuccessResponse(HttpStatus.CREATED, categoryDTO);
         } else {
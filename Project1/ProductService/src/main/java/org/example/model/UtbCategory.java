@@ -26,6 +26,7 @@ public class UtbCategory {
     private Long id;
     private String name;
     private String description;
-    @OneToMany(fetch = FetchType.EAGER, orphanRemoval = true, mappedBy = "category")
+    // Lazy, so loading a product does not load every other product of its category (which stateless sessions can't do)
+    @OneToMany(fetch = FetchType.LAZY, orphanRemoval = true, mappedBy = "category")
     private List<UtbProduct> products;
 }
@@ -1,25 +1,26 @@
 package org.example.security.securityFilter;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.AuthorityDictionaryStore;
+import org.example.IdentityHeaderCodec;
+import org.example.JwtIdentity;
+import org.example.JwtVerifier;
 import org.example.ServerUtil;
+import org.example.TokenRevocationList;
 import org.example.exception.InvalidTokenException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import javax.crypto.SecretKey;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 @Component
 public class JWTTokenValidationFilter extends OncePerRequestFilter {
@@ -27,8 +28,21 @@ public class JWTTokenValidationFilter extends OncePerRequestFilter {
     @Autowired
     private Environment environment;
 
+    @Autowired
+    private JwtVerifier jwtVerifier;
+
+    @Autowired
+    private IdentityHeaderCodec identityHeaderCodec;
+
+    @Autowired
+    private AuthorityDictionaryStore authorityDictionaryStore;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
     /**
-     * Validates the JWT token for each non-public request and sets the authentication in the security context.
+     * Validates the identity header issued by the API Gateway, or else the JWT token, for each non-public request
+     * and sets the authentication in the security context.
      *
      * @param request     The HTTP request
      * @param response    The HTTP response
@@ -39,25 +53,34 @@ public class JWTTokenValidationFilter extends OncePerRequestFilter {
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        // Trust the identity header issued by the API Gateway if present, so the JWT token does not have to be parsed again
+        JwtIdentity identity = identityHeaderCodec.decode(request.getHeader(IdentityHeaderCodec.HEADER_NAME));
         // Extract the JWT token from the request cookie
-        String jwt = ServerUtil.extractCookieFromHttpRequest(request, environment.getProperty("jwt.cookie.name"));
-        if (jwt != null) {
+        String jwt = identity != null ? null : ServerUtil.extractCookieFromHttpRequest(request, environment.getProperty("jwt.cookie.name"));
+        if (identity != null || jwt != null) {
             try {
-                // Retrieve the secret key and validate the JWT token against the key
-                SecretKey key = Keys.hmacShaKeyFor(environment.getProperty("jwt.secretKey").getBytes(StandardCharsets.UTF_8));
-                Claims claims = Jwts.parser()
-                        .verifyWith(key)
-                        .build()
-                        .parseSignedClaims(jwt)
-                        .getPayload();
-                // If the JWT token is valid, extract the username and associated authorities
-                String username = String.valueOf(claims.get("username"));
-                String authorities = (String) claims.get("authorities");
+                // Validate the JWT token against the active keys and extract the username and associated authorities
+                if (identity == null) {
+                    identity = jwtVerifier.verifyIdentity(jwt);
+                }
+                // Reject tokens which have been revoked before their expiry
+                if (tokenRevocationList.isRevoked(identity)) {
+                    throw new InvalidTokenException("JWT token has been revoked");
+                }
+                String username = String.valueOf(identity.getUsername());
+                // Compact authorities are decoded into a shared list, otherwise the comma-separated names are split
+                List<GrantedAuthority> authorities = identity.getAuthorityBits() != null
+                        ? authorityDictionaryStore.decode(identity.getAuthorityBits())
+                        : AuthorityUtils.commaSeparatedStringToAuthorityList(identity.getAuthorities());
+                if (authorities == null) {
+                    throw new InvalidTokenException("Unknown authorities in JWT token");
+                }
                 // Create an Authentication token and set it in the security context
                 // This indicates to Spring Security that the user has been authenticated,
                 // so the BasicAuthenticationFilter will not be executed
-                Authentication auth = new UsernamePasswordAuthenticationToken(username, null,
-                        AuthorityUtils.commaSeparatedStringToAuthorityList(authorities));
+                UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(username, null, authorities);
+                // Keep the verified identity as details, e.g. to revoke the token on logout
+                auth.setDetails(identity);
                 SecurityContextHolder.getContext().setAuthentication(auth);
             }
             catch (Exception ex) {
@@ -1,13 +1,13 @@
 package org.example.service;
 
+import org.example.SessionTemplate;
 import org.example.model.UtbAuthority;
-import org.hibernate.Session;
-import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -15,14 +15,14 @@ import java.util.stream.Collectors;
  * Service class responsible for handling operations related to {@link UtbAuthority}.
  * <p>
  * This service interacts with the database to perform CRUD operations on authorities.
- * It uses Hibernate's {@link SessionFactory} to manage database sessions and transactions.
+ * It uses the {@link SessionTemplate} to manage database sessions and transactions.
  * </p>
  */
 @Service
 public class AuthorityServices {
 
     @Autowired
-    SessionFactory sessionFactory;
+    SessionTemplate sessionTemplate;
 
     /**
      * Finds an {@link UtbAuthority} by its name.
@@ -35,19 +35,15 @@ public class AuthorityServices {
      * @return the {@link UtbAuthority} entity if found, otherwise {@code null}.
      */
     public UtbAuthority findByName(String authorityName) {
-        UtbAuthority authority;
         try {
-            Session session = sessionFactory.openSession();
-            Transaction transaction = session.beginTransaction();
-            Query query = session.createQuery("FROM UtbAuthority a WHERE a.name=:name");
-            query.setParameter("name", authorityName);
-            authority = (UtbAuthority) query.getSingleResult();
-            transaction.commit();
-            session.close();
+            return sessionTemplate.read("authority.findByName", session -> {
+                Query query = session.createQuery("FROM UtbAuthority a WHERE a.name=:name");
+                query.setParameter("name", authorityName);
+                return (UtbAuthority) query.getSingleResult();
+            });
         } catch (NoResultException ex) {
-            authority = null;
+            return null;
         }
-        return authority;
     }
 
     /**
@@ -61,17 +57,11 @@ public class AuthorityServices {
      * @return the {@link UtbAuthority} entity if found, otherwise {@code null}.
      */
     public UtbAuthority findById(Long authorityId) {
-        UtbAuthority authority;
         try {
-            Session session = sessionFactory.openSession();
-            Transaction transaction = session.beginTransaction();
-            authority = session.get(UtbAuthority.class, authorityId);
-            transaction.commit();
-            session.close();
+            return sessionTemplate.read("authority.findById", session -> session.get(UtbAuthority.class, authorityId));
         } catch (NoResultException ex) {
-            authority = null;
+            return null;
         }
-        return authority;
     }
 
     /**
@@ -84,17 +74,11 @@ public class AuthorityServices {
      * @return a set of all {@link UtbAuthority} entities.
      */
     public Set<UtbAuthority> getAuthorities() {
-        Set<UtbAuthority> authorities = null;
-        Session session = sessionFactory.openSession();
-        Transaction transaction = session.beginTransaction();
-
-        // Query to fetch all authorities from the database
-        Query query = session.createQuery("FROM UtbAuthority");
-        authorities = (Set<UtbAuthority>) query.getResultStream().collect(Collectors.toSet());
-
-        transaction.commit();
-        session.close();
-        return authorities;
+        return sessionTemplate.read("authority.findAll", session -> {
+            // Query to fetch all authorities from the database
+            Query query = session.createQuery("FROM UtbAuthority");
+            return (Set<UtbAuthority>) query.getResultStream().collect(Collectors.toSet());
+        });
     }
 
     /**
@@ -107,16 +91,29 @@ public class AuthorityServices {
      * @return a set of IDs of all authorities.
      */
     public Set<Long> getAuthoritiesId() {
-        Set<Long> authoritiesId = null;
-        Session session = sessionFactory.openSession();
-        Transaction transaction = session.beginTransaction();
-
-        // Query to fetch IDs of all authorities from the database
-        Query query = session.createQuery("SELECT id FROM UtbAuthority", Long.class);
-        authoritiesId = (Set<Long>) query.getResultStream().collect(Collectors.toSet());
+        return sessionTemplate.read("authority.findAllIds", session -> {
+            // Query to fetch IDs of all authorities from the database
+            Query query = session.createQuery("SELECT id FROM UtbAuthority", Long.class);
+            return (Set<Long>) query.getResultStream().collect(Collectors.toSet());
+        });
+    }
 
-        transaction.commit();
-        session.close();
-        return authoritiesId;
+    /**
+     * Retrieves the names of all roles and authorities, in the order of the authority dictionary.
+     * <p>
+     * Role names come first, ordered by ID, followed by the authority names, ordered by ID. Every service reading
+     * the same tables builds the same {@link org.example.AuthorityDictionary} from this list.
+     * </p>
+     *
+     * @return the list of role names followed by the list of authority names.
+     */
+    public List<String> getAuthorityDictionaryNames() {
+        return sessionTemplate.read("authority.findDictionaryNames", session -> {
+            List<String> names = new ArrayList<>();
+            // Query to fetch the role names and then the authority names in a stable order
+            names.addAll(session.createQuery("SELECT r.name FROM UtbRole r ORDER BY r.id", String.class).getResultList());
+            names.addAll(session.createQuery("SELECT a.name FROM UtbAuthority a ORDER BY a.id", String.class).getResultList());
+            return names;
+        });
     }
 }
@@ -0,0 +1,44 @@
+package org.example.service;
+
+import org.example.CatalogChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.bus.BusProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class responsible for announcing changes of the product catalog.
+ * <p>
+ * Changes are published as {@link CatalogChangedEvent}s and broadcast over Spring Cloud Bus, so the API Gateway can
+ * drop the responses it has cached for the product routes.
+ * </p>
+ */
+@Service
+public class CatalogEventServices {
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private BusProperties busProperties;
+
+    /**
+     * Announces that a product has been created or changed.
+     *
+     * @param productId the ID of the product.
+     */
+    public void publishProductChanged(Long productId) {
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent(this, busProperties.getId(),
+                CatalogChangedEvent.PRODUCT, productId));
+    }
+
+    /**
+     * Announces that a product category has been created or changed.
+     *
+     * @param categoryId the ID of the category.
+     */
+    public void publishCategoryChanged(Long categoryId) {
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent(this, busProperties.getId(),
+                CatalogChangedEvent.CATEGORY, categoryId));
+    }
+}
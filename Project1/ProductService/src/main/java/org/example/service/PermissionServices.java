@@ -1,10 +1,8 @@
 package org.example.service;
 
+import org.example.SessionTemplate;
 import org.example.model.UtbPermission;
 import org.hibernate.Hibernate;
-import org.hibernate.Session;
-import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import jakarta.persistence.Query;
@@ -14,7 +12,7 @@ import java.util.List;
  * Service class responsible for handling permission-related operations.
  * <p>
  * This service interacts with the database to retrieve permissions associated
- * with a specific service. It uses Hibernate's {@link SessionFactory} to
+ * with a specific service. It uses the {@link SessionTemplate} to
  * manage database sessions and transactions.
  * </p>
  */
@@ -22,7 +20,7 @@ import java.util.List;
 public class PermissionServices {
 
     @Autowired
-    SessionFactory sessionFactory;
+    SessionTemplate sessionTemplate;
 
     /**
      * Retrieves a list of {@link UtbPermission} entities based on the provided service name.
@@ -37,22 +35,17 @@ public class PermissionServices {
      * @return a list of {@link UtbPermission} entities related to the specified service.
      */
     public List<UtbPermission> getPermissions(String service) {
-        List<UtbPermission> permissions = null;
-        Session session = sessionFactory.openSession();
-        Transaction transaction = session.beginTransaction();
+        return sessionTemplate.read("permission.findByService", session -> {
+            // Query the database for permissions matching the specified service
+            Query query = session.createQuery("FROM UtbPermission p WHERE p.service = :service");
+            query.setParameter("service", service);
+            List<UtbPermission> permissions = query.getResultList();
 
-        // Query the database for permissions matching the specified service
-        Query query = session.createQuery("FROM UtbPermission p WHERE p.service = :service");
-        query.setParameter("service", service);
-        permissions = query.getResultList();
-
-        // Initialize lazy-loaded relationships (authorities)
-        for (UtbPermission permission : permissions) {
-            Hibernate.initialize(permission.getAuthorities());
-        }
-
-        transaction.commit();
-        session.close();
-        return permissions;
+            // Initialize lazy-loaded relationships (authorities)
+            for (UtbPermission permission : permissions) {
+                Hibernate.initialize(permission.getAuthorities());
+            }
+            return permissions;
+        });
     }
 }
@@ -0,0 +1,97 @@
+package org.example.accesslog;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One access log entry, recorded once per exchange by the AccessLogFilter and written by the {@link AccessLogger}.
+ *
+ * The entry only holds references to values the exchange already had; the allowlisted headers are kept as a flat
+ * array of names and values and are only turned into maps when the entry is serialized on the writer thread.
+ */
+public class AccessLogEntry {
+
+    private final long timestamp;
+    private final String method;
+    private final String path;
+    private final String routeId;
+    private final String remoteAddress;
+    private final int status;
+    private final long durationMicros;
+    private final String[] requestHeaders;
+    private final String[] responseHeaders;
+
+    /**
+     * Creates an entry.
+     *
+     * @param timestamp The time the request was received, in milliseconds since the epoch.
+     * @param method The HTTP method of the request.
+     * @param path The path of the request, without the query string.
+     * @param routeId The ID of the route the request was matched to, or null.
+     * @param remoteAddress The address of the client, or null.
+     * @param status The HTTP status of the response.
+     * @param durationMicros The time taken to handle the request, in microseconds.
+     * @param requestHeaders The allowlisted request headers as alternating names and values.
+     * @param responseHeaders The allowlisted response headers as alternating names and values.
+     */
+    public AccessLogEntry(long timestamp, String method, String path, String routeId, String remoteAddress, int status,
+                          long durationMicros, String[] requestHeaders, String[] responseHeaders) {
+        this.timestamp = timestamp;
+        this.method = method;
+        this.path = path;
+        this.routeId = routeId;
+        this.remoteAddress = remoteAddress;
+        this.status = status;
+        this.durationMicros = durationMicros;
+        this.requestHeaders = requestHeaders;
+        this.responseHeaders = responseHeaders;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getRouteId() {
+        return routeId;
+    }
+
+    public String getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public Map<String, String> getRequestHeaders() {
+        return toMap(requestHeaders);
+    }
+
+    public Map<String, String> getResponseHeaders() {
+        return toMap(responseHeaders);
+    }
+
+    private static Map<String, String> toMap(String[] headers) {
+        if (headers == null || headers.length == 0) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < headers.length; i += 2) {
+            map.put(headers[i], headers[i + 1]);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free ring buffer handing access log entries from the event loop threads to the single writer thread.
+ *
+ * Any number of threads may {@link #offer(Object)} entries, but only one thread may {@link #poll()} them. Each slot
+ * carries a sequence number telling whether it is free for the producer of a given position or holds an entry for the
+ * consumer, so producers only contend on one compare-and-set of the tail and never wait. When the buffer is full the
+ * entry is dropped and counted instead of blocking the caller.
+ *
+ * @param <T> The type of the entries.
+ */
+public class AccessLogRingBuffer<T> {
+
+    private final int mask;
+    private final AtomicReferenceArray<T> entries;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long head;
+
+    /**
+     * Creates an empty buffer.
+     *
+     * @param capacity The maximum number of entries held, rounded up to a power of two.
+     */
+    public AccessLogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.entries = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an entry to the buffer without blocking.
+     *
+     * @param entry The entry to add.
+     * @return Returns true if the entry was added, false if the buffer was full and the entry was dropped.
+     */
+    public boolean offer(T entry) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    entries.lazySet(index, entry);
+                    // Publishes the entry to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (sequence < position) {
+                // The slot still holds an entry from the previous lap: the buffer is full
+                dropped.incrementAndGet();
+                return false;
+            }
+            // Another producer claimed this position first, retry with the new tail
+        }
+    }
+
+    /**
+     * Removes the oldest entry from the buffer. Must only be called by the single consumer thread.
+     *
+     * @return The oldest entry, or null if the buffer is empty.
+     */
+    public T poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        T entry = entries.get(index);
+        entries.lazySet(index, null);
+        // Frees the slot for the producers of the next lap
+        sequences.set(index, head + mask + 1);
+        head++;
+        return entry;
+    }
+
+    /**
+     * Returns the number of entries dropped because the buffer was full.
+     *
+     * @return The number of dropped entries since the buffer was created.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,234 @@
+package org.example.accesslog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous access log of the API Gateway.
+ *
+ * Entries are recorded on the event loop threads into an {@link AccessLogRingBuffer} and written by a background
+ * thread as one JSON line per exchange to the {@value #LOGGER_NAME} logger, so no I/O or lock is ever taken on the event
+ * loop. When the writer falls behind and the buffer fills up, entries are dropped and the number of dropped entries is
+ * logged instead.
+ *
+ * The following properties are read, and reloaded whenever a {@code gateway.accessLog.*} property is changed by a
+ * configuration refresh (the buffer size excepted):
+ * <ul>
+ *     <li>{@code gateway.accessLog.enabled} : whether exchanges are recorded at all (true by default).</li>
+ *     <li>{@code gateway.accessLog.sampleRate} : the fraction of exchanges recorded, between 0 and 1 (1 by default).
+ *     Exchanges answered with a 5xx status are always recorded.</li>
+ *     <li>{@code gateway.accessLog.requestHeaders} / {@code gateway.accessLog.responseHeaders} : comma separated
+ *     allowlists of the headers recorded with each entry (none by default).</li>
+ *     <li>{@code gateway.accessLog.bufferSize} : the number of entries the buffer holds (8192 by default).</li>
+ * </ul>
+ */
+public class AccessLogger implements SmartLifecycle, ApplicationListener<EnvironmentChangeEvent> {
+
+    /**
+     * Name of the logger the entries are written to.
+     */
+    public static final String LOGGER_NAME = "ACCESS_LOG";
+
+    private static final Logger log = LoggerFactory.getLogger(LOGGER_NAME);
+    private static final String PROPERTY_PREFIX = "gateway.accessLog.";
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Environment environment;
+    private final AccessLogRingBuffer<AccessLogEntry> buffer;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile Settings settings;
+    private volatile boolean running;
+    private Thread writer;
+
+    /**
+     * Creates an access logger initialised from the access log properties of the given environment.
+     *
+     * @param environment The environment holding the access log properties.
+     */
+    public AccessLogger(Environment environment) {
+        this.environment = environment;
+        this.settings = Settings.fromEnvironment(environment);
+        this.buffer = new AccessLogRingBuffer<>(environment.getProperty(PROPERTY_PREFIX + "bufferSize", Integer.class, DEFAULT_BUFFER_SIZE));
+    }
+
+    /**
+     * Decides whether an exchange is recorded.
+     *
+     * @param status The HTTP status of the response.
+     * @return Returns true if the exchange should be recorded, false otherwise.
+     */
+    public boolean isSampled(int status) {
+        Settings current = settings;
+        if (!current.enabled) {
+            return false;
+        }
+        return status >= 500 || current.sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < current.sampleRate;
+    }
+
+    /**
+     * Returns the names of the request headers recorded with each entry.
+     *
+     * @return The allowlisted request header names.
+     */
+    public String[] getRequestHeaders() {
+        return settings.requestHeaders;
+    }
+
+    /**
+     * Returns the names of the response headers recorded with each entry.
+     *
+     * @return The allowlisted response header names.
+     */
+    public String[] getResponseHeaders() {
+        return settings.responseHeaders;
+    }
+
+    /**
+     * Hands an entry over to the writer thread without blocking.
+     *
+     * @param entry The entry to write.
+     */
+    public void record(AccessLogEntry entry) {
+        buffer.offer(entry);
+    }
+
+    /**
+     * Returns the number of entries dropped because the writer thread fell behind.
+     *
+     * @return The number of dropped entries.
+     */
+    public long getDroppedCount() {
+        return buffer.getDroppedCount();
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drain, "access-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops the writer thread once it has written the entries still in the buffer.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Reloads the settings when an access log property has been changed by a configuration refresh.
+     *
+     * @param event The event listing the changed properties.
+     */
+    @Override
+    public void onApplicationEvent(EnvironmentChangeEvent event) {
+        for (String key : event.getKeys()) {
+            if (key.startsWith(PROPERTY_PREFIX)) {
+                settings = Settings.fromEnvironment(environment);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Body of the writer thread: writes the buffered entries, and sleeps briefly whenever the buffer is empty, so
+     * recording an entry never has to wake the writer up.
+     */
+    private void drain() {
+        long reportedDrops = 0;
+        while (true) {
+            AccessLogEntry entry = buffer.poll();
+            if (entry != null) {
+                write(entry);
+                continue;
+            }
+            long drops = buffer.getDroppedCount();
+            if (drops != reportedDrops) {
+                log.warn("{} access log entries dropped because the access log buffer was full", drops - reportedDrops);
+                reportedDrops = drops;
+            }
+            if (!running) {
+                return;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    private void write(AccessLogEntry entry) {
+        try {
+            log.info(objectMapper.writeValueAsString(entry));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to write an access log entry", e);
+        }
+    }
+
+    /**
+     * Immutable snapshot of the access log properties.
+     */
+    private static final class Settings {
+        private final boolean enabled;
+        private final double sampleRate;
+        private final String[] requestHeaders;
+        private final String[] responseHeaders;
+
+        private Settings(boolean enabled, double sampleRate, String[] requestHeaders, String[] responseHeaders) {
+            this.enabled = enabled;
+            this.sampleRate = sampleRate;
+            this.requestHeaders = requestHeaders;
+            this.responseHeaders = responseHeaders;
+        }
+
+        private static Settings fromEnvironment(Environment environment) {
+            double sampleRate = environment.getProperty(PROPERTY_PREFIX + "sampleRate", Double.class, 1.0);
+            return new Settings(
+                    environment.getProperty(PROPERTY_PREFIX + "enabled", Boolean.class, true),
+                    Math.max(0.0, Math.min(1.0, sampleRate)),
+                    headerNames(environment.getProperty(PROPERTY_PREFIX + "requestHeaders")),
+                    headerNames(environment.getProperty(PROPERTY_PREFIX + "responseHeaders")));
+        }
+
+        private static String[] headerNames(String property) {
+            if (property == null || property.isBlank()) {
+                return new String[0];
+            }
+            return Arrays.stream(property.split(","))
+                    .map(String::trim)
+                    .filter(name -> !name.isEmpty())
+                    .distinct()
+                    .toArray(String[]::new);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.cache;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * A response held by a {@link ResponseCache}: its status, headers and body along with the time it was stored and the
+ * time it stops being served.
+ */
+public class CachedResponse {
+
+    private final int status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final long storedAt;
+    private final long expiresAt;
+
+    /**
+     * Creates a cached response.
+     *
+     * @param status The HTTP status of the response.
+     * @param headers The headers of the response, without the hop-by-hop and cookie headers.
+     * @param body The body of the response. It is shared with every response served from the cache and must not be modified.
+     * @param storedAt The time the response was stored, in milliseconds since the epoch.
+     * @param expiresAt The time the response stops being served, in milliseconds since the epoch.
+     */
+    public CachedResponse(int status, HttpHeaders headers, byte[] body, long storedAt, long expiresAt) {
+        this.status = status;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+        this.storedAt = storedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public long getStoredAt() {
+        return storedAt;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
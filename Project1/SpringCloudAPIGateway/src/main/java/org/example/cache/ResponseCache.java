@@ -0,0 +1,133 @@
+package org.example.cache;
+
+import org.example.CacheEvictor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, expiry-aware cache of responses of one route of the API Gateway.
+ *
+ * Entries are served until they expire, and the cache is kept under its maximum number of entries by a
+ * {@link CacheEvictor}: when it is full, expired entries are dropped first and arbitrary entries after that, down to
+ * its low-water mark. The whole cache is cleared when the data it was built from changes (see {@link ResponseCacheManager}).
+ *
+ * Every clear starts a new generation. A response fetched while the cache was being cleared is only stored if the
+ * generation it was fetched in is still the current one, so a response built from the old data can't outlive the clear.
+ */
+public class ResponseCache {
+
+    private final String name;
+    private final CacheEvictor<CachedResponse> evictor;
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param name The name of the cache.
+     * @param maxEntries The maximum number of responses held in the cache.
+     */
+    public ResponseCache(String name, int maxEntries) {
+        this.name = name;
+        this.evictor = new CacheEvictor<>(maxEntries, CachedResponse::getExpiresAt);
+    }
+
+    /**
+     * Creates an empty cache replacing another one, whose hit, miss and eviction counts it carries on.
+     *
+     * @param name The name of the cache.
+     * @param maxEntries The maximum number of responses held in the cache.
+     * @param replaced The cache replaced.
+     */
+    public ResponseCache(String name, int maxEntries, ResponseCache replaced) {
+        this(name, maxEntries);
+        hits.add(replaced.getHitCount());
+        misses.add(replaced.getMissCount());
+        evictions.add(replaced.getEvictionCount());
+    }
+
+    /**
+     * Returns a cached response.
+     *
+     * @param key The key of the response.
+     * @param now The current time in milliseconds.
+     * @return The cached response, or null if it is not cached or has expired.
+     */
+    public CachedResponse get(String key, long now) {
+        CachedResponse response = entries.get(key);
+        if (response != null) {
+            if (response.getExpiresAt() > now) {
+                hits.increment();
+                return response;
+            }
+            // Stale entries are dropped as soon as they are seen
+            if (entries.remove(key, response)) {
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Returns the current generation of the cache, to be passed to {@link #put(String, CachedResponse, long)} once
+     * the response has been fetched.
+     *
+     * @return The current generation.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Stores a response, unless the cache has been cleared since the response started being fetched.
+     *
+     * @param key The key of the response.
+     * @param response The response.
+     * @param fetchGeneration The generation of the cache when the response started being fetched.
+     */
+    public void put(String key, CachedResponse response, long fetchGeneration) {
+        evictions.add(evictor.makeRoom(entries, System.currentTimeMillis()));
+        entries.put(key, response);
+        if (generation.get() != fetchGeneration) {
+            // Cleared in the meantime, the response may have been built from the old data
+            entries.remove(key, response);
+        }
+    }
+
+    /**
+     * Removes every response from the cache.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        int size = entries.size();
+        entries.clear();
+        evictions.add(size);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.CatalogChangedEvent;
+import org.springframework.context.ApplicationListener;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Registry of the response caches of the API Gateway.
+ *
+ * Each cache is registered along with the catalog entities its responses are built from, and is cleared whenever a
+ * {@link CatalogChangedEvent} for one of those entities is received over Spring Cloud Bus. A cache is kept by name, so
+ * its responses survive a refresh of the routes as long as its size is unchanged; the entities clearing it are always
+ * those of the latest configuration.
+ *
+ * The hits, misses, evictions and size of each cache are published through Micrometer under the
+ * {@code gateway.cache.*} names, tagged with the cache.
+ */
+public class ResponseCacheManager implements ApplicationListener<CatalogChangedEvent> {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Registration> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a manager without any cache.
+     *
+     * @param meterRegistry The registry the metrics of the caches are registered in.
+     */
+    public ResponseCacheManager(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Returns the cache with the given name, creating it if needed, or replacing it if it was created with another size.
+     *
+     * @param name The name of the cache.
+     * @param maxEntries The maximum number of responses held.
+     * @param invalidatedBy The catalog entities (e.g. {@link CatalogChangedEvent#PRODUCT}) whose changes clear the cache,
+     *                      replacing those it was registered with before.
+     * @return The cache.
+     */
+    public ResponseCache getCache(String name, int maxEntries, Collection<String> invalidatedBy) {
+        List<Object> settings = List.of(maxEntries);
+        Set<String> entities = Set.copyOf(invalidatedBy);
+        return caches.compute(name, (n, current) -> {
+            if (current == null) {
+                registerMeters(n);
+                return new Registration(settings, new ResponseCache(n, maxEntries), entities);
+            }
+            ResponseCache cache = current.settings.equals(settings) ? current.cache : new ResponseCache(n, maxEntries, current.cache);
+            return new Registration(settings, cache, entities);
+        }).cache;
+    }
+
+    /**
+     * Clears the caches whose responses depend on the changed entity.
+     *
+     * @param event The change received over the bus, or published locally.
+     */
+    @Override
+    public void onApplicationEvent(CatalogChangedEvent event) {
+        for (Registration registration : caches.values()) {
+            if (registration.invalidatedBy.contains(event.getEntity())) {
+                registration.cache.clear();
+            }
+        }
+    }
+
+    /**
+     * Registers the metrics of a cache. They look the cache up by name, so they keep reporting the cache in use once it
+     * has been replaced.
+     */
+    private void registerMeters(String name) {
+        FunctionCounter.builder("gateway.cache.requests", this, manager -> manager.statistic(name, ResponseCache::getHitCount))
+                .description("Number of requests answered from the cache")
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.cache.requests", this, manager -> manager.statistic(name, ResponseCache::getMissCount))
+                .description("Number of cacheable requests not found in the cache")
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.cache.evictions", this, manager -> manager.statistic(name, ResponseCache::getEvictionCount))
+                .description("Number of responses removed from the cache as they expired, the cache was full or cleared")
+                .tag("cache", name)
+                .register(meterRegistry);
+        Gauge.builder("gateway.cache.size", this, manager -> manager.statistic(name, ResponseCache::size))
+                .description("Number of responses held in the cache")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    private double statistic(String name, ToLongFunction<ResponseCache> statistic) {
+        Registration registration = caches.get(name);
+        return registration != null ? statistic.applyAsLong(registration.cache) : 0;
+    }
+
+    /**
+     * A cache along with the settings it was created with and the entities whose changes clear it.
+     */
+    private static final class Registration {
+        private final List<Object> settings;
+        private final ResponseCache cache;
+        private final Set<String> invalidatedBy;
+
+        private Registration(List<Object> settings, ResponseCache cache, Set<String> invalidatedBy) {
+            this.settings = settings;
+            this.cache = cache;
+            this.invalidatedBy = invalidatedBy;
+        }
+    }
+}
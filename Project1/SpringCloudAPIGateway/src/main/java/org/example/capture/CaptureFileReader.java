@@ -0,0 +1,75 @@
+package org.example.capture;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads the requests of a capture file written by the {@link CaptureFileWriter}, in the order they were captured.
+ */
+public class CaptureFileReader implements Closeable {
+
+    private final DataInputStream in;
+
+    /**
+     * Opens a capture file.
+     *
+     * @param file The capture file.
+     * @throws IOException if the file can't be opened or is not a capture file of a supported version.
+     */
+    public CaptureFileReader(Path file) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024));
+        try {
+            if (in.readInt() != CaptureFileWriter.MAGIC) {
+                throw new IOException(file + " is not a capture file");
+            }
+            short version = in.readShort();
+            if (version != CaptureFileWriter.VERSION) {
+                throw new IOException(file + " has the unsupported version " + version);
+            }
+        } catch (IOException ex) {
+            in.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads the next request.
+     *
+     * @return The request, or null at the end of the file or of its last complete record.
+     * @throws IOException if the file can't be read.
+     */
+    public CapturedRequest read() throws IOException {
+        try {
+            long timestampMicros = in.readLong();
+            String method = readString();
+            String uri = readString();
+            String[] headers = new String[in.readUnsignedShort() * 2];
+            for (int i = 0; i < headers.length; i++) {
+                headers[i] = readString();
+            }
+            boolean bodyTruncated = (in.readUnsignedByte() & CaptureFileWriter.FLAG_BODY_TRUNCATED) != 0;
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new CapturedRequest(timestampMicros, method, uri, headers, body, bodyTruncated);
+        } catch (EOFException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String readString() throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.capture;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Appends captured requests to a capture file.
+ *
+ * A capture file starts with the magic number {@value #MAGIC} and the format version, followed by one record per
+ * request, all numbers being big-endian:
+ * <pre>
+ *   long    timestamp in microseconds since the epoch
+ *   string  method
+ *   string  path and query string
+ *   short   number of headers, followed by a name string and a value string per header
+ *   byte    flags, bit 0 set if the body was left out
+ *   int     length of the body, followed by the bytes of the body
+ * </pre>
+ * where a string is an unsigned short length followed by that many UTF-8 bytes. Records are only ever appended, so
+ * a file can be captured over several runs of the gateway, and a record cut short by a crash is ignored on reading.
+ */
+public class CaptureFileWriter implements Closeable {
+
+    /**
+     * Magic number at the start of every capture file, "GWCP" in ASCII.
+     */
+    public static final int MAGIC = 0x47574350;
+
+    /**
+     * Version of the format of the records.
+     */
+    public static final short VERSION = 1;
+
+    static final int FLAG_BODY_TRUNCATED = 1;
+
+    /**
+     * Longest string which can be stored, in UTF-8 bytes.
+     */
+    static final int MAX_STRING_BYTES = 0xFFFF;
+
+    private final DataOutputStream out;
+    private long size;
+
+    /**
+     * Opens a capture file for appending, writing its header if the file is new or empty.
+     *
+     * @param file The capture file.
+     * @throws IOException if the file can't be opened.
+     */
+    public CaptureFileWriter(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.size = Files.exists(file) ? Files.size(file) : 0;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile(), true), 64 * 1024));
+        if (size == 0) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            size = out.size();
+        }
+    }
+
+    /**
+     * Appends a request to the file.
+     *
+     * @param request The captured request.
+     * @throws IOException if the request can't be written.
+     */
+    public void write(CapturedRequest request) throws IOException {
+        int start = out.size();
+        out.writeLong(request.getTimestampMicros());
+        writeString(request.getMethod());
+        writeString(request.getUri());
+        String[] headers = request.getHeaders();
+        out.writeShort(headers.length / 2);
+        for (String header : headers) {
+            writeString(header);
+        }
+        out.writeByte(request.isBodyTruncated() ? FLAG_BODY_TRUNCATED : 0);
+        byte[] body = request.isBodyTruncated() ? new byte[0] : request.getBody();
+        out.writeInt(body.length);
+        out.write(body);
+        // DataOutputStream counts up to Integer.MAX_VALUE only, so the size of the file is tracked separately
+        size += out.size() - start;
+    }
+
+    /**
+     * Returns the size of the file including the buffered records.
+     *
+     * @return The size in bytes.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Checks whether a request can be stored, i.e. none of its strings is too long.
+     *
+     * @param request The captured request.
+     * @return Returns true if the request can be written, false otherwise.
+     */
+    public static boolean fits(CapturedRequest request) {
+        if (utf8Length(request.getMethod()) > MAX_STRING_BYTES || utf8Length(request.getUri()) > MAX_STRING_BYTES) {
+            return false;
+        }
+        for (String header : request.getHeaders()) {
+            if (utf8Length(header) > MAX_STRING_BYTES) {
+                return false;
+            }
+        }
+        return request.getHeaders().length / 2 <= 0xFFFF;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static int utf8Length(String value) {
+        return value.length() * 3 <= MAX_STRING_BYTES ? value.length() : value.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
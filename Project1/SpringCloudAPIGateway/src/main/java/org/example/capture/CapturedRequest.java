@@ -0,0 +1,59 @@
+package org.example.capture;
+
+/**
+ * One request captured by the TrafficCaptureFilter, as stored in a capture file.
+ *
+ * Headers are kept as a flat array of alternating names and values, as in the access log entries.
+ */
+public class CapturedRequest {
+
+    private final long timestampMicros;
+    private final String method;
+    private final String uri;
+    private final String[] headers;
+    private final byte[] body;
+    private final boolean bodyTruncated;
+
+    /**
+     * Creates a captured request.
+     *
+     * @param timestampMicros The time the request was received, in microseconds since the epoch.
+     * @param method The HTTP method of the request.
+     * @param uri The path of the request along with its query string.
+     * @param headers The captured headers as alternating names and values.
+     * @param body The body of the request, empty if it had none.
+     * @param bodyTruncated Whether the body was too large or not read in full, in which case it is left out.
+     */
+    public CapturedRequest(long timestampMicros, String method, String uri, String[] headers, byte[] body, boolean bodyTruncated) {
+        this.timestampMicros = timestampMicros;
+        this.method = method;
+        this.uri = uri;
+        this.headers = headers;
+        this.body = body;
+        this.bodyTruncated = bodyTruncated;
+    }
+
+    public long getTimestampMicros() {
+        return timestampMicros;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public String[] getHeaders() {
+        return headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public boolean isBodyTruncated() {
+        return bodyTruncated;
+    }
+}
@@ -0,0 +1,277 @@
+package org.example.capture;
+
+import org.example.accesslog.AccessLogRingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Captures a sample of the requests handled by the API Gateway into a capture file, to be replayed later with the
+ * {@link TrafficReplay} tool, e.g. to benchmark the gateway or a service with production-like traffic.
+ *
+ * Requests are recorded on the event loop threads into an {@link AccessLogRingBuffer} and appended to the file by a
+ * background thread, like the access log entries, so no I/O is ever done on the event loop. When the writer falls
+ * behind and the buffer fills up, requests are dropped and the number of dropped requests is logged instead. Capturing
+ * stops once the file reaches its maximum size.
+ *
+ * The following properties are read, and reloaded whenever a {@code gateway.capture.*} property is changed by a
+ * configuration refresh (the file, its maximum size and the buffer size excepted):
+ * <ul>
+ *     <li>{@code gateway.capture.enabled} : whether requests are captured at all (false by default).</li>
+ *     <li>{@code gateway.capture.sampleRate} : the fraction of requests captured, between 0 and 1 (0.01 by default).</li>
+ *     <li>{@code gateway.capture.headers} : comma separated allowlist of the request headers captured (none by default).</li>
+ *     <li>{@code gateway.capture.maxBodyBytes} : the largest body captured; larger bodies are left out and flagged (65536 by default).</li>
+ *     <li>{@code gateway.capture.file} : the capture file, appended to if it exists (gateway-capture.bin by default).</li>
+ *     <li>{@code gateway.capture.maxFileMegabytes} : the size at which capturing stops (512 by default).</li>
+ *     <li>{@code gateway.capture.bufferSize} : the number of requests the buffer holds (4096 by default).</li>
+ * </ul>
+ */
+public class TrafficCapture implements SmartLifecycle, ApplicationListener<EnvironmentChangeEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(TrafficCapture.class);
+    private static final String PROPERTY_PREFIX = "gateway.capture.";
+    private static final int DEFAULT_BUFFER_SIZE = 4096;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Environment environment;
+    private final AccessLogRingBuffer<CapturedRequest> buffer;
+    private final Path file;
+    private final long maxFileBytes;
+    private final long baseEpochMicros;
+    private final long baseNanos;
+    private volatile Settings settings;
+    private volatile boolean running;
+    private volatile boolean full;
+    private Thread writer;
+
+    /**
+     * Creates a traffic capture initialised from the capture properties of the given environment.
+     *
+     * @param environment The environment holding the capture properties.
+     */
+    public TrafficCapture(Environment environment) {
+        this.environment = environment;
+        this.settings = Settings.fromEnvironment(environment);
+        this.buffer = new AccessLogRingBuffer<>(environment.getProperty(PROPERTY_PREFIX + "bufferSize", Integer.class, DEFAULT_BUFFER_SIZE));
+        this.file = Paths.get(environment.getProperty(PROPERTY_PREFIX + "file", "gateway-capture.bin"));
+        this.maxFileBytes = environment.getProperty(PROPERTY_PREFIX + "maxFileMegabytes", Long.class, 512L) * 1024 * 1024;
+        this.baseEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        this.baseNanos = System.nanoTime();
+    }
+
+    /**
+     * Decides whether a request is captured. The decision is made when the request arrives, so its body can be copied
+     * while it is forwarded.
+     *
+     * @return Returns true if the request should be captured, false otherwise.
+     */
+    public boolean isSampled() {
+        Settings current = settings;
+        if (!current.enabled || full || !running) {
+            return false;
+        }
+        return current.sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < current.sampleRate;
+    }
+
+    /**
+     * Returns the names of the request headers captured.
+     *
+     * @return The allowlisted request header names.
+     */
+    public String[] getHeaders() {
+        return settings.headers;
+    }
+
+    /**
+     * Returns the size of the largest body captured.
+     *
+     * @return The maximum body size in bytes.
+     */
+    public int getMaxBodyBytes() {
+        return settings.maxBodyBytes;
+    }
+
+    /**
+     * Returns the current time as recorded with the requests. It is read from the monotonic clock, so the intervals
+     * between the captured requests are accurate to the microsecond.
+     *
+     * @return The time in microseconds since the epoch.
+     */
+    public long currentTimeMicros() {
+        return baseEpochMicros + (System.nanoTime() - baseNanos) / 1000;
+    }
+
+    /**
+     * Hands a request over to the writer thread without blocking.
+     *
+     * @param request The request to write.
+     */
+    public void record(CapturedRequest request) {
+        buffer.offer(request);
+    }
+
+    /**
+     * Returns the number of requests dropped because the writer thread fell behind.
+     *
+     * @return The number of dropped requests.
+     */
+    public long getDroppedCount() {
+        return buffer.getDroppedCount();
+    }
+
+    /**
+     * Opens the capture file and starts the writer thread, if capturing is enabled. A capture enabled later by a
+     * configuration refresh starts the writer at that point.
+     */
+    @Override
+    public synchronized void start() {
+        if (running || !settings.enabled) {
+            return;
+        }
+        CaptureFileWriter fileWriter;
+        try {
+            fileWriter = new CaptureFileWriter(file);
+        } catch (IOException e) {
+            log.error("Failed to open the capture file {}, requests are not captured", file, e);
+            return;
+        }
+        running = true;
+        writer = new Thread(() -> drain(fileWriter), "traffic-capture-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Capturing {}% of the requests to {}", settings.sampleRate * 100, file.toAbsolutePath());
+    }
+
+    /**
+     * Stops the writer thread once it has written the requests still in the buffer, and closes the capture file.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Reloads the settings when a capture property has been changed by a configuration refresh.
+     *
+     * @param event The event listing the changed properties.
+     */
+    @Override
+    public void onApplicationEvent(EnvironmentChangeEvent event) {
+        for (String key : event.getKeys()) {
+            if (key.startsWith(PROPERTY_PREFIX)) {
+                settings = Settings.fromEnvironment(environment);
+                if (settings.enabled) {
+                    start();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Body of the writer thread: appends the buffered requests to the file, flushes it and sleeps briefly whenever the
+     * buffer is empty, so recording a request never has to wake the writer up.
+     */
+    private void drain(CaptureFileWriter fileWriter) {
+        long reportedDrops = 0;
+        boolean dirty = false;
+        try (CaptureFileWriter out = fileWriter) {
+            while (true) {
+                CapturedRequest request = buffer.poll();
+                if (request != null) {
+                    dirty |= write(out, request);
+                    continue;
+                }
+                if (dirty) {
+                    out.flush();
+                    dirty = false;
+                }
+                long drops = buffer.getDroppedCount();
+                if (drops != reportedDrops) {
+                    log.warn("{} requests not captured because the capture buffer was full", drops - reportedDrops);
+                    reportedDrops = drops;
+                }
+                if (!running) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        } catch (IOException e) {
+            log.error("Failed to write to the capture file {}, requests are no longer captured", file, e);
+            full = true;
+        }
+    }
+
+    private boolean write(CaptureFileWriter out, CapturedRequest request) throws IOException {
+        if (full || !CaptureFileWriter.fits(request)) {
+            return false;
+        }
+        out.write(request);
+        if (out.size() >= maxFileBytes) {
+            full = true;
+            log.warn("The capture file {} reached {} bytes, requests are no longer captured", file, out.size());
+        }
+        return true;
+    }
+
+    /**
+     * Immutable snapshot of the capture properties.
+     */
+    private static final class Settings {
+        private final boolean enabled;
+        private final double sampleRate;
+        private final String[] headers;
+        private final int maxBodyBytes;
+
+        private Settings(boolean enabled, double sampleRate, String[] headers, int maxBodyBytes) {
+            this.enabled = enabled;
+            this.sampleRate = sampleRate;
+            this.headers = headers;
+            this.maxBodyBytes = maxBodyBytes;
+        }
+
+        private static Settings fromEnvironment(Environment environment) {
+            double sampleRate = environment.getProperty(PROPERTY_PREFIX + "sampleRate", Double.class, 0.01);
+            return new Settings(
+                    environment.getProperty(PROPERTY_PREFIX + "enabled", Boolean.class, false),
+                    Math.max(0.0, Math.min(1.0, sampleRate)),
+                    headerNames(environment.getProperty(PROPERTY_PREFIX + "headers")),
+                    Math.max(0, environment.getProperty(PROPERTY_PREFIX + "maxBodyBytes", Integer.class, 65536)));
+        }
+
+        private static String[] headerNames(String property) {
+            if (property == null || property.isBlank()) {
+                return new String[0];
+            }
+            return Arrays.stream(property.split(","))
+                    .map(String::trim)
+                    .filter(name -> !name.isEmpty())
+                    .distinct()
+                    .toArray(String[]::new);
+        }
+    }
+}
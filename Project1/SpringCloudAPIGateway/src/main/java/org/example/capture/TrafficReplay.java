@@ -0,0 +1,295 @@
+package org.example.capture;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Command line tool replaying a capture file written by the {@link TrafficCapture} against the API Gateway or a single
+ * service, and reporting the throughput and latency percentiles.
+ *
+ * The requests are sent on the schedule they were captured on, divided by the speed factor, whatever the response
+ * times: the replay is open loop, like real clients. The latency of a request is measured from the time it was
+ * scheduled to be sent rather than from the time it was actually sent, so a target which falls behind is charged for
+ * the time the requests waited, instead of hiding it (coordinated omission). The replay is deterministic: the same
+ * file always sends the same requests in the same order at the same offsets.
+ *
+ * Requests whose body was left out when captured are skipped, as are the headers the HTTP client sets itself
+ * (Host, Content-Length, Connection...). Only the JDK and HdrHistogram are used, so the tool runs offline, against
+ * local stub services as well as a full deployment:
+ * <pre>
+ *   java -cp "$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout):target/classes" \
+ *       org.example.capture.TrafficReplay gateway-capture.bin http://localhost:8080 --speed=2
+ * </pre>
+ * Options:
+ * <ul>
+ *     <li>{@code --speed=<factor>} : replays the requests that many times faster than captured (1 by default).</li>
+ *     <li>{@code --path=<prefix>} : replays only the requests whose path starts with the prefix, e.g. /product.</li>
+ *     <li>{@code --strip-prefix=<parts>} : removes that many leading path segments, like the StripPrefix filter, to
+ *     replay the traffic of a route directly against its service.</li>
+ *     <li>{@code --timeout=<millis>} : the time a response is waited for before the request is counted as failed (10000 by default).</li>
+ * </ul>
+ */
+public class TrafficReplay {
+
+    /**
+     * Headers the JDK HTTP client does not allow to be set, or which no longer match the replayed request.
+     */
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "upgrade", "transfer-encoding", "keep-alive", "te", "trailer");
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    /**
+     * Status counted for the requests which failed without a response.
+     */
+    private static final int NO_RESPONSE = 0;
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final double speed;
+    private final int stripPrefix;
+    private final Duration timeout;
+    private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 2);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a replay.
+     *
+     * @param baseUrl The scheme, host and port the requests are sent to, e.g. http://localhost:8080.
+     * @param speed The factor the captured schedule is sped up by.
+     * @param stripPrefix The number of leading path segments removed from the captured paths.
+     * @param timeout The time a response is waited for.
+     */
+    public TrafficReplay(String baseUrl, double speed, int stripPrefix, Duration timeout) {
+        if (speed <= 0) {
+            throw new IllegalArgumentException("The speed must be positive");
+        }
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.speed = speed;
+        this.stripPrefix = stripPrefix;
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    /**
+     * Reads the requests of a capture file.
+     *
+     * @param file The capture file.
+     * @param pathPrefix The prefix of the paths of the requests kept, or null to keep every request.
+     * @return The requests in the order they were captured.
+     * @throws IOException if the file can't be read.
+     */
+    public static List<CapturedRequest> load(Path file, String pathPrefix) throws IOException {
+        List<CapturedRequest> requests = new ArrayList<>();
+        try (CaptureFileReader reader = new CaptureFileReader(file)) {
+            CapturedRequest request;
+            while ((request = reader.read()) != null) {
+                if (pathPrefix == null || request.getUri().startsWith(pathPrefix)) {
+                    requests.add(request);
+                }
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * Sends the requests on their captured schedule and waits for every response.
+     *
+     * @param requests The requests in the order they were captured.
+     * @return The report of the replay.
+     */
+    public Report replay(List<CapturedRequest> requests) {
+        List<CompletableFuture<Void>> responses = new ArrayList<>(requests.size());
+        int skipped = 0;
+        long maxLagNanos = 0;
+        long firstMicros = requests.isEmpty() ? 0 : requests.get(0).getTimestampMicros();
+        long start = System.nanoTime();
+        for (CapturedRequest captured : requests) {
+            if (captured.isBodyTruncated()) {
+                skipped++;
+                continue;
+            }
+            HttpRequest request;
+            try {
+                request = toHttpRequest(captured);
+            } catch (IllegalArgumentException ex) {
+                skipped++;
+                continue;
+            }
+            long intended = start + (long) (TimeUnit.MICROSECONDS.toNanos(captured.getTimestampMicros() - firstMicros) / speed);
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            maxLagNanos = Math.max(maxLagNanos, now - intended);
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        record(intended, response != null ? response.statusCode() : NO_RESPONSE);
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).join();
+        long elapsedNanos = System.nanoTime() - start;
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(status, count.sum()));
+        return new Report(responses.size(), skipped, elapsedNanos, maxLagNanos, latencies.copy(), statusCounts);
+    }
+
+    private void record(long intended, int status) {
+        latencies.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(1, (System.nanoTime() - intended) / 1000)));
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    private HttpRequest toHttpRequest(CapturedRequest captured) {
+        byte[] body = captured.getBody();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + stripPrefix(captured.getUri())))
+                .timeout(timeout)
+                .method(captured.getMethod(), body.length > 0
+                        ? HttpRequest.BodyPublishers.ofByteArray(body)
+                        : HttpRequest.BodyPublishers.noBody());
+        String[] headers = captured.getHeaders();
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            if (!SKIPPED_HEADERS.contains(headers[i].toLowerCase())) {
+                builder.header(headers[i], headers[i + 1]);
+            }
+        }
+        return builder.build();
+    }
+
+    private String stripPrefix(String uri) {
+        String stripped = uri;
+        for (int i = 0; i < stripPrefix; i++) {
+            int next = stripped.indexOf('/', 1);
+            int query = stripped.indexOf('?');
+            if (next < 0 || (query >= 0 && next > query)) {
+                return query >= 0 ? "/" + stripped.substring(query) : "/";
+            }
+            stripped = stripped.substring(next);
+        }
+        return stripped;
+    }
+
+    /**
+     * Outcome of a replay.
+     */
+    public static final class Report {
+        private final int sent;
+        private final int skipped;
+        private final long elapsedNanos;
+        private final long maxLagNanos;
+        private final Histogram latencies;
+        private final Map<Integer, Long> statuses;
+
+        private Report(int sent, int skipped, long elapsedNanos, long maxLagNanos, Histogram latencies, Map<Integer, Long> statuses) {
+            this.sent = sent;
+            this.skipped = skipped;
+            this.elapsedNanos = elapsedNanos;
+            this.maxLagNanos = maxLagNanos;
+            this.latencies = latencies;
+            this.statuses = statuses;
+        }
+
+        public int getSent() {
+            return sent;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public Histogram getLatencies() {
+            return latencies;
+        }
+
+        public Map<Integer, Long> getStatuses() {
+            return statuses;
+        }
+
+        /**
+         * Returns the number of requests completed per second over the whole replay.
+         *
+         * @return The throughput in requests per second.
+         */
+        public double getThroughput() {
+            return elapsedNanos > 0 ? sent * 1e9 / elapsedNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("Requests sent      : %d (%d skipped)%n", sent, skipped));
+            report.append(String.format("Duration           : %.3f s%n", elapsedNanos / 1e9));
+            report.append(String.format("Throughput         : %.1f requests/s%n", getThroughput()));
+            report.append(String.format("Max send lag       : %.3f ms%n", maxLagNanos / 1e6));
+            report.append("Latency (ms)       :");
+            for (double percentile : new double[]{50, 90, 99, 99.9}) {
+                report.append(String.format(" p%s=%.3f", percentile == 99.9 ? "99.9" : String.valueOf((int) percentile),
+                        latencies.getValueAtPercentile(percentile) / 1000.0));
+            }
+            report.append(String.format(" max=%.3f%n", latencies.getMaxValue() / 1000.0));
+            report.append("Statuses           :");
+            statuses.forEach((status, count) ->
+                    report.append(' ').append(status == NO_RESPONSE ? "failed" : String.valueOf(status)).append('=').append(count));
+            return report.append(System.lineSeparator()).toString();
+        }
+    }
+
+    /**
+     * Replays a capture file and prints the report.
+     *
+     * @param args The capture file, the base URL and the options.
+     * @throws IOException if the capture file can't be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TrafficReplay <capture file> <base url> [--speed=<factor>] [--path=<prefix>] "
+                    + "[--strip-prefix=<parts>] [--timeout=<millis>]");
+            System.exit(2);
+        }
+        double speed = 1.0;
+        String pathPrefix = null;
+        int stripPrefix = 0;
+        long timeoutMillis = 10000;
+        for (int i = 2; i < args.length; i++) {
+            String option = args[i];
+            String value = option.substring(option.indexOf('=') + 1);
+            if (option.startsWith("--speed=")) {
+                speed = Double.parseDouble(value);
+            } else if (option.startsWith("--path=")) {
+                pathPrefix = value;
+            } else if (option.startsWith("--strip-prefix=")) {
+                stripPrefix = Integer.parseInt(value);
+            } else if (option.startsWith("--timeout=")) {
+                timeoutMillis = Long.parseLong(value);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        Path file = Paths.get(args[0]);
+        List<CapturedRequest> requests = load(file, pathPrefix);
+        System.out.printf("Replaying %d requests from %s against %s at %sx speed%n", requests.size(), file, args[1], speed);
+        Report report = new TrafficReplay(args[1], speed, stripPrefix, Duration.ofMillis(timeoutMillis)).replay(requests);
+        System.out.print(report);
+    }
+}
@@ -0,0 +1,158 @@
+package org.example.coalesce;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.cache.CachedResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the requests in flight to the downstream services which identical concurrent requests can wait for,
+ * instead of each one calling the downstream service separately ("single flight").
+ *
+ * The first request with a given key becomes the leader of a {@link Flight} and is forwarded downstream. Requests
+ * with the same key arriving before the leader's response is complete join the flight and are answered with a copy of
+ * that response. A flight ends as soon as the leader's response is complete, so responses are shared between
+ * concurrent requests only and are never reused afterwards.
+ *
+ * The number of leaders, collapsed requests and fallbacks of each group are published through Micrometer under
+ * the {@code gateway.coalescing.requests} name, tagged with the group and the outcome.
+ */
+public class RequestCoalescer {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Group> groups = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty registry.
+     *
+     * @param meterRegistry The registry the counters of the groups are registered in.
+     */
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Returns the group of flights with the given name, creating it if needed.
+     *
+     * @param name The name of the group, typically the route using it.
+     * @return The group.
+     */
+    public Group getGroup(String name) {
+        return groups.computeIfAbsent(name, n -> new Group(n, meterRegistry));
+    }
+
+    /**
+     * Flights of one route, keyed on the requests they answer.
+     */
+    public static final class Group {
+        private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+        private final Counter leaders;
+        private final Counter collapsed;
+        private final Counter fallbacks;
+
+        private Group(String name, MeterRegistry meterRegistry) {
+            this.leaders = counter(meterRegistry, name, "leader", "Number of requests forwarded downstream on behalf of identical concurrent requests");
+            this.collapsed = counter(meterRegistry, name, "collapsed", "Number of requests answered with the response of an identical concurrent request");
+            this.fallbacks = counter(meterRegistry, name, "fallback", "Number of requests which waited for an identical request and were then forwarded downstream themselves");
+            Gauge.builder("gateway.coalescing.inflight", flights, Map::size)
+                    .description("Number of flights currently waiting for a downstream response")
+                    .tag("group", name)
+                    .register(meterRegistry);
+        }
+
+        private static Counter counter(MeterRegistry meterRegistry, String group, String outcome, String description) {
+            return Counter.builder("gateway.coalescing.requests")
+                    .description(description)
+                    .tag("group", group)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * Joins the flight of a request, or starts a new one if none is in flight for its key.
+         *
+         * @param key The key of the request.
+         * @return The flight, which the caller leads if {@link Flight#isLeader()} returns true.
+         */
+        public Flight join(String key) {
+            Flight flight = new Flight(this, key, true);
+            Flight current = flights.putIfAbsent(key, flight);
+            if (current == null) {
+                leaders.increment();
+                return flight;
+            }
+            return new Flight(this, key, false, current.sink);
+        }
+
+        /**
+         * Records a request which was answered with the response of its flight.
+         */
+        public void recordCollapsed() {
+            collapsed.increment();
+        }
+
+        /**
+         * Records a request which could not be answered by its flight, because the leader's response could not be
+         * shared or did not complete in time.
+         */
+        public void recordFallback() {
+            fallbacks.increment();
+        }
+    }
+
+    /**
+     * One request in flight to a downstream service, along with the identical requests waiting for it.
+     */
+    public static final class Flight {
+        private final Group group;
+        private final String key;
+        private final boolean leader;
+        private final Sinks.One<CachedResponse> sink;
+
+        private Flight(Group group, String key, boolean leader) {
+            this(group, key, leader, Sinks.one());
+        }
+
+        private Flight(Group group, String key, boolean leader, Sinks.One<CachedResponse> sink) {
+            this.group = group;
+            this.key = key;
+            this.leader = leader;
+            this.sink = sink;
+        }
+
+        public boolean isLeader() {
+            return leader;
+        }
+
+        /**
+         * Returns the response of the leader, as seen by the requests waiting for it.
+         *
+         * @return A Mono emitting the response of the leader, or completing empty if it can't be shared.
+         */
+        public Mono<CachedResponse> response() {
+            return sink.asMono();
+        }
+
+        /**
+         * Ends the flight with the response of the leader. Requests arriving from now on start a new flight.
+         * Only the first call has any effect.
+         *
+         * @param response The response to hand to the waiting requests, or null if they must be forwarded themselves.
+         */
+        public void complete(CachedResponse response) {
+            if (!leader) {
+                return;
+            }
+            group.flights.remove(key, this);
+            if (response != null) {
+                sink.tryEmitValue(response);
+            } else {
+                sink.tryEmitEmpty();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.compression;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Streaming gzip or deflate encoder of one response body, compressing it one buffer at a time.
+ *
+ * The input buffers are released as they are compressed, so only the window of the {@link Deflater} is held in
+ * memory. The encoder must be ended once the body is written or cancelled, to free the native memory of the deflater.
+ */
+final class DeflateEncoder {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int CHUNK_SIZE = 8192;
+
+    private final Deflater deflater;
+    private final CRC32 crc;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private boolean headerWritten;
+    private long bytesIn;
+    private long bytesOut;
+    private long nanos;
+
+    /**
+     * Creates an encoder.
+     *
+     * @param gzip Whether the body is encoded in the gzip format, otherwise in the zlib format of the "deflate" encoding.
+     * @param level The compression level, from 1 (fastest) to 9 (smallest).
+     */
+    DeflateEncoder(boolean gzip, int level) {
+        this.deflater = new Deflater(level, gzip);
+        this.crc = gzip ? new CRC32() : null;
+    }
+
+    /**
+     * Compresses a buffer of the body and releases it.
+     *
+     * @return The compressed bytes available so far, possibly none.
+     */
+    DataBuffer encode(DataBuffer input, DataBufferFactory bufferFactory) {
+        long start = System.nanoTime();
+        byte[] bytes = new byte[input.readableByteCount()];
+        input.read(bytes);
+        DataBufferUtils.release(input);
+        bytesIn += bytes.length;
+        if (crc != null) {
+            crc.update(bytes);
+        }
+        deflater.setInput(bytes);
+        DataBuffer output = bufferFactory.allocateBuffer(Math.max(64, bytes.length / 4));
+        writeHeader(output);
+        while (!deflater.needsInput()) {
+            drain(output);
+        }
+        nanos += System.nanoTime() - start;
+        return output;
+    }
+
+    /**
+     * Completes the compressed body.
+     *
+     * @return The last compressed bytes, along with the gzip trailer.
+     */
+    DataBuffer finish(DataBufferFactory bufferFactory) {
+        long start = System.nanoTime();
+        DataBuffer output = bufferFactory.allocateBuffer(256);
+        writeHeader(output);
+        deflater.finish();
+        while (!deflater.finished()) {
+            drain(output);
+        }
+        if (crc != null) {
+            writeIntLE(output, (int) crc.getValue());
+            writeIntLE(output, (int) bytesIn);
+            bytesOut += 8;
+        }
+        nanos += System.nanoTime() - start;
+        return output;
+    }
+
+    /**
+     * Frees the native memory of the deflater. It may be called more than once.
+     */
+    void end() {
+        deflater.end();
+    }
+
+    long getBytesIn() {
+        return bytesIn;
+    }
+
+    long getBytesOut() {
+        return bytesOut;
+    }
+
+    long getNanos() {
+        return nanos;
+    }
+
+    private void writeHeader(DataBuffer output) {
+        if (crc != null && !headerWritten) {
+            output.write(GZIP_HEADER);
+            bytesOut += GZIP_HEADER.length;
+            headerWritten = true;
+        }
+    }
+
+    private void drain(DataBuffer output) {
+        int count = deflater.deflate(chunk);
+        if (count > 0) {
+            output.write(chunk, 0, count);
+            bytesOut += count;
+        }
+    }
+
+    private static void writeIntLE(DataBuffer output, int value) {
+        output.write(new byte[]{(byte) value, (byte) (value >>> 8), (byte) (value >>> 16), (byte) (value >>> 24)});
+    }
+}
@@ -0,0 +1,284 @@
+package org.example.compression;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses the response bodies of the API Gateway with the gzip or deflate content encoding negotiated with the client.
+ *
+ * Bodies are compressed as they stream through the gateway, one buffer at a time. A body without a known length is
+ * held back only until it reaches the minimum size, and is sent uncompressed if it ends before.
+ *
+ * The following properties are read at startup:
+ * <ul>
+ *     <li>{@code gateway.compression.enabled} : whether responses are compressed at all (true by default).</li>
+ *     <li>{@code gateway.compression.minResponseSize} : the size in bytes below which a body is not compressed
+ *     (2048 by default).</li>
+ *     <li>{@code gateway.compression.mimeTypes} : comma separated media types of the compressed bodies, wildcards
+ *     allowed (JSON, XML, JavaScript and text by default).</li>
+ *     <li>{@code gateway.compression.level} : the compression level from 1 (fastest) to 9 (smallest), 6 by default.</li>
+ * </ul>
+ *
+ * The compression ratio (compressed size over original size), the bytes before and after compression and the time
+ * spent compressing are available through the actuator metrics endpoint (e.g. /monitor/metrics/gateway.compression.ratio).
+ */
+public class ResponseCompressor {
+
+    /**
+     * Name of the gzip content encoding.
+     */
+    public static final String GZIP = "gzip";
+
+    /**
+     * Name of the deflate content encoding.
+     */
+    public static final String DEFLATE = "deflate";
+
+    private static final String PROPERTY_PREFIX = "gateway.compression.";
+    private static final String DEFAULT_MIME_TYPES = "application/json,application/*+json,application/xml,application/*+xml,"
+            + "application/javascript,text/html,text/xml,text/plain,text/css,text/javascript";
+
+    private final boolean enabled;
+    private final int minResponseSize;
+    private final List<MediaType> mimeTypes;
+    private final int level;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Creates a compressor initialised from the compression properties of the given environment.
+     *
+     * @param environment The environment holding the compression properties.
+     * @param meterRegistry The registry the compression metrics are registered in.
+     */
+    public ResponseCompressor(Environment environment, MeterRegistry meterRegistry) {
+        this.enabled = environment.getProperty(PROPERTY_PREFIX + "enabled", Boolean.class, true);
+        this.minResponseSize = environment.getProperty(PROPERTY_PREFIX + "minResponseSize", Integer.class, 2048);
+        this.mimeTypes = MediaType.parseMediaTypes(environment.getProperty(PROPERTY_PREFIX + "mimeTypes", DEFAULT_MIME_TYPES));
+        this.level = Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION,
+                environment.getProperty(PROPERTY_PREFIX + "level", Integer.class, 6)));
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Picks the content encoding of a response from the {@code Accept-Encoding} header of the request, preferring gzip
+     * when the client accepts both with the same weight.
+     *
+     * @param requestHeaders The headers of the request.
+     * @return {@value #GZIP}, {@value #DEFLATE}, or null if the client accepts neither.
+     */
+    public String negotiate(HttpHeaders requestHeaders) {
+        List<String> values = requestHeaders.get(HttpHeaders.ACCEPT_ENCODING);
+        if (values == null) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double wildcard = -1;
+        for (String value : values) {
+            for (String coding : StringUtils.tokenizeToStringArray(value, ",")) {
+                String[] parts = StringUtils.tokenizeToStringArray(coding, ";");
+                if (parts.length == 0) {
+                    continue;
+                }
+                double weight = weight(parts);
+                String name = parts[0].toLowerCase(Locale.ROOT);
+                if (name.equals(GZIP) || name.equals("x-gzip")) {
+                    gzip = Math.max(gzip, weight);
+                } else if (name.equals(DEFLATE)) {
+                    deflate = Math.max(deflate, weight);
+                } else if (name.equals("*")) {
+                    wildcard = weight;
+                }
+            }
+        }
+        gzip = gzip < 0 ? wildcard : gzip;
+        deflate = deflate < 0 ? wildcard : deflate;
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+
+    /**
+     * Checks whether a response has a media type worth compressing.
+     *
+     * @param responseHeaders The headers of the response.
+     * @return Returns true if the media type of the response is one of the compressed types, false otherwise.
+     */
+    public boolean isCompressibleType(HttpHeaders responseHeaders) {
+        MediaType contentType;
+        try {
+            contentType = responseHeaders.getContentType();
+        } catch (Exception ex) {
+            return false;
+        }
+        if (contentType == null) {
+            return false;
+        }
+        for (MediaType mimeType : mimeTypes) {
+            if (mimeType.includes(contentType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a response may be compressed: it must not be encoded yet, nor known to be below the minimum size.
+     *
+     * @param responseHeaders The headers of the response.
+     * @return Returns true if the body may be compressed, false otherwise.
+     */
+    public boolean isCompressible(HttpHeaders responseHeaders) {
+        if (responseHeaders.containsKey(HttpHeaders.CONTENT_ENCODING) || responseHeaders.containsKey(HttpHeaders.CONTENT_RANGE)) {
+            return false;
+        }
+        long contentLength = responseHeaders.getContentLength();
+        return (contentLength < 0 || contentLength >= minResponseSize) && isCompressibleType(responseHeaders);
+    }
+
+    /**
+     * Compresses a response body as it is written. The headers of the response are updated once the body is known to
+     * reach the minimum size, before anything is written.
+     *
+     * @param body The response body.
+     * @param encoding The negotiated content encoding.
+     * @param responseHeaders The headers of the response, still writable.
+     * @param bufferFactory The factory of the buffers of the response.
+     * @return The body to write, compressed if it reaches the minimum size.
+     */
+    public Flux<DataBuffer> compress(Flux<DataBuffer> body, String encoding, HttpHeaders responseHeaders,
+                                     DataBufferFactory bufferFactory) {
+        return body.bufferUntil(new MinimumSize(minResponseSize))
+                .switchOnFirst((signal, prefixes) -> {
+                    List<DataBuffer> prefix = signal.get();
+                    if (prefix == null || size(prefix) < minResponseSize) {
+                        // The body ended before reaching the minimum size, or failed
+                        if (prefix != null) {
+                            counter(encoding, "too_small").increment();
+                        }
+                        return prefixes.flatMapIterable(buffers -> buffers);
+                    }
+                    responseHeaders.set(HttpHeaders.CONTENT_ENCODING, encoding);
+                    responseHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+                    String eTag = responseHeaders.getETag();
+                    if (eTag != null && eTag.startsWith("\"")) {
+                        // The compressed body is not byte for byte the one the strong ETag was computed on
+                        responseHeaders.setETag("W/" + eTag);
+                    }
+                    DeflateEncoder encoder = new DeflateEncoder(GZIP.equals(encoding), level);
+                    return prefixes.flatMapIterable(buffers -> buffers)
+                            .map(buffer -> encoder.encode(buffer, bufferFactory))
+                            .concatWith(Mono.fromCallable(() -> encoder.finish(bufferFactory)))
+                            .filter(buffer -> {
+                                if (buffer.readableByteCount() > 0) {
+                                    return true;
+                                }
+                                DataBufferUtils.release(buffer);
+                                return false;
+                            })
+                            .doOnComplete(() -> record(encoding, encoder))
+                            .doFinally(signalType -> encoder.end());
+                })
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    private void record(String encoding, DeflateEncoder encoder) {
+        counter(encoding, "compressed").increment();
+        Counter.builder("gateway.compression.bytes")
+                .description("Bytes of the compressed responses, before (in) and after (out) compression")
+                .baseUnit("bytes")
+                .tags("encoding", encoding, "direction", "in")
+                .register(meterRegistry)
+                .increment(encoder.getBytesIn());
+        Counter.builder("gateway.compression.bytes")
+                .description("Bytes of the compressed responses, before (in) and after (out) compression")
+                .baseUnit("bytes")
+                .tags("encoding", encoding, "direction", "out")
+                .register(meterRegistry)
+                .increment(encoder.getBytesOut());
+        if (encoder.getBytesIn() > 0) {
+            DistributionSummary.builder("gateway.compression.ratio")
+                    .description("Compressed size of the responses over their original size")
+                    .tags("encoding", encoding)
+                    .register(meterRegistry)
+                    .record((double) encoder.getBytesOut() / encoder.getBytesIn());
+        }
+        Timer.builder("gateway.compression.time")
+                .description("Time spent compressing each response")
+                .tags("encoding", encoding)
+                .register(meterRegistry)
+                .record(encoder.getNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private Counter counter(String encoding, String outcome) {
+        return Counter.builder("gateway.compression.responses")
+                .description("Responses eligible for compression, by encoding and outcome")
+                .tags("encoding", encoding, "outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static double weight(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static long size(List<DataBuffer> buffers) {
+        long size = 0;
+        for (DataBuffer buffer : buffers) {
+            size += buffer.readableByteCount();
+        }
+        return size;
+    }
+
+    /**
+     * Groups the first buffers of a body until they reach the minimum size, then lets every further buffer through on
+     * its own.
+     */
+    private static final class MinimumSize implements Predicate<DataBuffer> {
+        private final int minSize;
+        private long size;
+
+        private MinimumSize(int minSize) {
+            this.minSize = minSize;
+        }
+
+        @Override
+        public boolean test(DataBuffer buffer) {
+            if (size >= minSize) {
+                return true;
+            }
+            size += buffer.readableByteCount();
+            return size >= minSize;
+        }
+    }
+}
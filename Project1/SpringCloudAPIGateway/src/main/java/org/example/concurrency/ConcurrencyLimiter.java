@@ -0,0 +1,208 @@
+package org.example.concurrency;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of requests in flight to one downstream service to its adaptive {@link VegasLimit}.
+ *
+ * Requests over the limit wait in a short bounded queue for a request in flight to complete, and are rejected if the
+ * queue is full or if they have waited for too long, so an overloaded service gets less work instead of more queueing.
+ */
+public class ConcurrencyLimiter {
+
+    private static final int WAITING = 0;
+    private static final int GRANTED = 1;
+    private static final int CANCELLED = 2;
+
+    private final String name;
+    private final VegasLimit limit;
+    private final int maxQueueSize;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates a limiter without any request in flight.
+     *
+     * @param name The name of the downstream service.
+     * @param limit The limit to apply.
+     * @param maxQueueSize The maximum number of requests waiting for the limit, 0 to reject them straight away.
+     */
+    public ConcurrencyLimiter(String name, VegasLimit limit, int maxQueueSize) {
+        this.name = name;
+        this.limit = limit;
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    /**
+     * Creates a limiter replacing another one, whose count of rejected requests it carries on. The requests in flight
+     * through the replaced limiter are released to it.
+     *
+     * @param name The name of the downstream service.
+     * @param limit The limit to apply.
+     * @param maxQueueSize The maximum number of requests waiting for the limit, 0 to reject them straight away.
+     * @param replaced The limiter replaced.
+     */
+    public ConcurrencyLimiter(String name, VegasLimit limit, int maxQueueSize, ConcurrencyLimiter replaced) {
+        this(name, limit, maxQueueSize);
+        rejected.add(replaced.getRejectedCount());
+    }
+
+    /**
+     * Acquires a permit to send a request, waiting for one if the limit is reached.
+     * Every permit acquired must be released with {@link Permit#release(long, boolean)}.
+     *
+     * @param maxWait The maximum time to wait for a permit.
+     * @return A Mono emitting the permit once it is acquired, or completing empty if the request is rejected.
+     */
+    public Mono<Permit> acquire(Duration maxWait) {
+        int acquired = tryAcquire();
+        if (acquired > 0) {
+            return Mono.just(new Permit(acquired));
+        }
+        if (maxQueueSize <= 0 || queued.incrementAndGet() > maxQueueSize) {
+            if (maxQueueSize > 0) {
+                queued.decrementAndGet();
+            }
+            rejected.increment();
+            return Mono.empty();
+        }
+        Waiter waiter = new Waiter();
+        waiters.add(waiter);
+        // A permit released before the waiter was queued would otherwise be missed
+        drain();
+        return waiter.sink.asMono()
+                .timeout(maxWait)
+                .onErrorResume(TimeoutException.class, ex -> {
+                    if (waiter.cancel()) {
+                        rejected.increment();
+                        return Mono.empty();
+                    }
+                    // The permit was granted while the wait was timing out
+                    return Mono.just(waiter.permit);
+                })
+                .doOnCancel(() -> {
+                    if (!waiter.cancel()) {
+                        // The permit was granted to a request which is no longer interested in it
+                        waiter.permit.release(0, false);
+                    }
+                });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return The number of requests in flight along with the one acquiring the permit, or 0 if the limit is reached.
+     */
+    private int tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit.getLimit()) {
+                return 0;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Hands the free permits to the waiting requests.
+     */
+    private void drain() {
+        int acquired;
+        while (!waiters.isEmpty() && (acquired = tryAcquire()) > 0) {
+            Waiter waiter = waiters.poll();
+            if (waiter == null || !waiter.grant(new Permit(acquired))) {
+                // Nobody (alive) is waiting any more, give the permit back
+                inflight.decrementAndGet();
+                if (waiter == null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * A permit to send one request. It keeps the number of requests in flight when it was acquired, as that is the
+     * concurrency the request was sent at, whatever the number of requests in flight when it completes.
+     */
+    public final class Permit {
+        private final int inflightAtAcquire;
+
+        private Permit(int inflightAtAcquire) {
+            this.inflightAtAcquire = inflightAtAcquire;
+        }
+
+        /**
+         * Releases the permit and adapts the limit to the outcome of the request sent with it.
+         *
+         * @param rttNanos The round trip time of the request, or 0 if the request was not sent.
+         * @param dropped Whether the request failed in a way hinting at an overloaded service (e.g. a timeout).
+         */
+        public void release(long rttNanos, boolean dropped) {
+            inflight.decrementAndGet();
+            if (rttNanos > 0) {
+                limit.onSample(rttNanos, inflightAtAcquire, dropped);
+            }
+            drain();
+        }
+    }
+
+    /**
+     * A request waiting for a permit.
+     */
+    private final class Waiter {
+        private final Sinks.One<Permit> sink = Sinks.one();
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private volatile Permit permit;
+
+        private boolean grant(Permit permit) {
+            if (!state.compareAndSet(WAITING, GRANTED)) {
+                return false;
+            }
+            this.permit = permit;
+            queued.decrementAndGet();
+            sink.tryEmitValue(permit);
+            return true;
+        }
+
+        /**
+         * @return true if the waiter was cancelled, false if it had been granted a permit already.
+         */
+        private boolean cancel() {
+            if (state.compareAndSet(WAITING, CANCELLED)) {
+                queued.decrementAndGet();
+                waiters.remove(this);
+                return true;
+            }
+            return state.get() == CANCELLED;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.concurrency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Registry of the concurrency limiters of the downstream services, shared by every route to the same service.
+ *
+ * A limiter is kept by service along with the settings it was created with, so the limit it has learnt survives a
+ * refresh of the routes as long as its settings are unchanged. The routes to the same service should use the same
+ * settings, as the limiter is replaced whenever a route asks for other ones.
+ *
+ * The current limit, the number of requests in flight and waiting, and the number of rejected requests of each
+ * service are published through Micrometer under the {@code gateway.concurrency.*} names, tagged with the service.
+ */
+public class ConcurrencyLimiterRegistry {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty registry.
+     *
+     * @param meterRegistry The registry the metrics of the limiters are registered in.
+     */
+    public ConcurrencyLimiterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Returns the limiter of a downstream service, creating it if needed, or replacing it if it was created with other
+     * settings.
+     *
+     * @param service The name of the service.
+     * @param initialLimit The limit until enough round trip times have been seen.
+     * @param minLimit The lowest the limit can go.
+     * @param maxLimit The highest the limit can go.
+     * @param maxQueueSize The maximum number of requests waiting for the limit.
+     * @return The limiter.
+     */
+    public ConcurrencyLimiter getLimiter(String service, int initialLimit, int minLimit, int maxLimit, int maxQueueSize) {
+        List<Object> settings = Arrays.asList(initialLimit, minLimit, maxLimit, maxQueueSize);
+        return limiters.compute(service, (s, current) -> {
+            if (current == null) {
+                registerMeters(s);
+                return new Limiter(settings, new ConcurrencyLimiter(s, new VegasLimit(initialLimit, minLimit, maxLimit), maxQueueSize));
+            }
+            return current.settings.equals(settings)
+                    ? current
+                    : new Limiter(settings, new ConcurrencyLimiter(s, new VegasLimit(initialLimit, minLimit, maxLimit),
+                            maxQueueSize, current.limiter));
+        }).limiter;
+    }
+
+    /**
+     * Registers the metrics of a service. They look the limiter up by service, so they keep reporting the limiter in
+     * use once it has been replaced.
+     */
+    private void registerMeters(String service) {
+        Gauge.builder("gateway.concurrency.limit", this, registry -> registry.statistic(service, ConcurrencyLimiter::getLimit))
+                .description("Current limit of requests in flight to the service")
+                .tag("service", service)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", this, registry -> registry.statistic(service, ConcurrencyLimiter::getInflight))
+                .description("Number of requests in flight to the service")
+                .tag("service", service)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.queued", this, registry -> registry.statistic(service, ConcurrencyLimiter::getQueued))
+                .description("Number of requests waiting for the limit of the service")
+                .tag("service", service)
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.concurrency.rejected", this,
+                        registry -> registry.statistic(service, ConcurrencyLimiter::getRejectedCount))
+                .description("Number of requests rejected as the limit of the service was reached")
+                .tag("service", service)
+                .register(meterRegistry);
+    }
+
+    private double statistic(String service, ToDoubleFunction<ConcurrencyLimiter> statistic) {
+        Limiter limiter = limiters.get(service);
+        return limiter != null ? statistic.applyAsDouble(limiter.limiter) : 0;
+    }
+
+    /**
+     * The limiter of a service along with the settings it was created with.
+     */
+    private static final class Limiter {
+        private final List<Object> settings;
+        private final ConcurrencyLimiter limiter;
+
+        private Limiter(List<Object> settings, ConcurrencyLimiter limiter) {
+            this.settings = settings;
+            this.limiter = limiter;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.concurrency;
+
+/**
+ * Concurrency limit of a downstream service adapted to its round trip times, in the way TCP Vegas adapts its window.
+ *
+ * The lowest round trip time seen is taken as the time the service needs without queueing. The ratio between it and
+ * the round trip time of each response estimates how many requests are queueing in the service: while that queue is
+ * short the limit grows, and once it grows long the limit shrinks, before the service collapses under its queue.
+ * Failed requests (e.g. timeouts) shrink the limit as well.
+ *
+ * As the time the service needs without queueing changes (e.g. as its database slows down), the lowest round trip
+ * time is probed again periodically, after a number of samples proportional to the limit.
+ */
+public class VegasLimit {
+
+    private static final int PROBE_MULTIPLIER = 30;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private double estimatedLimit;
+    private volatile int limit;
+    private long minRttNanos;
+    private long samplesUntilProbe;
+
+    /**
+     * Creates a limit.
+     *
+     * @param initialLimit The limit until enough round trip times have been seen.
+     * @param minLimit The lowest the limit can go.
+     * @param maxLimit The highest the limit can go.
+     */
+    public VegasLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must be positive, with the minimum limit not above the maximum limit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+        this.samplesUntilProbe = nextProbe();
+    }
+
+    /**
+     * Returns the current limit.
+     *
+     * @return The maximum number of requests which should be in flight to the service.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the round trip time the limit is based on.
+     *
+     * @return The lowest round trip time seen since the last probe in nanoseconds, or 0 if none was seen yet.
+     */
+    public synchronized long getMinRttNanos() {
+        return minRttNanos;
+    }
+
+    /**
+     * Adapts the limit to the outcome of a request.
+     *
+     * @param rttNanos The round trip time of the request.
+     * @param inflight The number of requests in flight when the request was sent.
+     * @param dropped Whether the request failed in a way hinting at an overloaded service (e.g. a timeout).
+     */
+    public synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (--samplesUntilProbe <= 0) {
+            samplesUntilProbe = nextProbe();
+            minRttNanos = rttNanos;
+            return;
+        }
+        if (minRttNanos == 0 || rttNanos < minRttNanos) {
+            minRttNanos = rttNanos;
+            return;
+        }
+        double current = estimatedLimit;
+        double log = Math.max(1, Math.log10(current));
+        double next;
+        if (dropped) {
+            next = current - log;
+        } else if (inflight * 2 < current) {
+            // The service is not busy enough for its round trip times to tell anything about the limit
+            return;
+        } else {
+            double queue = Math.ceil(current * (1 - (double) minRttNanos / rttNanos));
+            if (queue <= log) {
+                next = current + 6 * log;
+            } else if (queue < 3 * log) {
+                next = current + log;
+            } else if (queue > 6 * log) {
+                next = current - log;
+            } else {
+                return;
+            }
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimatedLimit;
+    }
+
+    private long nextProbe() {
+        return PROBE_MULTIPLIER * (long) Math.max(limit, minLimit);
+    }
+}
@@ -0,0 +1,280 @@
+package org.example.config;
+
+import org.example.IdentityHeaderCodec;
+import org.example.JWTCacheMetrics;
+import org.example.JWTUtil;
+import org.example.JwtKeyStore;
+import org.example.JwtVerifier;
+import org.example.OutlierDetector;
+import org.example.PowerOfTwoChoicesLoadBalancerConfiguration;
+import org.example.TokenRevocationList;
+import org.example.TokenRevokedEvent;
+import org.example.accesslog.AccessLogger;
+import org.example.cache.ResponseCacheManager;
+import org.example.capture.TrafficCapture;
+import org.example.coalesce.RequestCoalescer;
+import org.example.compression.ResponseCompressor;
+import org.example.concurrency.ConcurrencyLimiterRegistry;
+import org.example.latency.LatencyEndpoint;
+import org.example.latency.LatencyRecorder;
+import org.example.latency.TimedFilteringWebHandler;
+import org.example.outlier.OutlierEndpoint;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.bus.jackson.RemoteApplicationEventScan;
+import org.springframework.cloud.client.loadbalancer.reactive.LoadBalancedExchangeFilterFunction;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.reactive.function.client.WebClient;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration class to define beans for the application context.
+ * The lb:// routes are balanced by the PowerOfTwoChoicesLoadBalancer, which favours the least loaded instances.
+ */
+@Configuration
+@RemoteApplicationEventScan(basePackageClasses = TokenRevokedEvent.class)
+@LoadBalancerClients(defaultConfiguration = PowerOfTwoChoicesLoadBalancerConfiguration.class)
+public class BeanConfig {
+
+    /**
+     * Creates a {@link JWTCacheMetrics} bean to publish the verified JWT token cache statistics.
+     * Once registered, the hit, miss and eviction counters of the cache used by the JWTAuthorizationFilter
+     * are available through the actuator metrics endpoint (e.g. /monitor/metrics/jwt.cache.hits).
+     *
+     * @return a JWTCacheMetrics instance bound to the shared verified token cache.
+     */
+    @Bean
+    public JWTCacheMetrics getJWTCacheMetrics() {
+        return new JWTCacheMetrics();
+    }
+
+    /**
+     * Creates the {@link JwtKeyStore} holding the JWT keys accepted by this service.
+     * The key store rebuilds its keys whenever the JWT properties are refreshed over Spring Cloud Bus.
+     *
+     * @param environment the environment holding the JWT properties.
+     * @return a JwtKeyStore initialised from the current JWT properties.
+     */
+    @Bean
+    public JwtKeyStore getJwtKeyStore(Environment environment) {
+        return new JwtKeyStore(environment);
+    }
+
+    /**
+     * Creates the {@link JwtVerifier} used to verify JWT tokens of incoming requests.
+     *
+     * The allocation-light fast path is used when {@code jwt.fastPath.enabled} is set to true.
+     *
+     * @param jwtKeyStore the key store holding the accepted keys.
+     * @param environment the environment holding the JWT properties.
+     * @return a JwtVerifier backed by the given key store.
+     */
+    @Bean
+    public JwtVerifier getJwtVerifier(JwtKeyStore jwtKeyStore, Environment environment) {
+        return new JwtVerifier(jwtKeyStore, JWTUtil.getVerifiedTokenCache(),
+                environment.getProperty("jwt.fastPath.enabled", Boolean.class, false));
+    }
+
+    /**
+     * Creates the {@link IdentityHeaderCodec} used to issue the internal identity header.
+     * The header is only issued when {@code jwt.identityHeader.enabled} is set to true.
+     *
+     * @param environment the environment holding the identity header properties.
+     * @return an IdentityHeaderCodec initialised from the current identity header properties.
+     */
+    @Bean
+    public IdentityHeaderCodec getIdentityHeaderCodec(Environment environment) {
+        return new IdentityHeaderCodec(environment);
+    }
+
+    /**
+     * Creates the {@link TokenRevocationList} checked for every JWT token.
+     * Revocations are received as {@link TokenRevokedEvent}s over Spring Cloud Bus.
+     *
+     * @return an empty TokenRevocationList.
+     */
+    @Bean
+    public TokenRevocationList getTokenRevocationList() {
+        return new TokenRevocationList();
+    }
+
+    /**
+     * Creates the {@link AccessLogger} used by the AccessLogFilter to write one entry per exchange.
+     * The entries are written by a background thread to the ACCESS_LOG logger, sampled and filtered according to
+     * the {@code gateway.accessLog.*} properties.
+     *
+     * @param environment the environment holding the access log properties.
+     * @return an AccessLogger initialised from the current access log properties.
+     */
+    @Bean
+    public AccessLogger getAccessLogger(Environment environment) {
+        return new AccessLogger(environment);
+    }
+
+    /**
+     * Creates the {@link TrafficCapture} used by the TrafficCaptureFilter to append a sample of the requests to a
+     * capture file, replayed with the TrafficReplay tool. Nothing is captured unless {@code gateway.capture.enabled} is set.
+     *
+     * @param environment the environment holding the capture properties.
+     * @return a TrafficCapture initialised from the current capture properties.
+     */
+    @Bean
+    public TrafficCapture getTrafficCapture(Environment environment) {
+        return new TrafficCapture(environment);
+    }
+
+    /**
+     * Creates the {@link ResponseCacheManager} holding the response caches of the routes using the ResponseCacheFilter.
+     * The caches are cleared when a {@link org.example.CatalogChangedEvent} is received over Spring Cloud Bus.
+     * The hits and misses of each cache are available through the actuator metrics endpoint
+     * (e.g. /monitor/metrics/gateway.cache.requests).
+     *
+     * @param meterRegistry the registry the cache metrics are registered in.
+     * @return a ResponseCacheManager without any cache.
+     */
+    @Bean
+    public ResponseCacheManager getResponseCacheManager(MeterRegistry meterRegistry) {
+        return new ResponseCacheManager(meterRegistry);
+    }
+
+    /**
+     * Creates the {@link RequestCoalescer} holding the requests in flight which identical concurrent requests wait for,
+     * used by the RequestCoalescingFilter.
+     * The number of collapsed requests is available through the actuator metrics endpoint
+     * (e.g. /monitor/metrics/gateway.coalescing.requests).
+     *
+     * @param meterRegistry the registry the coalescing counters are registered in.
+     * @return a RequestCoalescer without any request in flight.
+     */
+    @Bean
+    public RequestCoalescer getRequestCoalescer(MeterRegistry meterRegistry) {
+        return new RequestCoalescer(meterRegistry);
+    }
+
+    /**
+     * Creates the {@link ConcurrencyLimiterRegistry} holding the adaptive concurrency limits of the downstream services,
+     * used by the ConcurrencyLimitFilter.
+     * The current limits and in flight counts are available through the actuator metrics endpoint
+     * (e.g. /monitor/metrics/gateway.concurrency.limit).
+     *
+     * @param meterRegistry the registry the concurrency metrics are registered in.
+     * @return a ConcurrencyLimiterRegistry without any limiter.
+     */
+    @Bean
+    public ConcurrencyLimiterRegistry getConcurrencyLimiterRegistry(MeterRegistry meterRegistry) {
+        return new ConcurrencyLimiterRegistry(meterRegistry);
+    }
+
+    /**
+     * Creates the {@link ResponseCompressor} compressing the responses of the gateway, used by the
+     * ResponseCompressionFilter.
+     * The compression ratio and time are available through the actuator metrics endpoint
+     * (e.g. /monitor/metrics/gateway.compression.ratio).
+     *
+     * @param environment the environment holding the compression properties.
+     * @param meterRegistry the registry the compression metrics are registered in.
+     * @return a ResponseCompressor initialised from the compression properties.
+     */
+    @Bean
+    public ResponseCompressor getResponseCompressor(Environment environment, MeterRegistry meterRegistry) {
+        return new ResponseCompressor(environment, meterRegistry);
+    }
+
+    /**
+     * Creates the {@link WebClient} the AggregationFilter calls the downstream services with. The client resolves the
+     * service names through the load balancer, so the calls are balanced like those of the routes.
+     *
+     * @param builder the WebClient builder configured by Spring Boot.
+     * @param loadBalancerFunction the exchange filter function resolving the service names.
+     * @return a load balanced WebClient.
+     */
+    @Bean
+    public WebClient getAggregationWebClient(WebClient.Builder builder, LoadBalancedExchangeFilterFunction loadBalancerFunction) {
+        return builder.filter(loadBalancerFunction).build();
+    }
+
+    /**
+     * Creates the {@link OutlierDetector} ejecting the failing upstream instances from the load balancer.
+     * An instance is ejected after {@code loadbalancer.outlier.consecutiveErrors} consecutive errors, or when its error
+     * rate over an interval of {@code loadbalancer.outlier.intervalMillis} reaches {@code loadbalancer.outlier.errorRate}.
+     *
+     * @param environment the environment holding the outlier detection properties.
+     * @return an OutlierDetector without any ejected instance.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "loadbalancer.outlier.enabled", havingValue = "true", matchIfMissing = true)
+    public OutlierDetector getOutlierDetector(Environment environment) {
+        return new OutlierDetector(
+                environment.getProperty("loadbalancer.outlier.consecutiveErrors", Integer.class, 5),
+                environment.getProperty("loadbalancer.outlier.errorRate", Double.class, 0.5),
+                environment.getProperty("loadbalancer.outlier.minRequests", Integer.class, 20),
+                environment.getProperty("loadbalancer.outlier.intervalMillis", Long.class, 10000L),
+                environment.getProperty("loadbalancer.outlier.baseEjectionMillis", Long.class, 30000L),
+                environment.getProperty("loadbalancer.outlier.maxEjectionMillis", Long.class, 300000L),
+                environment.getProperty("loadbalancer.outlier.maxEjectionPercent", Double.class, 50.0));
+    }
+
+    /**
+     * Creates the 'outliers' actuator endpoint, which exposes the ejected instances under /monitor/outliers.
+     *
+     * @param outlierDetector the detector holding the state of the instances.
+     * @return an OutlierEndpoint reading the given detector.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "loadbalancer.outlier.enabled", havingValue = "true", matchIfMissing = true)
+    public OutlierEndpoint getOutlierEndpoint(OutlierDetector outlierDetector) {
+        return new OutlierEndpoint(outlierDetector);
+    }
+
+    /**
+     * Creates the {@link LatencyRecorder} holding the latency histograms of the routes, filters and upstream instances.
+     * The histograms cover a time window of {@code gateway.latency.windowSeconds} (5 minutes by default).
+     *
+     * @param environment the environment holding the latency properties.
+     * @return an empty LatencyRecorder.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "gateway.latency.enabled", havingValue = "true", matchIfMissing = true)
+    public LatencyRecorder getLatencyRecorder(Environment environment) {
+        return new LatencyRecorder(TimeUnit.SECONDS.toMillis(environment.getProperty("gateway.latency.windowSeconds", Long.class, 300L)));
+    }
+
+    /**
+     * Creates the 'latency' actuator endpoint, which exposes the latency histograms under /monitor/latency.
+     *
+     * @param latencyRecorder the recorder holding the histograms.
+     * @return a LatencyEndpoint reading the given recorder.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "gateway.latency.enabled", havingValue = "true", matchIfMissing = true)
+    public LatencyEndpoint getLatencyEndpoint(LatencyRecorder latencyRecorder) {
+        return new LatencyEndpoint(latencyRecorder);
+    }
+
+    /**
+     * Replaces the default {@link FilteringWebHandler} of Spring Cloud Gateway with one recording the latency of
+     * every route, filter and upstream instance. Global filters are named after their bean names.
+     *
+     * @param globalFilters the global filters, in the order they are injected into the default handler.
+     * @param beanFactory the bean factory used to look up the bean names of the global filters.
+     * @param latencyRecorder the recorder the latencies are recorded into.
+     * @return a TimedFilteringWebHandler running the given global filters.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "gateway.latency.enabled", havingValue = "true", matchIfMissing = true)
+    public FilteringWebHandler getFilteringWebHandler(List<GlobalFilter> globalFilters, ListableBeanFactory beanFactory,
+                                                      LatencyRecorder latencyRecorder) {
+        Map<GlobalFilter, String> names = new IdentityHashMap<>();
+        beanFactory.getBeansOfType(GlobalFilter.class).forEach((name, filter) -> names.put(filter, name));
+        return new TimedFilteringWebHandler(globalFilters, names, latencyRecorder);
+    }
+}
@@ -1,5 +1,7 @@
 package org.example.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,10 +14,14 @@ import reactor.core.publisher.Mono;
  * Global filters can be used to perform operations on the request and response
  * at a global level, affecting all routes in the gateway. Filters are executed
  * in the order specified by the @Order annotation.
+ *
+ * The filters only trace their execution, which is disabled unless the log level of this class is set to TRACE.
  */
 @Configuration
 public class GlobalFiltersConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(GlobalFiltersConfig.class);
+
     /**
      * Defines the first global pre-filter with the highest precedence.
      * This filter will be executed first among all global pre-filters.
@@ -33,11 +39,11 @@ public class GlobalFiltersConfig {
     public GlobalFilter firstPreFilter() {
         return (exchange, chain) -> {
             // Log message indicating the execution of the first global pre-filter
-            System.out.println("First global pre-filter executed...");
+            log.trace("First global pre-filter executed...");
             // Process the request and then execute post-filter logic
             return chain.filter(exchange).then(Mono.fromRunnable(() -> {
                 // Log message indicating the execution of the first global post-filter
-                System.out.println("Third global post-filter executed...");
+                log.trace("Third global post-filter executed...");
             }));
         };
     }
@@ -55,11 +61,11 @@ public class GlobalFiltersConfig {
     public GlobalFilter secondPreFilter() {
         return (exchange, chain) -> {
             // Log message indicating the execution of the second global pre-filter
-            System.out.println("Second global pre-filter executed...");
+            log.trace("Second global pre-filter executed...");
             // Process the request and then execute post-filter logic
             return chain.filter(exchange).then(Mono.fromRunnable(() -> {
                 // Log message indicating the execution of the second global post-filter
-                System.out.println("Second global post-filter executed...");
+                log.trace("Second global post-filter executed...");
             }));
         };
     }
@@ -76,11 +82,11 @@ public class GlobalFiltersConfig {
     public GlobalFilter thirdPreFilter() {
         return (exchange, chain) -> {
             // Log message indicating the execution of the third global pre-filter
-            System.out.println("Third global pre-filter executed...");
+            log.trace("Third global pre-filter executed...");
             // Process the request and then execute post-filter logic
             return chain.filter(exchange).then(Mono.fromRunnable(() -> {
                 // Log message indicating the execution of the third global post-filter
-                System.out.println("First global post-filter executed...");
+                log.trace("First global post-filter executed...");
             }));
         };
     }
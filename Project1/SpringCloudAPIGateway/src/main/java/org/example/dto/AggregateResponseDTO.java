@@ -0,0 +1,17 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.*;
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AggregateResponseDTO {
+
+    private Map<String, JsonNode> data;
+    private Map<String, ErrorResponseDTO> errors;
+    private boolean partial;
+}
@@ -0,0 +1,291 @@
+package org.example.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.example.IdentityHeaderCodec;
+import org.example.dto.AggregateResponseDTO;
+import org.example.dto.ErrorResponseDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * AggregationFilter is a custom filter answering a request by calling several downstream services in parallel and
+ * merging their JSON responses into one, so a client page needs a single round trip through the gateway.
+ *
+ * Each leg of an aggregation has a name, a URI template such as {@code lb://product-ms/product/category?category={category}}
+ * and a timeout. The variables of the templates are taken from the path variables of the route and the query
+ * parameters of the request. The legs are called through the load balancer with the cookies and the identity header
+ * of the request, so the services authorize them as they would authorize the request itself.
+ *
+ * The response holds the body of every successful leg under its name in {@code data}, and an error under its name in
+ * {@code errors} for every leg which failed, answered with an error status or timed out. When only optional legs
+ * failed, the response is a 200 marked {@code partial}; when a required leg failed, its status is used instead
+ * (504 for a timeout, 502 for any other failure), still with the results of the other legs.
+ *
+ * This filter needs to be configured explicitly to the routes and will be triggered only for those routes which has this filter configured.
+ * It answers the request itself, so the URI of the route is never called and the following route filters do not run.
+ */
+@Component
+public class AggregationFilter extends AbstractGatewayFilterFactory<AggregationFilter.Config> {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private WebClient webClient;
+
+    public AggregationFilter() {
+        super(Config.class);
+    }
+
+    /**
+     * Apply method to define the filter logic.
+     * This method calls the legs of the aggregation in parallel and writes their merged responses.
+     *
+     * @param config The configuration object for the filter.
+     * @return A GatewayFilter instance.
+     */
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            Map<String, String> variables = variables(exchange);
+            HttpHeaders headers = forwardedHeaders(exchange.getRequest(), config.getForwardedHeaders());
+            return Flux.fromIterable(config.getLegs())
+                    .flatMap(leg -> call(leg, variables, headers).map(result -> Map.entry(leg, result)))
+                    .collectList()
+                    .flatMap(results -> write(exchange.getResponse(), config, results));
+        };
+    }
+
+    /**
+     * Calls one leg, turning every failure into an error result rather than an error signal.
+     */
+    private Mono<Object> call(Leg leg, Map<String, String> variables, HttpHeaders headers) {
+        URI uri;
+        try {
+            uri = uri(leg.getUri(), variables);
+        } catch (IllegalArgumentException ex) {
+            return Mono.just(error(HttpStatus.BAD_REQUEST, ex.getMessage()));
+        }
+        return webClient.get()
+                .uri(uri)
+                .headers(h -> h.addAll(headers))
+                .retrieve()
+                .toEntity(byte[].class)
+                .timeout(leg.getTimeout())
+                .<Object>map(AggregationFilter::body)
+                .onErrorResume(ex -> Mono.just(error(ex)));
+    }
+
+    private Mono<Void> write(ServerHttpResponse response, Config config, List<Map.Entry<Leg, Object>> results) {
+        Map<String, JsonNode> data = new LinkedHashMap<>();
+        Map<String, ErrorResponseDTO> errors = new LinkedHashMap<>();
+        HttpStatus status = HttpStatus.OK;
+        // Results are reported in the order of the legs, whichever answered first
+        for (Leg leg : config.getLegs()) {
+            for (Map.Entry<Leg, Object> result : results) {
+                if (result.getKey() != leg) {
+                    continue;
+                }
+                if (result.getValue() instanceof ErrorResponseDTO) {
+                    ErrorResponseDTO error = (ErrorResponseDTO) result.getValue();
+                    errors.put(leg.getName(), error);
+                    if (leg.isRequired() && status == HttpStatus.OK) {
+                        status = error.getStatus() == HttpStatus.GATEWAY_TIMEOUT.value() ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.BAD_GATEWAY;
+                    }
+                } else {
+                    data.put(leg.getName(), (JsonNode) result.getValue());
+                }
+            }
+        }
+        AggregateResponseDTO aggregate = AggregateResponseDTO.builder()
+                .data(data)
+                .errors(errors)
+                .partial(!errors.isEmpty())
+                .build();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        try {
+            DataBuffer buffer = response.bufferFactory().wrap(objectMapper.writeValueAsBytes(aggregate));
+            return response.writeWith(Flux.just(buffer));
+        } catch (Exception ex) {
+            // If an exception occurs during serialization, complete the response without writing any body.
+            return response.setComplete();
+        }
+    }
+
+    private static Map<String, String> variables(ServerWebExchange exchange) {
+        Map<String, String> variables = new HashMap<>();
+        exchange.getRequest().getQueryParams().forEach((name, values) -> variables.put(name, values.get(0)));
+        variables.putAll(ServerWebExchangeUtils.getUriTemplateVariables(exchange));
+        return variables;
+    }
+
+    private static HttpHeaders forwardedHeaders(ServerHttpRequest request, List<String> names) {
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : names) {
+            List<String> values = request.getHeaders().get(name);
+            if (values != null) {
+                headers.put(name, values);
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Expands the URI template of a leg. The load balanced WebClient picks the instance by the host of an http URI,
+     * so the {@code lb} scheme used in the routes is mapped to http.
+     */
+    private static URI uri(String template, Map<String, String> variables) {
+        URI uri = UriComponentsBuilder.fromUriString(template).build().expand(name -> {
+            String value = variables.get(name);
+            if (value == null) {
+                throw new IllegalArgumentException("Missing parameter '" + name + "'");
+            }
+            return value;
+        }).encode().toUri();
+        if ("lb".equals(uri.getScheme())) {
+            uri = UriComponentsBuilder.fromUri(uri).scheme("http").build(true).toUri();
+        }
+        return uri;
+    }
+
+    private static JsonNode body(ResponseEntity<byte[]> entity) {
+        byte[] body = entity.getBody();
+        if (body == null || body.length == 0) {
+            // An empty answer (e.g. 204 No Content) is a successful leg, reported as null
+            return NullNode.getInstance();
+        }
+        try {
+            return objectMapper.readTree(body);
+        } catch (Exception ex) {
+            // Bodies which are not JSON are passed on as text
+            return new TextNode(new String(body, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static ErrorResponseDTO error(Throwable ex) {
+        if (ex instanceof TimeoutException) {
+            return error(HttpStatus.GATEWAY_TIMEOUT, "The service did not answer in time");
+        }
+        if (ex instanceof WebClientResponseException) {
+            WebClientResponseException responseException = (WebClientResponseException) ex;
+            HttpStatus status = HttpStatus.resolve(responseException.getStatusCode().value());
+            return error(status != null ? status : HttpStatus.BAD_GATEWAY, responseException.getStatusText());
+        }
+        return error(HttpStatus.BAD_GATEWAY, ex.getMessage());
+    }
+
+    private static ErrorResponseDTO error(HttpStatus status, String message) {
+        return ErrorResponseDTO.builder()
+                .timestamp(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")))
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(message)
+                .build();
+    }
+
+    /**
+     * Configuration class for the AggregationFilter.
+     */
+    public static class Config {
+        private List<Leg> legs = new ArrayList<>();
+        private List<String> forwardedHeaders = new ArrayList<>(List.of(HttpHeaders.COOKIE, HttpHeaders.AUTHORIZATION,
+                HttpHeaders.ACCEPT_LANGUAGE, IdentityHeaderCodec.HEADER_NAME));
+
+        public List<Leg> getLegs() {
+            return legs;
+        }
+
+        public Config setLegs(List<Leg> legs) {
+            this.legs = legs;
+            return this;
+        }
+
+        /**
+         * Adds a leg to the aggregation.
+         *
+         * @param name The name of the leg, under which its result is reported.
+         * @param uri The URI template of the leg.
+         * @param timeout The time the leg is waited for.
+         * @param required Whether the aggregation fails when the leg fails, otherwise its result is only left out.
+         */
+        public Config addLeg(String name, String uri, Duration timeout, boolean required) {
+            legs.add(new Leg(name, uri, timeout, required));
+            return this;
+        }
+
+        public List<String> getForwardedHeaders() {
+            return forwardedHeaders;
+        }
+
+        /**
+         * Sets the headers of the request which are sent along with every leg.
+         */
+        public Config setForwardedHeaders(List<String> forwardedHeaders) {
+            this.forwardedHeaders = forwardedHeaders;
+            return this;
+        }
+    }
+
+    /**
+     * One downstream call of an aggregation.
+     */
+    public static class Leg {
+        private final String name;
+        private final String uri;
+        private final Duration timeout;
+        private final boolean required;
+
+        public Leg(String name, String uri, Duration timeout, boolean required) {
+            this.name = name;
+            this.uri = uri;
+            this.timeout = timeout;
+            this.required = required;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getUri() {
+            return uri;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public boolean isRequired() {
+            return required;
+        }
+    }
+}
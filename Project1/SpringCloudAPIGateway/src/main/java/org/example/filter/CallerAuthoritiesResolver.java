@@ -0,0 +1,62 @@
+package org.example.filter;
+
+import org.example.JwtIdentity;
+import org.example.JwtVerifier;
+import org.example.ServerUtil;
+import org.example.TokenRevocationList;
+import org.example.filter.globalFilter.IdentityPropagationFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Identifies the authorities of the caller of a request, for the filters which share one downstream response between
+ * several requests (e.g. the ResponseCacheFilter and the RequestCoalescingFilter).
+ *
+ * The downstream services authorize requests on the authorities of the caller, so a response may only be shared
+ * between requests of callers with the same authorities.
+ */
+@Component
+public class CallerAuthoritiesResolver {
+
+    /**
+     * Authorities of a caller without a JWT token.
+     */
+    public static final String ANONYMOUS = "-";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private JwtVerifier jwtVerifier;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    /**
+     * Identifies the authorities of the caller, reusing the identity verified by the IdentityPropagationFilter if any.
+     *
+     * @param exchange The current server exchange.
+     * @return The authorities of the caller, {@value #ANONYMOUS} for a request without a JWT token, or null if the
+     * token of the request is invalid or revoked.
+     */
+    public String resolve(ServerWebExchange exchange) {
+        JwtIdentity identity = exchange.getAttribute(IdentityPropagationFilter.VERIFIED_IDENTITY_ATTRIBUTE);
+        if (identity == null) {
+            String JWTToken = ServerUtil.extractCookieFromHttpRequest(exchange.getRequest(), environment.getProperty("jwt.cookie.name"));
+            if (JWTToken == null) {
+                return ANONYMOUS;
+            }
+            try {
+                identity = jwtVerifier.verifyIdentity(JWTToken);
+            } catch (Exception ex) {
+                return null;
+            }
+            if (tokenRevocationList.isRevoked(identity)) {
+                return null;
+            }
+        }
+        return identity.getAuthorities() != null ? identity.getAuthorities() : "#" + identity.getAuthorityBits();
+    }
+}
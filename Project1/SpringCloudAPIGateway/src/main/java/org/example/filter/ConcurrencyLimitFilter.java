@@ -0,0 +1,195 @@
+package org.example.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.concurrency.ConcurrencyLimiter;
+import org.example.concurrency.ConcurrencyLimiterRegistry;
+import org.example.dto.ErrorResponseDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+/**
+ * ConcurrencyLimitFilter is a custom filter limiting the number of requests in flight to a downstream service to a
+ * limit adapted to the round trip times of the service (see {@link org.example.concurrency.VegasLimit}).
+ *
+ * Once the limit is reached, requests wait briefly for a request in flight to complete. If none completes in time,
+ * or if too many requests are waiting already, the filter responds with an HTTP 503 Service Unavailable status and a
+ * JSON error message straight away, rather than queueing more work in a service which is slowing down.
+ * Every route to the same service shares the same limit.
+ *
+ * This filter needs to be configured explicitly to the routes and will be triggered only for those routes which has this filter configured.
+ * It runs after the NettyWriteResponseFilter, so the round trip time it measures ends once the response headers of
+ * the service are received.
+ */
+@Component
+public class ConcurrencyLimitFilter extends AbstractGatewayFilterFactory<ConcurrencyLimitFilter.Config> {
+
+    @Autowired
+    private ConcurrencyLimiterRegistry concurrencyLimiterRegistry;
+
+    public ConcurrencyLimitFilter() {
+        super(Config.class);
+    }
+
+    /**
+     * Apply method to define the filter logic.
+     * This method acquires a permit of the limiter of the service before forwarding the request, and returns an error
+     * response if no permit could be acquired.
+     *
+     * @param config The configuration object for the filter.
+     * @return A GatewayFilter instance.
+     */
+    @Override
+    public GatewayFilter apply(Config config) {
+        ConcurrencyLimiter limiter = concurrencyLimiterRegistry.getLimiter(config.getService(), config.getInitialLimit(),
+                config.getMinLimit(), config.getMaxLimit(), config.getMaxQueueSize());
+        Duration maxQueueWait = Duration.ofMillis(config.getMaxQueueWaitMillis());
+        GatewayFilter filter = (exchange, chain) -> {
+            if (!config.isEnabled()) {
+                return chain.filter(exchange);
+            }
+            return limiter.acquire(maxQueueWait)
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(acquired -> {
+                        if (acquired.isEmpty()) {
+                            return reject(exchange);
+                        }
+                        ConcurrencyLimiter.Permit permit = acquired.get();
+                        long start = System.nanoTime();
+                        return chain.filter(exchange).doFinally(signal -> {
+                            if (signal == SignalType.CANCEL) {
+                                // The client went away, which tells nothing about the service
+                                permit.release(0, false);
+                            } else {
+                                permit.release(System.nanoTime() - start, signal == SignalType.ON_ERROR || isOverloaded(exchange));
+                            }
+                        });
+                    });
+        };
+        return new OrderedGatewayFilter(filter, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER + 1);
+    }
+
+    /**
+     * Checks whether the service responded that it is overloaded or timed out.
+     */
+    private static boolean isOverloaded(ServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null && (status.value() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status.value() == HttpStatus.GATEWAY_TIMEOUT.value());
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange) {
+        // Get the response object and set the status code to 503 Service Unavailable.
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().add(HttpHeaders.CONTENT_TYPE, "application/json");
+        ErrorResponseDTO errorResponse = ErrorResponseDTO.builder()
+                .timestamp(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")))
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error("Service Unavailable")
+                .message("Service is overloaded, please try again later")
+                .build();
+        try {
+            // Serialize the error response DTO to a JSON byte array and write it to the response.
+            DataBuffer buffer = response.bufferFactory().wrap(new ObjectMapper().writeValueAsBytes(errorResponse));
+            return response.writeWith(Flux.just(buffer));
+        } catch (Exception ex) {
+            // If an exception occurs during serialization, complete the response without writing any body.
+            return response.setComplete();
+        }
+    }
+
+    /**
+     * Configuration class for the ConcurrencyLimitFilter.
+     * Routes to the same service should use the same service name, so they share its limit.
+     */
+    public static class Config {
+        private String service = "default";
+        private boolean enabled = true;
+        private int initialLimit = 20;
+        private int minLimit = 5;
+        private int maxLimit = 500;
+        private int maxQueueSize = 50;
+        private long maxQueueWaitMillis = 50;
+
+        public String getService() {
+            return service;
+        }
+
+        public Config setService(String service) {
+            this.service = service;
+            return this;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public Config setEnabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public Config setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public Config setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public Config setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        public int getMaxQueueSize() {
+            return maxQueueSize;
+        }
+
+        public Config setMaxQueueSize(int maxQueueSize) {
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        public long getMaxQueueWaitMillis() {
+            return maxQueueWaitMillis;
+        }
+
+        public Config setMaxQueueWaitMillis(long maxQueueWaitMillis) {
+            this.maxQueueWaitMillis = maxQueueWaitMillis;
+            return this;
+        }
+    }
+}
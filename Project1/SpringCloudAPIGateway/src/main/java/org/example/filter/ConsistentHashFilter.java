@@ -0,0 +1,143 @@
+package org.example.filter;
+
+import org.example.JwtIdentity;
+import org.example.PowerOfTwoChoicesLoadBalancer;
+import org.example.filter.globalFilter.IdentityPropagationFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ConsistentHashFilter is a custom filter sending the requests with the same key to the same instance of the
+ * downstream service, so each instance only caches its own share of the data, e.g. of the products.
+ *
+ * The key of a request whose path matches one of the configured patterns is its path along with the values of the
+ * configured query parameters (e.g. the category name). Other requests are keyed by the username of the caller when
+ * user affinity is enabled, and are otherwise load balanced as usual. The instance of a key is chosen on a consistent
+ * hash ring by the {@link PowerOfTwoChoicesLoadBalancer}, which moves as few keys as possible when instances register
+ * or leave, and goes on to the next instance of the ring while the instance of a key is overloaded.
+ *
+ * This filter needs to be configured explicitly to the routes and will be triggered only for those routes which has this filter configured.
+ */
+@Component
+public class ConsistentHashFilter extends AbstractGatewayFilterFactory<ConsistentHashFilter.Config> {
+
+    public ConsistentHashFilter() {
+        super(Config.class);
+    }
+
+    /**
+     * Apply method to define the filter logic.
+     * This method puts the key of the request in the Reactor context the load balancer chooses the instance in.
+     *
+     * @param config The configuration object for the filter.
+     * @return A GatewayFilter instance.
+     */
+    @Override
+    public GatewayFilter apply(Config config) {
+        List<PathPattern> paths = SharedResponses.parsePaths(config.getPaths());
+        return (exchange, chain) -> {
+            String key = config.isEnabled() ? key(exchange, paths, config) : null;
+            if (key == null) {
+                return chain.filter(exchange);
+            }
+            return chain.filter(exchange)
+                    .contextWrite(context -> context
+                            .put(PowerOfTwoChoicesLoadBalancer.HASH_KEY_CONTEXT_KEY, key)
+                            .put(PowerOfTwoChoicesLoadBalancer.HASH_LOAD_FACTOR_CONTEXT_KEY, config.getLoadFactor()));
+        };
+    }
+
+    private static String key(ServerWebExchange exchange, List<PathPattern> paths, Config config) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (SharedResponses.matches(paths, request)) {
+            StringBuilder key = new StringBuilder(request.getPath().value());
+            for (String name : config.getQueryParams()) {
+                String value = request.getQueryParams().getFirst(name);
+                key.append('\n').append(name).append('=').append(value != null ? value : "");
+            }
+            return key.toString();
+        }
+        if (config.isUserAffinity()) {
+            JwtIdentity identity = exchange.getAttribute(IdentityPropagationFilter.VERIFIED_IDENTITY_ATTRIBUTE);
+            if (identity != null && identity.getUsername() != null) {
+                return "user:" + identity.getUsername();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Configuration class for the ConsistentHashFilter.
+     */
+    public static class Config {
+        private boolean enabled = true;
+        private List<String> paths = new ArrayList<>();
+        private List<String> queryParams = new ArrayList<>();
+        private boolean userAffinity = false;
+        private double loadFactor = PowerOfTwoChoicesLoadBalancer.DEFAULT_HASH_LOAD_FACTOR;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public Config setEnabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        /**
+         * Sets the path patterns of the requests keyed by their path.
+         */
+        public Config setPaths(List<String> paths) {
+            this.paths = paths;
+            return this;
+        }
+
+        public List<String> getQueryParams() {
+            return queryParams;
+        }
+
+        /**
+         * Sets the query parameters whose values are part of the key of the requests matching the paths.
+         */
+        public Config setQueryParams(List<String> queryParams) {
+            this.queryParams = queryParams;
+            return this;
+        }
+
+        public boolean isUserAffinity() {
+            return userAffinity;
+        }
+
+        /**
+         * Sets whether the requests not matching the paths are keyed by the username of the caller.
+         */
+        public Config setUserAffinity(boolean userAffinity) {
+            this.userAffinity = userAffinity;
+            return this;
+        }
+
+        public double getLoadFactor() {
+            return loadFactor;
+        }
+
+        /**
+         * Sets the maximum number of calls in flight of an instance relative to the average, above which the keys of
+         * the instance go to the next instance of the ring.
+         */
+        public Config setLoadFactor(double loadFactor) {
+            this.loadFactor = loadFactor;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package org.example.filter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.InstanceLoadStats;
+import org.example.PowerOfTwoChoicesLoadBalancer;
+import org.example.hedge.HedgeAttempt;
+import org.example.hedge.HedgePolicy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+
+/**
+ * HedgingFilter is a custom filter hedging idempotent requests: if the first attempt of a request has not been
+ * answered after a delay, a second attempt is sent to another instance of the downstream service, and the response
+ * of whichever attempt answers first is returned while the other attempt is cancelled.
+ *
+ * Only GET and HEAD requests whose path matches one of the configured patterns are hedged. The delay is a percentile
+ * of the latencies of the first attempts, so only the slowest requests are hedged, and the number of hedges is capped
+ * by a budget in percent of the requests (see {@link HedgePolicy}). The second attempt goes to another instance than
+ * the first one through the {@link PowerOfTwoChoicesLoadBalancer}, as long as there is another instance.
+ *
+ * As two attempts can't write to the same response, the responses of both attempts are buffered in memory and the
+ * first complete one is copied to the exchange, so this filter should only be used for routes with small responses.
+ *
+ * The hedging policy of a route is kept by the name of its filter configuration, so the latencies it has learnt
+ * survive a refresh of the routes as long as its settings are unchanged.
+ *
+ * This filter needs to be configured explicitly to the routes and will be triggered only for those routes which has this filter configured.
+ * It runs before the NettyWriteResponseFilter, so each attempt writes the response of its instance on its own.
+ */
+@Component
+public class HedgingFilter extends AbstractGatewayFilterFactory<HedgingFilter.Config> {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Policy> policies = new ConcurrentHashMap<>();
+
+    public HedgingFilter() {
+        super(Config.class);
+    }
+
+    /**
+     * Apply method to define the filter logic.
+     * This method forwards the request, and forwards it a second time if the first attempt is answered too slowly.
+     *
+     * @param config The configuration object for the filter.
+     * @return A GatewayFilter instance.
+     */
+    @Override
+    public GatewayFilter apply(Config config) {
+        HedgePolicy policy = policy(config);
+        List<PathPattern> paths = SharedResponses.parsePaths(config.getPaths());
+        GatewayFilter filter = (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (!config.isEnabled() || (request.getMethod() != HttpMethod.GET && request.getMethod() != HttpMethod.HEAD)
+                    || !SharedResponses.matches(paths, request)) {
+                return chain.filter(exchange);
+            }
+            return hedge(policy, exchange, chain);
+        };
+        // Must run before the NettyWriteResponseFilter, so each attempt writes the downstream response to its own buffer
+        return new OrderedGatewayFilter(filter, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    /**
+     * Returns the hedging policy of a route, reusing the one created for the same name and settings before the routes
+     * were refreshed.
+     */
+    private HedgePolicy policy(Config config) {
+        List<Object> settings = Arrays.asList(config.getPercentile(), config.getInitialDelayMillis(),
+                config.getMinDelayMillis(), config.getBudgetPercent());
+        return policies.compute(config.getName(), (name, current) -> current != null && current.settings.equals(settings)
+                ? current
+                : new Policy(settings, new HedgePolicy(name, config.getPercentile(), config.getInitialDelayMillis(),
+                        config.getMinDelayMillis(), config.getBudgetPercent(), meterRegistry))).policy;
+    }
+
+    private Mono<Void> hedge(HedgePolicy policy, ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        long delayNanos = policy.onRequest(start);
+        HedgeAttempt first = new HedgeAttempt(exchange);
+        AtomicBoolean hedged = new AtomicBoolean();
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+
+        Mono<HedgeAttempt> firstAttempt = chain.filter(first)
+                .then(Mono.just(first))
+                // Only answered attempts are recorded: a cancelled one, e.g. when the client went away, tells nothing of the latency
+                .doFinally(signal -> {
+                    if (signal == SignalType.ON_COMPLETE) {
+                        policy.recordFirstAttempt(System.nanoTime() - start);
+                    }
+                })
+                // Once hedged, a failed first attempt leaves the answer to the second one
+                .onErrorResume(ex -> {
+                    if (!hedged.get()) {
+                        return Mono.error(ex);
+                    }
+                    firstError.set(ex);
+                    return Mono.empty();
+                });
+
+        Mono<HedgeAttempt> secondAttempt = Mono.delay(Duration.ofNanos(delayNanos))
+                .flatMap(tick -> {
+                    if (!policy.tryHedge()) {
+                        return Mono.empty();
+                    }
+                    hedged.set(true);
+                    HedgeAttempt second = new HedgeAttempt(exchange);
+                    Response<ServiceInstance> firstInstance = first.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+                    List<String> excluded = firstInstance != null && firstInstance.hasServer()
+                            ? Collections.singletonList(InstanceLoadStats.keyOf(firstInstance.getServer()))
+                            : Collections.emptyList();
+                    return chain.filter(second)
+                            .then(Mono.just(second))
+                            .doOnNext(attempt -> policy.recordHedgeWon())
+                            .contextWrite(context -> context.put(PowerOfTwoChoicesLoadBalancer.EXCLUDED_INSTANCES_CONTEXT_KEY, excluded))
+                            .onErrorResume(ex -> Mono.empty());
+                });
+
+        // The first attempt to answer wins, and the other one is cancelled
+        return Flux.merge(firstAttempt, secondAttempt)
+                .next()
+                .switchIfEmpty(Mono.defer(() -> Mono.error(firstError.get() != null
+                        ? firstError.get() : new IllegalStateException("Neither attempt of the hedged request was answered"))))
+                .flatMap(attempt -> attempt.writeTo(exchange));
+    }
+
+    /**
+     * Configuration class for the HedgingFilter.
+     * Each route using the filter should use a name of its own, as the hedging delay and budget are kept per name.
+     */
+    public static class Config {
+        private String name = "default";
+        private boolean enabled = true;
+        private List<String> paths = new ArrayList<>(List.of("/**"));
+        private double percentile = 95;
+        private long initialDelayMillis = 100;
+        private long minDelayMillis = 5;
+        private double budgetPercent = 10;
+
+        public String getName() {
+            return name;
+        }
+
+        public Config setName(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public Config setEnabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public Config setPaths(List<String> paths) {
+            this.paths = paths;
+            return this;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        /**
+         * Sets the percentile of the first attempt latencies after which a request is hedged.
+         */
+        public Config setPercentile(double percentile) {
+            this.percentile = percentile;
+            return this;
+        }
+
+        public long getInitialDelayMillis() {
+            return initialDelayMillis;
+        }
+
+        /**
+         * Sets the delay before hedging used until enough latencies have been recorded.
+         */
+        public Config setInitialDelayMillis(long initialDelayMillis) {
+            this.initialDelayMillis = initialDelayMillis;
+            return this;
+        }
+
+        public long getMinDelayMillis() {
+            return minDelayMillis;
+        }
+
+        public Config setMinDelayMillis(long minDelayMillis) {
+            this.minDelayMillis = minDelayMillis;
+            return this;
+        }
+
+        public double getBudgetPercent() {
+            return budgetPercent;
+        }
+
+        /**
+         * Sets the maximum number of hedges, in percent of the requests.
+         */
+        public Config setBudgetPercent(double budgetPercent) {
+            this.budgetPercent = budgetPercent;
+            return this;
+        }
+    }
+
+    /**
+     * The hedging policy of a route along with the settings it was created with.
+     */
+    private static final class Policy {
+        private final List<Object> settings;
+        private final HedgePolicy policy;
+
+        private Policy(List<Object> settings, HedgePolicy policy) {
+            this.settings = settings;
+            this.policy = policy;
+        }
+    }
+}
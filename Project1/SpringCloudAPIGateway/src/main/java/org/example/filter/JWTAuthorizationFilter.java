@@ -1,9 +1,11 @@
 package org.example.filter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.example.JWTUtil;
+import org.example.JwtVerifier;
 import org.example.ServerUtil;
+import org.example.TokenRevocationList;
 import org.example.dto.ErrorResponseDTO;
+import org.example.filter.globalFilter.IdentityPropagationFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
@@ -21,7 +23,7 @@ import java.time.format.DateTimeFormatter;
 /**
  * JWTAuthorizationFilter is a custom filter used in the API Gateway to validate JWT tokens in incoming requests.
  * It extends AbstractGatewayFilterFactory and checks if the JWT token is present in the request cookies.
- * If the token is missing or invalid, the filter responds with an HTTP 401 Unauthorized status and a JSON error message.
+ * If the token is missing, invalid or revoked, the filter responds with an HTTP 401 Unauthorized status and a JSON error message.
  *
  * This filter needs to be configured explicitly to the routes and will be triggered only for those routes which has this filter configured.
  */
@@ -31,6 +33,16 @@ public class JWTAuthorizationFilter extends AbstractGatewayFilterFactory<JWTAuth
     @Autowired
     private Environment environment;
 
+    @Autowired
+    private JwtVerifier jwtVerifier;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    public JWTAuthorizationFilter() {
+        super(Config.class);
+    }
+
     /**
      * Apply method to define the filter logic.
      * This method retrieves the JWT token from the request cookies, validates it, and returns an error response if the token is missing or invalid.
@@ -45,8 +57,10 @@ public class JWTAuthorizationFilter extends AbstractGatewayFilterFactory<JWTAuth
             // Extract the JWT token from the request cookies using the cookie name defined in the environment properties.
             String JWTToken = ServerUtil.extractCookieFromHttpRequest(request, environment.getProperty("jwt.cookie.name"));
 
-            // Validate the JWT token. If the token is missing or invalid, return an HTTP 401 Unauthorized response with a JSON error message.
-            if (JWTToken == null || !JWTUtil.validateJWTToken(JWTToken, environment.getProperty("jwt.secretKey"))) {
+            // Validate the JWT token, unless the IdentityPropagationFilter has already verified it for this request.
+            // If the token is missing, invalid or revoked, return an HTTP 401 Unauthorized response with a JSON error message.
+            boolean verified = serverWebExchange.getAttribute(IdentityPropagationFilter.VERIFIED_IDENTITY_ATTRIBUTE) != null;
+            if (JWTToken == null || (!verified && !isValid(JWTToken))) {
                 // Create an error response DTO with the current timestamp, status code, error, and message.
                 ErrorResponseDTO errorResponse = ErrorResponseDTO.builder()
                         .timestamp(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")))
@@ -77,6 +91,20 @@ public class JWTAuthorizationFilter extends AbstractGatewayFilterFactory<JWTAuth
         };
     }
 
+    /**
+     * Checks whether a JWT token is valid and has not been revoked.
+     *
+     * @param JWTToken The JWT token to validate.
+     * @return Returns true if the token is valid and not revoked, false otherwise.
+     */
+    private boolean isValid(String JWTToken) {
+        try {
+            return !tokenRevocationList.isRevoked(jwtVerifier.verifyIdentity(JWTToken));
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+
     /**
      * Configuration class for the JWTAuthorizationFilter.
      * This class can be used to pass configuration properties to the filter.
@@ -0,0 +1,267 @@
+package org.example.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.JwtIdentity;
+import org.example.JwtVerifier;
+import org.example.ServerUtil;
+import org.example.TokenRevocationList;
+import org.example.dto.ErrorResponseDTO;
+import org.example.filter.globalFilter.IdentityPropagationFilter;
+import org.example.ratelimit.TokenBucketTable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RateLimitFilter is a custom filter limiting the rate of requests each client can send through a route, so a single
+ * noisy client can't overload the downstream services.
+ *
+ * Clients are identified by the username of their JWT token, or by their IP address when the request carries no valid
+ * token. Every client has a token bucket holding up to the configured burst capacity and refilled at the configured
+ * replenish rate; a request takes one token, and is rejected with an HTTP 429 Too Many Requests status and a JSON error
+ * message when the bucket of its client is empty. The buckets are held in memory by each gateway instance (see
+ * {@link TokenBucketTable}), so no external store is involved and the limits apply per instance.
+ *
+ * The remaining tokens are returned in the {@value #REMAINING_HEADER} response header, and the time until the next
+ * token in the {@code Retry-After} header of rejected requests.
+ *
+ * The buckets of a route are kept by the name of its filter configuration, so they survive a refresh of the routes
+ * as long as the limits of the route are unchanged.
+ *
+ * This filter needs to be configured explicitly to the routes and will be triggered only for those routes which has this filter configured.
+ * It runs before the other route filters, so requests served from the gateway cache are limited as well.
+ */
+@Component
+public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilter.Config> {
+
+    /**
+     * Name of the response header holding the number of requests the client can still send right away.
+     */
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private JwtVerifier jwtVerifier;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    private final Map<String, Buckets> buckets = new ConcurrentHashMap<>();
+
+    public RateLimitFilter() {
+        super(Config.class);
+    }
+
+    /**
+     * Apply method to define the filter logic.
+     * This method takes a token from the bucket of the client and returns an error response if there is none left.
+     *
+     * @param config The configuration object for the filter.
+     * @return A GatewayFilter instance.
+     */
+    @Override
+    public GatewayFilter apply(Config config) {
+        TokenBucketTable table = buckets(config);
+        RemoteAddressResolver remoteAddressResolver = config.getTrustedProxies() > 0
+                ? XForwardedRemoteAddressResolver.maxTrustedIndex(config.getTrustedProxies())
+                : new RemoteAddressResolver() { };
+        GatewayFilter filter = (exchange, chain) -> {
+            if (!config.isEnabled()) {
+                return chain.filter(exchange);
+            }
+            long result = table.tryAcquire(clientKey(exchange, remoteAddressResolver), 1, System.nanoTime());
+            ServerHttpResponse response = exchange.getResponse();
+            if (result >= 0) {
+                response.getHeaders().set(REMAINING_HEADER, Long.toString(result));
+                return chain.filter(exchange);
+            }
+            // Get the response object and set the status code to 429 Too Many Requests.
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            response.getHeaders().set(REMAINING_HEADER, "0");
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(-result + 999_999_999L))));
+            response.getHeaders().add(HttpHeaders.CONTENT_TYPE, "application/json");
+            ErrorResponseDTO errorResponse = ErrorResponseDTO.builder()
+                    .timestamp(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")))
+                    .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                    .error("Too Many Requests")
+                    .message("Request rate limit exceeded")
+                    .build();
+            try {
+                // Serialize the error response DTO to a JSON byte array and write it to the response.
+                DataBuffer buffer = response.bufferFactory().wrap(new ObjectMapper().writeValueAsBytes(errorResponse));
+                return response.writeWith(Flux.just(buffer));
+            } catch (Exception ex) {
+                // If an exception occurs during serialization, complete the response without writing any body.
+                return response.setComplete();
+            }
+        };
+        // Runs before the filters which may answer the request without reaching the downstream service (e.g. the ResponseCacheFilter)
+        return new OrderedGatewayFilter(filter, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2);
+    }
+
+    /**
+     * Returns the buckets of a route, reusing those created for the same name and limits before the routes were refreshed.
+     */
+    private TokenBucketTable buckets(Config config) {
+        List<Object> settings = Arrays.asList(config.getReplenishRate(), config.getBurstCapacity(),
+                config.getIdleTimeoutSeconds(), config.getStripes());
+        return buckets.compute(config.getName(), (name, current) -> current != null && current.settings.equals(settings)
+                ? current
+                : new Buckets(settings, new TokenBucketTable(config.getReplenishRate(), config.getBurstCapacity(),
+                        TimeUnit.SECONDS.toMillis(config.getIdleTimeoutSeconds()), config.getStripes()))).table;
+    }
+
+    /**
+     * Identifies the client of a request by the username of its JWT token, reusing the identity verified by the
+     * IdentityPropagationFilter if any, or by its IP address if the request carries no valid token.
+     */
+    private String clientKey(ServerWebExchange exchange, RemoteAddressResolver remoteAddressResolver) {
+        JwtIdentity identity = exchange.getAttribute(IdentityPropagationFilter.VERIFIED_IDENTITY_ATTRIBUTE);
+        if (identity == null) {
+            String JWTToken = ServerUtil.extractCookieFromHttpRequest(exchange.getRequest(), environment.getProperty("jwt.cookie.name"));
+            if (JWTToken != null) {
+                try {
+                    identity = jwtVerifier.verifyIdentity(JWTToken);
+                    if (tokenRevocationList.isRevoked(identity)) {
+                        identity = null;
+                    }
+                } catch (Exception ex) {
+                    // Clients with an invalid token are limited by their IP address
+                }
+            }
+        }
+        if (identity != null && identity.getUsername() != null) {
+            return "user:" + identity.getUsername();
+        }
+        InetSocketAddress address = remoteAddressResolver.resolve(exchange);
+        if (address == null) {
+            return "ip:unknown";
+        }
+        return "ip:" + (address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString());
+    }
+
+    /**
+     * Configuration class for the RateLimitFilter.
+     * Each route using the filter should use a name of its own, as the buckets are kept per name.
+     */
+    public static class Config {
+        private String name = "default";
+        private boolean enabled = true;
+        private double replenishRate = 10;
+        private int burstCapacity = 20;
+        private long idleTimeoutSeconds = 600;
+        private int trustedProxies = 0;
+        private int stripes = 64;
+
+        public String getName() {
+            return name;
+        }
+
+        public Config setName(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public Config setEnabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public double getReplenishRate() {
+            return replenishRate;
+        }
+
+        /**
+         * Sets the number of requests per second each client can send in the long run.
+         */
+        public Config setReplenishRate(double replenishRate) {
+            this.replenishRate = replenishRate;
+            return this;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        /**
+         * Sets the number of requests each client can send at once after having been idle.
+         */
+        public Config setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+            return this;
+        }
+
+        public long getIdleTimeoutSeconds() {
+            return idleTimeoutSeconds;
+        }
+
+        /**
+         * Sets the time after which the bucket of an idle client is dropped.
+         */
+        public Config setIdleTimeoutSeconds(long idleTimeoutSeconds) {
+            this.idleTimeoutSeconds = idleTimeoutSeconds;
+            return this;
+        }
+
+        public int getTrustedProxies() {
+            return trustedProxies;
+        }
+
+        /**
+         * Sets the number of proxies in front of the gateway whose X-Forwarded-For entries are trusted to find the
+         * IP address of the client. With none, the address of the connection is used.
+         */
+        public Config setTrustedProxies(int trustedProxies) {
+            this.trustedProxies = trustedProxies;
+            return this;
+        }
+
+        public int getStripes() {
+            return stripes;
+        }
+
+        public Config setStripes(int stripes) {
+            this.stripes = stripes;
+            return this;
+        }
+    }
+
+    /**
+     * The buckets of a route along with the limits they were created with.
+     */
+    private static final class Buckets {
+        private final List<Object> settings;
+        private final TokenBucketTable table;
+
+        private Buckets(List<Object> settings, TokenBucketTable table) {
+            this.settings = settings;
+            this.table = table;
+        }
+    }
+}
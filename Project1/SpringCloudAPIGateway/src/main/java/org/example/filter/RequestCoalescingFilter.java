@@ -0,0 +1,199 @@
+package org.example.filter;
+
+import org.example.cache.CachedResponse;
+import org.example.coalesce.RequestCoalescer;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Mono;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * RequestCoalescingFilter is a custom filter collapsing identical concurrent read requests into a single call to the
+ * downstream service, whose response is handed to every waiting request.
+ *
+ * Only GET and HEAD requests whose path matches one of the configured patterns are coalesced. By default requests are
+ * identical when they have the same method, path, query string, vary headers and caller authorities, so a response is
+ * only ever shared between callers the downstream service would have authorized the same way; a custom
+ * {@link KeyResolver} can be configured instead. Requests whose key is empty, e.g. those carrying an invalid or
+ * revoked JWT token, are forwarded as usual.
+ *
+ * A request waits at most the configured time for the response of the identical request in flight. If that response
+ * does not complete in time, sets cookies, is too large or fails, the waiting request is forwarded downstream itself.
+ * Responses are shared between concurrent requests only, see the ResponseCacheFilter to reuse them afterwards.
+ *
+ * This filter needs to be configured explicitly to the routes and will be triggered only for those routes which has this filter configured.
+ * It runs before the NettyWriteResponseFilter, so it sees the response written by the downstream service.
+ */
+@Component
+public class RequestCoalescingFilter extends AbstractGatewayFilterFactory<RequestCoalescingFilter.Config> {
+
+    @Autowired
+    private CallerAuthoritiesResolver callerAuthoritiesResolver;
+
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+
+    public RequestCoalescingFilter() {
+        super(Config.class);
+    }
+
+    /**
+     * Apply method to define the filter logic.
+     * This method forwards the first of identical concurrent requests and answers the others with its response.
+     *
+     * @param config The configuration object for the filter.
+     * @return A GatewayFilter instance.
+     */
+    @Override
+    public GatewayFilter apply(Config config) {
+        RequestCoalescer.Group group = requestCoalescer.getGroup(config.getName());
+        List<PathPattern> paths = SharedResponses.parsePaths(config.getPaths());
+        KeyResolver keyResolver = config.getKeyResolver() != null ? config.getKeyResolver() : exchange -> {
+            String caller = callerAuthoritiesResolver.resolve(exchange);
+            if (caller == null) {
+                return Mono.empty();
+            }
+            ServerHttpRequest request = exchange.getRequest();
+            return Mono.just(request.getMethod().name() + " " + SharedResponses.key(request, config.getVaryHeaders(), caller));
+        };
+        Duration maxWait = Duration.ofMillis(config.getMaxWaitMillis());
+        GatewayFilter filter = (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (!config.isEnabled() || (request.getMethod() != HttpMethod.GET && request.getMethod() != HttpMethod.HEAD)
+                    || !SharedResponses.matches(paths, request)) {
+                return chain.filter(exchange);
+            }
+            return keyResolver.resolve(exchange)
+                    .defaultIfEmpty("")
+                    .flatMap(key -> key.isEmpty() ? chain.filter(exchange) : coalesce(group, key, maxWait, exchange, chain));
+        };
+        // Must run before the NettyWriteResponseFilter writes the downstream response, like ModifyResponseBody does
+        return new OrderedGatewayFilter(filter, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private Mono<Void> coalesce(RequestCoalescer.Group group, String key, Duration maxWait, ServerWebExchange exchange,
+                                GatewayFilterChain chain) {
+        RequestCoalescer.Flight flight = group.join(key);
+        if (!flight.isLeader()) {
+            return flight.response()
+                    .timeout(maxWait, Mono.empty())
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(shared -> {
+                        if (shared.isPresent()) {
+                            group.recordCollapsed();
+                            return SharedResponses.write(exchange.getResponse(), shared.get(), new HttpHeaders());
+                        }
+                        group.recordFallback();
+                        return chain.filter(exchange);
+                    });
+        }
+        ServerHttpResponseDecorator capturing = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (getHeaders().containsKey(HttpHeaders.SET_COOKIE)) {
+                    flight.complete(null);
+                    return super.writeWith(body);
+                }
+                int status = getStatusCode() != null ? getStatusCode().value() : HttpStatus.OK.value();
+                HttpHeaders headers = SharedResponses.shareableHeaders(getHeaders());
+                // Larger responses are only streamed to the leader, and the waiting requests are then forwarded
+                return super.writeWith(SharedResponses.capture(body, bytes -> {
+                    long now = System.currentTimeMillis();
+                    flight.complete(bytes != null ? new CachedResponse(status, headers, bytes, now, now) : null);
+                }));
+            }
+        };
+        // Waiting requests are released even if the leader fails or is cancelled before writing its response
+        return chain.filter(exchange.mutate().response(capturing).build())
+                .doFinally(signal -> flight.complete(null));
+    }
+
+    /**
+     * Configuration class for the RequestCoalescingFilter.
+     * Each route using the filter should use a group of its own name.
+     */
+    public static class Config {
+        private String name = "default";
+        private boolean enabled = true;
+        private List<String> paths = new ArrayList<>(List.of("/**"));
+        private List<String> varyHeaders = new ArrayList<>(List.of(HttpHeaders.ACCEPT));
+        private KeyResolver keyResolver;
+        private long maxWaitMillis = 5000;
+
+        public String getName() {
+            return name;
+        }
+
+        public Config setName(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public Config setEnabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public Config setPaths(List<String> paths) {
+            this.paths = paths;
+            return this;
+        }
+
+        public List<String> getVaryHeaders() {
+            return varyHeaders;
+        }
+
+        public Config setVaryHeaders(List<String> varyHeaders) {
+            this.varyHeaders = varyHeaders;
+            return this;
+        }
+
+        public KeyResolver getKeyResolver() {
+            return keyResolver;
+        }
+
+        /**
+         * Sets the function computing the key identical requests share. Requests with an empty key are not coalesced.
+         */
+        public Config setKeyResolver(KeyResolver keyResolver) {
+            this.keyResolver = keyResolver;
+            return this;
+        }
+
+        public long getMaxWaitMillis() {
+            return maxWaitMillis;
+        }
+
+        public Config setMaxWaitMillis(long maxWaitMillis) {
+            this.maxWaitMillis = maxWaitMillis;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package org.example.filter;
+
+import org.example.cache.CachedResponse;
+import org.example.cache.ResponseCache;
+import org.example.cache.ResponseCacheManager;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Mono;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ResponseCacheFilter is a custom filter caching the responses of read-only requests in the API Gateway, so repeated
+ * reads of the same resource are answered without reaching the downstream service.
+ *
+ * Only GET requests whose path matches one of the configured patterns are cached, and only successful (200) responses
+ * which do not set cookies are stored. Responses are cached for at most the configured time-to-live, and the
+ * {@code Cache-Control} headers are honoured:
+ * <ul>
+ *     <li>a request with {@code no-store} bypasses the cache, one with {@code no-cache} or {@code max-age=0} is
+ *     forwarded and refreshes the cache;</li>
+ *     <li>a response with {@code no-store}, {@code no-cache} or {@code private} is not stored, and its
+ *     {@code s-maxage} or {@code max-age} shortens the time it is cached.</li>
+ * </ul>
+ *
+ * Cached responses are keyed on the path, the query string, the configured vary headers and the authorities of the
+ * caller, so a response is only ever served to callers the downstream service would have authorized the same way.
+ * Requests carrying a JWT token which is invalid or revoked bypass the cache and are left to the downstream service.
+ * The cache of a route is cleared when a change of the catalog entities it depends on is received over Spring Cloud Bus.
+ *
+ * Responses are marked with an {@value #CACHE_STATUS_HEADER} header telling whether they were served from the cache.
+ *
+ * This filter needs to be configured explicitly to the routes and will be triggered only for those routes which has this filter configured.
+ * It runs before the NettyWriteResponseFilter, so it sees the response written by the downstream service.
+ */
+@Component
+public class ResponseCacheFilter extends AbstractGatewayFilterFactory<ResponseCacheFilter.Config> {
+
+    /**
+     * Name of the response header telling whether the response was served from the cache (HIT) or not (MISS).
+     */
+    public static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    private static final Pattern MAX_AGE = Pattern.compile("(?:^|,)\\s*(s-maxage|max-age)\\s*=\\s*\"?(\\d+)");
+
+    @Autowired
+    private CallerAuthoritiesResolver callerAuthoritiesResolver;
+
+    @Autowired
+    private ResponseCacheManager responseCacheManager;
+
+    public ResponseCacheFilter() {
+        super(Config.class);
+    }
+
+    /**
+     * Apply method to define the filter logic.
+     * This method serves the response from the cache when possible, and otherwise forwards the request and stores the response.
+     *
+     * @param config The configuration object for the filter.
+     * @return A GatewayFilter instance.
+     */
+    @Override
+    public GatewayFilter apply(Config config) {
+        ResponseCache cache = responseCacheManager.getCache(config.getName(), config.getMaxEntries(), config.getInvalidatedBy());
+        List<PathPattern> paths = SharedResponses.parsePaths(config.getPaths());
+        GatewayFilter filter = (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (!config.isEnabled() || request.getMethod() != HttpMethod.GET || !SharedResponses.matches(paths, request)) {
+                return chain.filter(exchange);
+            }
+            String requestCacheControl = request.getHeaders().getCacheControl();
+            if (contains(requestCacheControl, "no-store")) {
+                return chain.filter(exchange);
+            }
+            String caller = callerAuthoritiesResolver.resolve(exchange);
+            if (caller == null) {
+                return chain.filter(exchange);
+            }
+            String key = SharedResponses.key(request, config.getVaryHeaders(), caller);
+            long now = System.currentTimeMillis();
+            if (!contains(requestCacheControl, "no-cache") && !contains(requestCacheControl, "max-age=0")
+                    && !contains(request.getHeaders().getPragma(), "no-cache")) {
+                CachedResponse cached = cache.get(key, now);
+                if (cached != null) {
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.set(HttpHeaders.AGE, Long.toString(Math.max(0, (now - cached.getStoredAt()) / 1000)));
+                    headers.set(CACHE_STATUS_HEADER, "HIT");
+                    return SharedResponses.write(exchange.getResponse(), cached, headers);
+                }
+            }
+            long generation = cache.generation();
+            ServerHttpResponse response = exchange.getResponse();
+            response.getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+            ServerHttpResponseDecorator caching = new ServerHttpResponseDecorator(response) {
+                @Override
+                public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                    long ttlMillis = ttlMillis(getStatusCode(), getHeaders(), config.getTtlSeconds() * 1000L);
+                    if (ttlMillis <= 0) {
+                        return super.writeWith(body);
+                    }
+                    HttpHeaders headers = SharedResponses.shareableHeaders(getHeaders());
+                    int status = getStatusCode().value();
+                    return super.writeWith(SharedResponses.capture(body, bytes -> {
+                        if (bytes != null) {
+                            long storedAt = System.currentTimeMillis();
+                            cache.put(key, new CachedResponse(status, headers, bytes, storedAt, storedAt + ttlMillis), generation);
+                        }
+                    }));
+                }
+            };
+            return chain.filter(exchange.mutate().response(caching).build());
+        };
+        // Must run before the NettyWriteResponseFilter writes the downstream response, like ModifyResponseBody does
+        return new OrderedGatewayFilter(filter, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    /**
+     * Returns for how long a response may be cached, or 0 if it must not be cached.
+     */
+    private static long ttlMillis(HttpStatusCode status, HttpHeaders headers, long maxTtlMillis) {
+        if (status == null || status.value() != HttpStatus.OK.value() || headers.containsKey(HttpHeaders.SET_COOKIE)
+                || headers.getVary().contains("*")) {
+            return 0;
+        }
+        String cacheControl = headers.getCacheControl();
+        if (contains(cacheControl, "no-store") || contains(cacheControl, "no-cache") || contains(cacheControl, "private")) {
+            return 0;
+        }
+        if (cacheControl != null) {
+            // s-maxage applies to shared caches and takes precedence over max-age
+            long maxAge = -1;
+            Matcher matcher = MAX_AGE.matcher(cacheControl.toLowerCase(Locale.ROOT));
+            while (matcher.find()) {
+                long seconds = Long.parseLong(matcher.group(2));
+                if (matcher.group(1).equals("s-maxage") || maxAge < 0) {
+                    maxAge = seconds;
+                }
+            }
+            if (maxAge >= 0) {
+                return Math.min(maxTtlMillis, maxAge * 1000);
+            }
+        }
+        return maxTtlMillis;
+    }
+
+    private static boolean contains(String headerValue, String directive) {
+        return headerValue != null && headerValue.toLowerCase(Locale.ROOT).contains(directive);
+    }
+
+    /**
+     * Configuration class for the ResponseCacheFilter.
+     * Each route using the filter should use a cache of its own name.
+     */
+    public static class Config {
+        private String name = "default";
+        private boolean enabled = true;
+        private List<String> paths = new ArrayList<>(List.of("/**"));
+        private List<String> varyHeaders = new ArrayList<>(List.of(HttpHeaders.ACCEPT));
+        private List<String> invalidatedBy = new ArrayList<>();
+        private long ttlSeconds = 30;
+        private int maxEntries = 10000;
+
+        public String getName() {
+            return name;
+        }
+
+        public Config setName(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public Config setEnabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public Config setPaths(List<String> paths) {
+            this.paths = paths;
+            return this;
+        }
+
+        public List<String> getVaryHeaders() {
+            return varyHeaders;
+        }
+
+        public Config setVaryHeaders(List<String> varyHeaders) {
+            this.varyHeaders = varyHeaders;
+            return this;
+        }
+
+        public List<String> getInvalidatedBy() {
+            return invalidatedBy;
+        }
+
+        public Config setInvalidatedBy(List<String> invalidatedBy) {
+            this.invalidatedBy = invalidatedBy;
+            return this;
+        }
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public Config setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+            return this;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public Config setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.filter;
+
+import org.example.cache.CachedResponse;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Helpers shared by the filters which answer a request with a response captured from another request.
+ */
+final class SharedResponses {
+
+    /**
+     * Largest response body which is captured to be shared.
+     */
+    static final int MAX_BODY_BYTES = 1024 * 1024;
+
+    private static final List<String> EXCLUDED_HEADERS = Arrays.asList(HttpHeaders.SET_COOKIE, HttpHeaders.CONTENT_LENGTH,
+            HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION, HttpHeaders.DATE, ResponseCacheFilter.CACHE_STATUS_HEADER);
+
+    private SharedResponses() {
+    }
+
+    static List<PathPattern> parsePaths(List<String> paths) {
+        List<PathPattern> patterns = new ArrayList<>();
+        for (String path : paths) {
+            patterns.add(PathPatternParser.defaultInstance.parse(path));
+        }
+        return patterns;
+    }
+
+    static boolean matches(List<PathPattern> paths, ServerHttpRequest request) {
+        PathContainer path = request.getPath().pathWithinApplication();
+        for (PathPattern pattern : paths) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the key of a request from its path, query string, the given headers and the authorities of the caller.
+     */
+    static String key(ServerHttpRequest request, List<String> varyHeaders, String caller) {
+        StringBuilder key = new StringBuilder(request.getPath().value());
+        String query = request.getURI().getRawQuery();
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        for (String header : varyHeaders) {
+            key.append('\n').append(header).append(':');
+            List<String> values = request.getHeaders().get(header);
+            if (values != null) {
+                key.append(String.join(",", values));
+            }
+        }
+        return key.append('\n').append(caller).toString();
+    }
+
+    /**
+     * Copies the headers of a response which may be replayed to other requests.
+     */
+    static HttpHeaders shareableHeaders(HttpHeaders headers) {
+        HttpHeaders copy = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (EXCLUDED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                copy.put(name, new ArrayList<>(values));
+            }
+        });
+        return copy;
+    }
+
+    /**
+     * Writes a captured response along with the given extra headers.
+     */
+    static Mono<Void> write(ServerHttpResponse response, CachedResponse shared, HttpHeaders extraHeaders) {
+        response.setStatusCode(HttpStatusCode.valueOf(shared.getStatus()));
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(shared.getHeaders());
+        headers.putAll(extraHeaders);
+        headers.setContentLength(shared.getBody().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.getBody())));
+    }
+
+    /**
+     * Streams a response body through unchanged while keeping a copy of it, as long as it is no larger than
+     * {@link #MAX_BODY_BYTES}. The body is never held back: each buffer is passed on as soon as it has been copied.
+     *
+     * The callback is called once, with the whole body when it completes, or with null as soon as the body grows past
+     * {@link #MAX_BODY_BYTES} (the copy is then dropped and the rest of the body is only streamed), fails or is cancelled.
+     *
+     * @param body The response body.
+     * @param onCaptured Called with the captured body, or null if it can't be shared.
+     * @return The body to write to the response.
+     */
+    static Flux<DataBuffer> capture(Publisher<? extends DataBuffer> body, Consumer<byte[]> onCaptured) {
+        BodyCapture capture = new BodyCapture(onCaptured);
+        return Flux.<DataBuffer>from(body)
+                .doOnNext(capture::append)
+                .doOnComplete(capture::complete)
+                .doFinally(signal -> capture.finish(null));
+    }
+
+    /**
+     * Copy of a response body being streamed, dropped once it grows too large.
+     */
+    private static final class BodyCapture {
+        private final Consumer<byte[]> onCaptured;
+        private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private boolean finished;
+
+        private BodyCapture(Consumer<byte[]> onCaptured) {
+            this.onCaptured = onCaptured;
+        }
+
+        private void append(DataBuffer buffer) {
+            if (bytes == null) {
+                return;
+            }
+            int length = buffer.readableByteCount();
+            if (bytes.size() + length > MAX_BODY_BYTES) {
+                finish(null);
+                return;
+            }
+            // Copies the readable bytes without moving the read position of the buffer written to the response
+            byte[] chunk = new byte[length];
+            buffer.toByteBuffer(buffer.readPosition(), ByteBuffer.wrap(chunk), 0, length);
+            bytes.write(chunk, 0, length);
+        }
+
+        private void complete() {
+            if (bytes != null) {
+                finish(bytes.toByteArray());
+            }
+        }
+
+        private void finish(byte[] body) {
+            bytes = null;
+            if (!finished) {
+                finished = true;
+                onCaptured.accept(body);
+            }
+        }
+    }
+}
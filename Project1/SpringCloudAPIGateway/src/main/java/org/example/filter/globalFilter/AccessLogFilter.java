@@ -0,0 +1,117 @@
+package org.example.filter.globalFilter;
+
+import org.example.accesslog.AccessLogEntry;
+import org.example.accesslog.AccessLogger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+
+/**
+ * AccessLogFilter is a global filter that records one access log entry per exchange handled by the API Gateway.
+ * It replaces the former request and response logging filters, which printed every header of every request to the
+ * console on the event loop.
+ *
+ * Once the exchange completes, the filter decides whether it is sampled and, if so, hands an entry holding the
+ * method, path, route, status, duration and allowlisted headers to the {@link AccessLogger}, which writes it from a
+ * background thread. Nothing is written on the event loop.
+ *
+ * The order of this filter is set to the highest precedence, so the recorded duration covers every other filter.
+ */
+@Component
+public class AccessLogFilter implements GlobalFilter, Ordered {
+
+    /**
+     * Status recorded when the client went away before the response was sent.
+     */
+    private static final int CLIENT_CLOSED_REQUEST = 499;
+
+    @Autowired
+    private AccessLogger accessLogger;
+
+    /**
+     * This method is called for each incoming request. It records the exchange once it completes.
+     *
+     * @param exchange The current server exchange.
+     * @param chain Provides a way to delegate to the next filter.
+     * @return A Mono<Void> that indicates when request processing is complete.
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long timestamp = System.currentTimeMillis();
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> record(exchange, signal, timestamp, start));
+    }
+
+    private void record(ServerWebExchange exchange, SignalType signal, long timestamp, long start) {
+        int status = status(exchange, signal);
+        if (!accessLogger.isSampled(status)) {
+            return;
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        accessLogger.record(new AccessLogEntry(
+                timestamp,
+                request.getMethod().name(),
+                request.getPath().value(),
+                route != null ? route.getId() : null,
+                remoteAddress != null && remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress() : null,
+                status,
+                (System.nanoTime() - start) / 1000,
+                headers(request.getHeaders(), accessLogger.getRequestHeaders()),
+                headers(exchange.getResponse().getHeaders(), accessLogger.getResponseHeaders())));
+    }
+
+    private static int status(ServerWebExchange exchange, SignalType signal) {
+        if (signal == SignalType.CANCEL) {
+            return CLIENT_CLOSED_REQUEST;
+        }
+        HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+        if (statusCode != null) {
+            return statusCode.value();
+        }
+        // The error has not been turned into a response yet
+        return signal == SignalType.ON_ERROR ? 500 : 200;
+    }
+
+    /**
+     * Collects the values of the allowlisted headers present in the given headers, as alternating names and values.
+     */
+    private static String[] headers(HttpHeaders headers, String[] allowlist) {
+        if (allowlist.length == 0) {
+            return null;
+        }
+        String[] values = new String[allowlist.length * 2];
+        int count = 0;
+        for (String name : allowlist) {
+            String value = headers.getFirst(name);
+            if (value != null) {
+                values[count++] = name;
+                values[count++] = value;
+            }
+        }
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    /**
+     * Specifies the order of this filter. The lower the value, the higher the precedence.
+     *
+     * @return The order value. This filter runs before every other filter.
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.filter.globalFilter;
+
+import org.example.IdentityHeaderCodec;
+import org.example.JwtIdentity;
+import org.example.JwtVerifier;
+import org.example.ServerUtil;
+import org.example.TokenRevocationList;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * IdentityPropagationFilter is a global pre-filter that verifies the JWT token of a request once in the API Gateway
+ * and forwards the identity it carries to the downstream services in the internal identity header.
+ *
+ * Any identity header sent by the client is always removed, so only headers issued by the gateway reach the services.
+ * When the identity header is enabled and the request carries a valid JWT cookie which has not been revoked, the
+ * verified identity is stored in the exchange attributes (so the JWTAuthorizationFilter does not verify the token again)
+ * and a signed identity header is added to the request. Requests without a valid token are forwarded unchanged and are
+ * handled downstream as before.
+ *
+ * The order of this filter is set to -10, so it runs before the route filters, including those ordered before the
+ * NettyWriteResponseFilter (e.g. the ResponseCacheFilter) which rely on the verified identity.
+ */
+@Component
+public class IdentityPropagationFilter implements GlobalFilter, Ordered {
+
+    /**
+     * Name of the exchange attribute holding the identity verified by this filter.
+     */
+    public static final String VERIFIED_IDENTITY_ATTRIBUTE = IdentityPropagationFilter.class.getName() + ".verifiedIdentity";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private JwtVerifier jwtVerifier;
+
+    @Autowired
+    private IdentityHeaderCodec identityHeaderCodec;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    /**
+     * This method is called for each incoming request. It strips the client supplied identity header and,
+     * if the JWT token is valid, adds the identity header issued by the gateway.
+     *
+     * @param exchange The current server exchange.
+     * @param chain Provides a way to delegate to the next filter.
+     * @return A Mono<Void> that indicates when request processing is complete.
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String identityHeader = null;
+        if (identityHeaderCodec.isEnabled()) {
+            String JWTToken = ServerUtil.extractCookieFromHttpRequest(request, environment.getProperty("jwt.cookie.name"));
+            if (JWTToken != null) {
+                try {
+                    JwtIdentity identity = jwtVerifier.verifyIdentity(JWTToken);
+                    if (!tokenRevocationList.isRevoked(identity)) {
+                        exchange.getAttributes().put(VERIFIED_IDENTITY_ATTRIBUTE, identity);
+                        identityHeader = identityHeaderCodec.encode(identity);
+                    }
+                } catch (Exception ex) {
+                    // Invalid tokens are left to the JWTAuthorizationFilter and the downstream services to reject
+                }
+            }
+        }
+        if (identityHeader == null && !request.getHeaders().containsKey(IdentityHeaderCodec.HEADER_NAME)) {
+            return chain.filter(exchange);
+        }
+        String value = identityHeader;
+        ServerHttpRequest mutatedRequest = request.mutate()
+                .headers(headers -> {
+                    headers.remove(IdentityHeaderCodec.HEADER_NAME);
+                    if (value != null) {
+                        headers.set(IdentityHeaderCodec.HEADER_NAME, value);
+                    }
+                })
+                .build();
+        // Continue the filter chain with the rewritten request
+        return chain.filter(exchange.mutate().request(mutatedRequest).build());
+    }
+
+    /**
+     * Specifies the order of this filter. The lower the value, the higher the precedence.
+     *
+     * @return The order value. This filter runs before the route filters with an order of -10.
+     */
+    @Override
+    public int getOrder() {
+        return -10;
+    }
+}
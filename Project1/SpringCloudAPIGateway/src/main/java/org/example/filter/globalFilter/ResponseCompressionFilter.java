@@ -0,0 +1,86 @@
+package org.example.filter.globalFilter;
+
+import org.example.compression.ResponseCompressor;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ResponseCompressionFilter is a global filter compressing the responses of the API Gateway with the gzip or deflate
+ * content encoding accepted by the client (see {@link ResponseCompressor}).
+ *
+ * Only responses of a compressible media type, which are not encoded yet and reach the minimum size, are compressed.
+ * Such responses are marked with {@code Vary: Accept-Encoding} whether they are compressed or not, so caches between
+ * the gateway and the client keep the encodings apart.
+ *
+ * The order of this filter is set to -5, so it wraps the route filters which write the response themselves (e.g. the
+ * ResponseCacheFilter) and every response goes through it, while the response cache keeps the uncompressed bodies.
+ */
+@Component
+public class ResponseCompressionFilter implements GlobalFilter, Ordered {
+
+    @Autowired
+    private ResponseCompressor responseCompressor;
+
+    /**
+     * This method is called for each incoming request. It decorates the response so its body is compressed as it
+     * is written.
+     *
+     * @param exchange The current server exchange.
+     * @param chain Provides a way to delegate to the next filter.
+     * @return A Mono<Void> that indicates when request processing is complete.
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!responseCompressor.isEnabled() || exchange.getRequest().getMethod() == HttpMethod.HEAD) {
+            return chain.filter(exchange);
+        }
+        String encoding = responseCompressor.negotiate(exchange.getRequest().getHeaders());
+        ServerHttpResponse response = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                HttpHeaders headers = getHeaders();
+                if (!responseCompressor.isCompressibleType(headers)) {
+                    return super.writeWith(body);
+                }
+                if (!headers.getVary().contains(HttpHeaders.ACCEPT_ENCODING)) {
+                    headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                }
+                if (encoding == null || !hasBody(getStatusCode()) || !responseCompressor.isCompressible(headers)) {
+                    return super.writeWith(body);
+                }
+                return super.writeWith(responseCompressor.compress(Flux.from(body), encoding, headers, bufferFactory()));
+            }
+        };
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+
+    private static boolean hasBody(HttpStatusCode status) {
+        return status == null || (status.value() != HttpStatus.NO_CONTENT.value()
+                && status.value() != HttpStatus.NOT_MODIFIED.value()
+                && status.value() != HttpStatus.PARTIAL_CONTENT.value());
+    }
+
+    /**
+     * Specifies the order of this filter. The lower the value, the higher the precedence.
+     *
+     * @return The order value. This filter runs before the route filters with an order of -5.
+     */
+    @Override
+    public int getOrder() {
+        return -5;
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.filter.globalFilter;
+
+import org.example.capture.CapturedRequest;
+import org.example.capture.TrafficCapture;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TrafficCaptureFilter is a global filter that hands a sample of the incoming requests to the {@link TrafficCapture},
+ * which appends them to a capture file for later replay.
+ *
+ * Whether a request is captured is decided when it arrives. The body of a captured request is copied while it is
+ * forwarded, up to the maximum body size, so the body is never buffered before being sent upstream. A body which is
+ * too large, or which was not read in full (e.g. the response came from the cache), is left out and flagged in the
+ * capture file. The request is recorded once the exchange completes. Nothing is written on the event loop.
+ *
+ * The order of this filter is set right after the AccessLogFilter, so the requests are captured as sent by the
+ * clients, before any filter rewrites them.
+ */
+@Component
+public class TrafficCaptureFilter implements GlobalFilter, Ordered {
+
+    @Autowired
+    private TrafficCapture trafficCapture;
+
+    /**
+     * This method is called for each incoming request. If the request is sampled, its body is copied as it is read
+     * and the request is recorded once the exchange completes.
+     *
+     * @param exchange The current server exchange.
+     * @param chain Provides a way to delegate to the next filter.
+     * @return A Mono<Void> that indicates when request processing is complete.
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!trafficCapture.isSampled()) {
+            return chain.filter(exchange);
+        }
+        long timestampMicros = trafficCapture.currentTimeMicros();
+        ServerHttpRequest request = exchange.getRequest();
+        HttpHeaders headers = request.getHeaders();
+        // Taken now, as the filters downstream may rewrite the headers
+        String[] capturedHeaders = headers(headers, trafficCapture.getHeaders());
+        boolean hasBody = headers.getContentLength() > 0 || headers.containsKey(HttpHeaders.TRANSFER_ENCODING);
+        BodyCopy body = new BodyCopy(trafficCapture.getMaxBodyBytes(), hasBody);
+        ServerHttpRequest capturingRequest = new ServerHttpRequestDecorator(request) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return super.getBody().doOnNext(body::append).doOnComplete(body::complete);
+            }
+        };
+        return chain.filter(exchange.mutate().request(capturingRequest).build())
+                .doFinally(signal -> trafficCapture.record(new CapturedRequest(
+                        timestampMicros,
+                        request.getMethod().name(),
+                        request.getURI().getRawQuery() != null
+                                ? request.getURI().getRawPath() + "?" + request.getURI().getRawQuery()
+                                : request.getURI().getRawPath(),
+                        capturedHeaders,
+                        body.toByteArray(),
+                        body.isTruncated())));
+    }
+
+    /**
+     * Collects every value of the allowlisted headers present in the given headers, as alternating names and values.
+     */
+    private static String[] headers(HttpHeaders headers, String[] allowlist) {
+        List<String> values = new ArrayList<>();
+        for (String name : allowlist) {
+            List<String> headerValues = headers.get(name);
+            if (headerValues != null) {
+                for (String value : headerValues) {
+                    values.add(name);
+                    values.add(value);
+                }
+            }
+        }
+        return values.toArray(new String[0]);
+    }
+
+    /**
+     * Copy of a request body, kept up to the maximum body size.
+     */
+    private static final class BodyCopy {
+        private final int maxBytes;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private boolean complete;
+        private boolean overflow;
+
+        private BodyCopy(int maxBytes, boolean hasBody) {
+            this.maxBytes = maxBytes;
+            this.complete = !hasBody;
+        }
+
+        private synchronized void append(DataBuffer buffer) {
+            int length = buffer.readableByteCount();
+            if (overflow || bytes.size() + length > maxBytes) {
+                overflow = true;
+                return;
+            }
+            byte[] chunk = new byte[length];
+            // Read at the current position without moving it, so the buffer is forwarded unchanged
+            int position = buffer.readPosition();
+            buffer.read(chunk);
+            buffer.readPosition(position);
+            bytes.write(chunk, 0, length);
+        }
+
+        private synchronized void complete() {
+            complete = true;
+        }
+
+        private synchronized boolean isTruncated() {
+            return overflow || !complete;
+        }
+
+        private synchronized byte[] toByteArray() {
+            return isTruncated() ? new byte[0] : bytes.toByteArray();
+        }
+    }
+
+    /**
+     * Specifies the order of this filter. The lower the value, the higher the precedence.
+     *
+     * @return The order value. This filter runs right after the AccessLogFilter.
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
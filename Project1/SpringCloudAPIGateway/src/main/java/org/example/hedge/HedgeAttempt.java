@@ -0,0 +1,125 @@
+package org.example.hedge;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.AbstractServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One attempt of a hedged request: a view of the exchange with attributes and a response of its own, so several
+ * attempts can go through the routing filters at the same time without seeing each other.
+ *
+ * The attributes start as a copy of those of the exchange, and the response headers as a copy of those set so far.
+ * The response is buffered in memory rather than sent, until the attempt answering first is copied to the exchange.
+ */
+public class HedgeAttempt extends ServerWebExchangeDecorator {
+
+    private final Map<String, Object> attributes;
+    private final BufferedResponse response;
+
+    /**
+     * Creates an attempt of an exchange.
+     *
+     * @param exchange The exchange being hedged.
+     */
+    public HedgeAttempt(ServerWebExchange exchange) {
+        super(exchange);
+        this.attributes = new ConcurrentHashMap<>(exchange.getAttributes());
+        this.response = new BufferedResponse(exchange.getResponse());
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public ServerHttpResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * Copies the response of this attempt, along with the attributes set by the routing filters, to the exchange.
+     *
+     * @param exchange The exchange being hedged.
+     * @return A Mono completing once the response is written.
+     */
+    public Mono<Void> writeTo(ServerWebExchange exchange) {
+        exchange.getAttributes().putAll(attributes);
+        ServerHttpResponse target = exchange.getResponse();
+        if (response.getStatusCode() != null) {
+            target.setStatusCode(response.getStatusCode());
+        }
+        HttpHeaders headers = target.getHeaders();
+        response.getHeaders().forEach((name, values) -> {
+            if (!name.equalsIgnoreCase(HttpHeaders.TRANSFER_ENCODING) && !name.equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH)) {
+                headers.put(name, values);
+            }
+        });
+        response.getCookies().values().forEach(cookies -> cookies.forEach(target::addCookie));
+        byte[] body = response.body;
+        if (body == null) {
+            return target.setComplete();
+        }
+        headers.setContentLength(body.length);
+        return target.writeWith(Mono.just(target.bufferFactory().wrap(body)));
+    }
+
+    /**
+     * Response buffering its body in memory.
+     */
+    private static final class BufferedResponse extends AbstractServerHttpResponse {
+        private byte[] body;
+
+        private BufferedResponse(ServerHttpResponse response) {
+            super(response.bufferFactory(), copy(response.getHeaders()));
+        }
+
+        private static HttpHeaders copy(HttpHeaders headers) {
+            HttpHeaders copy = new HttpHeaders();
+            copy.addAll(headers);
+            return copy;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T getNativeResponse() {
+            return (T) this;
+        }
+
+        @Override
+        protected Mono<Void> writeWithInternal(Publisher<? extends DataBuffer> body) {
+            return DataBufferUtils.join(Flux.from(body)).doOnNext(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+                this.body = bytes;
+            }).then();
+        }
+
+        @Override
+        protected Mono<Void> writeAndFlushWithInternal(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWithInternal(Flux.from(body).concatMap(chunk -> chunk));
+        }
+
+        @Override
+        protected void applyStatusCode() {
+        }
+
+        @Override
+        protected void applyHeaders() {
+        }
+
+        @Override
+        protected void applyCookies() {
+        }
+    }
+}
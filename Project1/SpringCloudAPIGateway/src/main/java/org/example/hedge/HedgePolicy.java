@@ -0,0 +1,146 @@
+package org.example.hedge;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when and how often the requests of a route are hedged, i.e. sent a second time to another instance while
+ * the first attempt is still pending.
+ *
+ * A request is hedged once its first attempt has been pending for longer than the configured percentile of the
+ * latencies of the first attempts, so only the slowest requests are hedged. The percentile is recomputed from the
+ * latencies recorded since the last computation, once enough of them have been recorded.
+ *
+ * Hedges are paid for from a budget: every request adds a fraction of a hedge to it, and every hedge takes a whole
+ * one, so hedges can never add more than that fraction to the load of the downstream service, even while all of its
+ * instances are slow.
+ *
+ * The numbers of hedged requests, of hedges answering first and of hedges denied by the budget are published through
+ * Micrometer under the {@code gateway.hedging.requests} name, tagged with the route and the outcome.
+ */
+public class HedgePolicy {
+
+    private static final long MILLI = 1000;
+    private static final long MAX_BUDGET_HEDGES = 10;
+    private static final long REFRESH_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final int minSamples;
+    private final Recorder recorder = new Recorder(2, true);
+    private final Histogram window;
+    private Histogram interval;
+    private volatile long delayNanos;
+    private final AtomicLong nextRefresh;
+
+    private final long depositPerRequest;
+    private final AtomicLong balance;
+
+    private final Counter hedged;
+    private final Counter won;
+    private final Counter denied;
+
+    /**
+     * Creates a policy.
+     *
+     * @param route The route the policy applies to.
+     * @param percentile The percentile of the first attempt latencies after which a request is hedged, e.g. 95.
+     * @param initialDelayMillis The delay before hedging until enough latencies have been recorded.
+     * @param minDelayMillis The shortest delay before hedging.
+     * @param budgetPercent The maximum number of hedges, in percent of the requests.
+     * @param meterRegistry The registry the hedging counters are registered in.
+     */
+    public HedgePolicy(String route, double percentile, long initialDelayMillis, long minDelayMillis, double budgetPercent,
+                       MeterRegistry meterRegistry) {
+        this.percentile = percentile;
+        this.minDelayNanos = Math.max(0, minDelayMillis) * 1_000_000L;
+        this.minSamples = (int) Math.ceil(100 / Math.max(0.01, 100 - percentile));
+        this.window = new Histogram(2);
+        this.window.setAutoResize(true);
+        this.delayNanos = Math.max(minDelayNanos, initialDelayMillis * 1_000_000L);
+        this.nextRefresh = new AtomicLong(System.nanoTime() + REFRESH_INTERVAL_NANOS);
+        this.depositPerRequest = Math.round(budgetPercent / 100 * MILLI);
+        this.balance = new AtomicLong(MAX_BUDGET_HEDGES * MILLI);
+        this.hedged = counter(meterRegistry, route, "hedged", "Number of requests sent a second time to another instance");
+        this.won = counter(meterRegistry, route, "won", "Number of hedged requests answered first by the second attempt");
+        this.denied = counter(meterRegistry, route, "denied", "Number of requests which were not hedged as the hedge budget was spent");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String route, String outcome, String description) {
+        return Counter.builder("gateway.hedging.requests")
+                .description(description)
+                .tag("route", route)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the time after which a pending first attempt is hedged, and adds the share of the request to the budget.
+     *
+     * @param now The current time, as returned by {@link System#nanoTime()}.
+     * @return The delay in nanoseconds.
+     */
+    public long onRequest(long now) {
+        long current = balance.get();
+        long max = MAX_BUDGET_HEDGES * MILLI;
+        while (current < max && !balance.compareAndSet(current, Math.min(max, current + depositPerRequest))) {
+            current = balance.get();
+        }
+        long refresh = nextRefresh.get();
+        if (now - refresh >= 0 && nextRefresh.compareAndSet(refresh, now + REFRESH_INTERVAL_NANOS)) {
+            refresh();
+        }
+        return delayNanos;
+    }
+
+    /**
+     * Takes a hedge from the budget.
+     *
+     * @return true if the request can be hedged, false if the budget is spent.
+     */
+    public boolean tryHedge() {
+        while (true) {
+            long current = balance.get();
+            if (current < MILLI) {
+                denied.increment();
+                return false;
+            }
+            if (balance.compareAndSet(current, current - MILLI)) {
+                hedged.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Records the latency of a first attempt which was answered.
+     *
+     * @param nanos The time the first attempt took.
+     */
+    public void recordFirstAttempt(long nanos) {
+        recorder.recordValue(Math.max(1, nanos / 1000));
+    }
+
+    /**
+     * Records that the hedge of a request answered before its first attempt.
+     */
+    public void recordHedgeWon() {
+        won.increment();
+    }
+
+    public long getDelayNanos() {
+        return delayNanos;
+    }
+
+    private synchronized void refresh() {
+        interval = recorder.getIntervalHistogram(interval);
+        window.add(interval);
+        if (window.getTotalCount() >= minSamples) {
+            delayNanos = Math.max(minDelayNanos, window.getValueAtPercentile(percentile) * 1000);
+            window.reset();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.latency;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import java.util.Map;
+
+/**
+ * Actuator endpoint exposing the latency histograms of the API Gateway.
+ *
+ * A GET on {@code /monitor/latency} returns the p50, p99 and p99.9 latencies of every route, filter and upstream
+ * instance over the current and the previous time window, and a DELETE resets them.
+ */
+@Endpoint(id = "latency")
+public class LatencyEndpoint {
+
+    private final LatencyRecorder latencyRecorder;
+
+    public LatencyEndpoint(LatencyRecorder latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    /**
+     * Returns the latency percentiles of the current and previous time windows.
+     *
+     * @return The windows, each holding the percentiles by category, group and name.
+     */
+    @ReadOperation
+    public Map<String, Object> latency() {
+        return latencyRecorder.snapshot();
+    }
+
+    /**
+     * Discards the recorded latencies and starts a new time window.
+     */
+    @DeleteOperation
+    public void reset() {
+        latencyRecorder.reset();
+    }
+}
@@ -0,0 +1,222 @@
+package org.example.latency;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms of the API Gateway, kept per route, per filter and per upstream instance.
+ *
+ * Each series is backed by an HdrHistogram {@link Recorder}, so recording a value on the event loop is wait-free and
+ * does not allocate. Recorded values are moved into the histogram of the current time window when the histograms are
+ * read. Once a window is older than the configured window length it becomes the previous window and a new one starts,
+ * so the reported percentiles always describe recent traffic; both windows can also be reset on demand.
+ *
+ * Values are tracked with a precision of two significant digits from 1 microsecond to 5 minutes. The histograms grow
+ * with the range of the values actually recorded, so idle series stay small.
+ */
+public class LatencyRecorder {
+
+    /**
+     * Kind of a latency series.
+     */
+    public enum Category {
+        /**
+         * Time taken to handle a request matched to a route, from the first to the last filter.
+         */
+        ROUTE,
+        /**
+         * Time spent in a filter before it hands the request over to the next filter, or completes it.
+         */
+        FILTER,
+        /**
+         * Time taken by an upstream instance to answer a request forwarded to it.
+         */
+        UPSTREAM
+    }
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final int MAX_SERIES = 512;
+
+    private final long windowMillis;
+    private final Map<SeriesKey, Series> series = new ConcurrentHashMap<>();
+    private Window current;
+    private Window previous;
+
+    /**
+     * Creates an empty recorder.
+     *
+     * @param windowMillis The length of a time window in milliseconds.
+     */
+    public LatencyRecorder(long windowMillis) {
+        this.windowMillis = windowMillis;
+        this.current = new Window(System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the series of the given category, group and name, creating it if needed.
+     *
+     * Callers on the request path should keep the series they record into instead of looking it up on every request.
+     *
+     * @param category The category of the series.
+     * @param group The group of the series, e.g. the route ID.
+     * @param name The name of the series, e.g. the filter name or the upstream instance.
+     * @return The series, or null if the maximum number of series has been reached.
+     */
+    public Series series(Category category, String group, String name) {
+        SeriesKey key = new SeriesKey(category, group, name);
+        Series existing = series.get(key);
+        if (existing != null || series.size() >= MAX_SERIES) {
+            return existing;
+        }
+        return series.computeIfAbsent(key, Series::new);
+    }
+
+    /**
+     * Moves the recorded values into the current window, rolling the windows over if the current one has expired,
+     * and returns the percentiles of both windows.
+     *
+     * @return The current and previous windows, each holding the percentiles of every series grouped by category,
+     * group and name.
+     */
+    public synchronized Map<String, Object> snapshot() {
+        long now = System.currentTimeMillis();
+        for (Series s : series.values()) {
+            Histogram interval = s.recorder.getIntervalHistogram();
+            current.histogram(s.key).add(interval);
+        }
+        if (now - current.start >= windowMillis) {
+            current.end = now;
+            previous = current;
+            current = new Window(now);
+        }
+        Map<String, Object> snapshot = new TreeMap<>();
+        snapshot.put("windowSeconds", TimeUnit.MILLISECONDS.toSeconds(windowMillis));
+        snapshot.put("current", current.toMap(now));
+        if (previous != null) {
+            snapshot.put("previous", previous.toMap(previous.end));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Discards every recorded value and starts a new window.
+     */
+    public synchronized void reset() {
+        for (Series s : series.values()) {
+            s.recorder.reset();
+        }
+        previous = null;
+        current = new Window(System.currentTimeMillis());
+    }
+
+    /**
+     * A single latency series, recorded into from any thread.
+     */
+    public static final class Series {
+        private final SeriesKey key;
+        private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS, true);
+
+        private Series(SeriesKey key) {
+            this.key = key;
+        }
+
+        /**
+         * Records a latency.
+         *
+         * @param nanos The latency in nanoseconds.
+         */
+        public void record(long nanos) {
+            long micros = Math.max(1, Math.min(HIGHEST_TRACKABLE_MICROS, nanos / 1000));
+            recorder.recordValue(micros);
+        }
+    }
+
+    /**
+     * Identifies a series by its category, group and name.
+     */
+    private static final class SeriesKey {
+        private final Category category;
+        private final String group;
+        private final String name;
+
+        private SeriesKey(Category category, String group, String name) {
+            this.category = category;
+            this.group = group;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SeriesKey)) {
+                return false;
+            }
+            SeriesKey other = (SeriesKey) o;
+            return category == other.category && group.equals(other.group) && name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(category, group, name);
+        }
+    }
+
+    /**
+     * Histograms accumulated over one time window.
+     */
+    private static final class Window {
+        private final long start;
+        private long end;
+        private final Map<SeriesKey, Histogram> histograms = new ConcurrentHashMap<>();
+
+        private Window(long start) {
+            this.start = start;
+        }
+
+        private Histogram histogram(SeriesKey key) {
+            return histograms.computeIfAbsent(key, k -> new Histogram(SIGNIFICANT_DIGITS));
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<String, Object> toMap(long end) {
+            Map<String, Object> window = new TreeMap<>();
+            window.put("start", start);
+            window.put("end", end);
+            for (Map.Entry<SeriesKey, Histogram> entry : histograms.entrySet()) {
+                Histogram histogram = entry.getValue();
+                if (histogram.getTotalCount() == 0) {
+                    continue;
+                }
+                SeriesKey key = entry.getKey();
+                Map<String, Object> groups = (Map<String, Object>) window.computeIfAbsent(
+                        key.category.name().toLowerCase() + "s", k -> new TreeMap<String, Object>());
+                Map<String, Object> names = (Map<String, Object>) groups.computeIfAbsent(key.group, k -> new TreeMap<String, Object>());
+                names.put(key.name, percentiles(histogram));
+            }
+            return window;
+        }
+
+        private static Map<String, Object> percentiles(Histogram histogram) {
+            Map<String, Object> percentiles = new TreeMap<>();
+            percentiles.put("count", histogram.getTotalCount());
+            percentiles.put("meanMs", millis(histogram.getMean()));
+            percentiles.put("p50Ms", millis(histogram.getValueAtPercentile(50.0)));
+            percentiles.put("p99Ms", millis(histogram.getValueAtPercentile(99.0)));
+            percentiles.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+            percentiles.put("maxMs", millis(histogram.getMaxValue()));
+            return percentiles;
+        }
+
+        private static double millis(double micros) {
+            return Math.round(micros) / 1000.0;
+        }
+    }
+}
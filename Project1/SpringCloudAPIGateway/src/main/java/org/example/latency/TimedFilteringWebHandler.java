@@ -0,0 +1,164 @@
+package org.example.latency;
+
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.WebClientHttpRoutingFilter;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * FilteringWebHandler recording the latency of every route, filter and upstream instance into a {@link LatencyRecorder}.
+ *
+ * It replaces the default handler of Spring Cloud Gateway. The global filters are decorated with a
+ * {@link TimedGatewayFilter} once, and the filters of each route the first time the route is used; the decorated
+ * routes are cached until the routes are refreshed. The chain itself is built and sorted by the default handler, so
+ * the filters run exactly as without the instrumentation.
+ *
+ * Global filters are recorded under the group {@value #GLOBAL_GROUP}, route filters under the ID of their route.
+ */
+public class TimedFilteringWebHandler extends FilteringWebHandler implements ApplicationListener<RefreshRoutesEvent> {
+
+    /**
+     * Group of the global filter series.
+     */
+    public static final String GLOBAL_GROUP = "global";
+
+    private static final int MAX_CACHED_ROUTES = 256;
+
+    private final LatencyRecorder latencyRecorder;
+    private final Map<String, TimedRoute> timedRoutes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the handler.
+     *
+     * @param globalFilters The global filters, in the order they were injected.
+     * @param globalFilterNames The names of the global filters, e.g. their bean names, by filter.
+     * @param latencyRecorder The recorder the latencies are recorded into.
+     */
+    public TimedFilteringWebHandler(List<GlobalFilter> globalFilters, Map<GlobalFilter, String> globalFilterNames,
+                                    LatencyRecorder latencyRecorder) {
+        super(timeGlobalFilters(globalFilters, globalFilterNames, latencyRecorder));
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    /**
+     * Runs the filter chain of the route matched to the exchange, recording the time taken by the whole chain.
+     *
+     * @param exchange The current server exchange.
+     * @return A Mono<Void> that indicates when request processing is complete.
+     */
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return super.handle(exchange);
+        }
+        // Routes are looked up by identity, hashing a route would hash all of its filters and predicates
+        TimedRoute timedRoute = timedRoutes.get(route.getId());
+        if (timedRoute == null || timedRoute.original != route) {
+            timedRoute = new TimedRoute(route, timeRoute(route));
+            if (timedRoutes.size() < MAX_CACHED_ROUTES) {
+                timedRoutes.put(route.getId(), timedRoute);
+            }
+        }
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, timedRoute.timed);
+        LatencyRecorder.Series series = latencyRecorder.series(LatencyRecorder.Category.ROUTE, route.getId(), "total");
+        if (series == null) {
+            return super.handle(exchange);
+        }
+        long start = System.nanoTime();
+        return super.handle(exchange).doFinally(signal -> series.record(System.nanoTime() - start));
+    }
+
+    /**
+     * Drops the decorated routes once the routes have been refreshed.
+     *
+     * @param event The event signalling the refresh.
+     */
+    @Override
+    public void onApplicationEvent(RefreshRoutesEvent event) {
+        timedRoutes.clear();
+    }
+
+    /**
+     * Copies a route with each of its filters decorated with a {@link TimedGatewayFilter}.
+     */
+    private Route timeRoute(Route route) {
+        List<GatewayFilter> filters = new ArrayList<>(route.getFilters().size());
+        for (GatewayFilter filter : route.getFilters()) {
+            if (filter instanceof TimedGatewayFilter) {
+                filters.add(filter);
+                continue;
+            }
+            int order = filter instanceof Ordered ? ((Ordered) filter).getOrder() : Ordered.LOWEST_PRECEDENCE;
+            LatencyRecorder.Series series = latencyRecorder.series(LatencyRecorder.Category.FILTER, route.getId(), filterName(filter));
+            filters.add(new TimedGatewayFilter(filter, order, series, null));
+        }
+        return Route.async()
+                .id(route.getId())
+                .uri(route.getUri())
+                .order(route.getOrder())
+                .asyncPredicate(route.getPredicate())
+                .replaceFilters(filters)
+                .replaceMetadata(route.getMetadata())
+                .build();
+    }
+
+    private static List<GlobalFilter> timeGlobalFilters(List<GlobalFilter> globalFilters, Map<GlobalFilter, String> names,
+                                                        LatencyRecorder latencyRecorder) {
+        List<GlobalFilter> timed = new ArrayList<>(globalFilters.size());
+        for (GlobalFilter filter : globalFilters) {
+            // Filters which are not Ordered are sorted as the lowest precedence by the default handler as well
+            int order = filter instanceof Ordered ? ((Ordered) filter).getOrder() : Ordered.LOWEST_PRECEDENCE;
+            String name = names.getOrDefault(filter, filterName(filter));
+            boolean routing = filter instanceof NettyRoutingFilter || filter instanceof WebClientHttpRoutingFilter;
+            timed.add(new TimedGatewayFilter(filter::filter, order,
+                    latencyRecorder.series(LatencyRecorder.Category.FILTER, GLOBAL_GROUP, name),
+                    routing ? latencyRecorder : null));
+        }
+        return timed;
+    }
+
+    /**
+     * Returns a readable name of a filter: the description of the filters created by the gateway filter factories
+     * (e.g. {@code [AddRequestHeader scope = 'test']}), or the name of the class declaring the filter otherwise.
+     */
+    private static String filterName(Object filter) {
+        if (filter instanceof OrderedGatewayFilter) {
+            filter = ((OrderedGatewayFilter) filter).getDelegate();
+        }
+        String name = filter.toString();
+        String className = filter.getClass().getName();
+        if (name.startsWith(className + "@") || name.contains("$$Lambda")) {
+            int lambda = className.indexOf("$$Lambda");
+            String declaringClass = lambda >= 0 ? className.substring(0, lambda) : className;
+            return declaringClass.substring(declaringClass.lastIndexOf('.') + 1);
+        }
+        return name;
+    }
+
+    /**
+     * A route along with its copy holding the decorated filters.
+     */
+    private static final class TimedRoute {
+        private final Route original;
+        private final Route timed;
+
+        private TimedRoute(Route original, Route timed) {
+            this.original = original;
+            this.timed = timed;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.latency;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import java.net.URI;
+
+/**
+ * Decorates a gateway filter to record the time spent in it into a {@link LatencyRecorder.Series}.
+ *
+ * The time of a filter runs from the moment it is invoked until the next filter of the chain is subscribed to, which
+ * covers any asynchronous work it does first (e.g. choosing a load balanced instance), or until the filter completes
+ * when it answers the request itself (e.g. an authorization filter rejecting it). The time spent in the rest of the
+ * chain is not included.
+ *
+ * The filter forwarding the request to the upstream service only hands over once the upstream response has been
+ * received, so its time is also recorded per upstream instance.
+ *
+ * The decorator keeps the order of the filter it decorates, so the filter chain is sorted exactly as without it.
+ */
+class TimedGatewayFilter implements GatewayFilter, GlobalFilter, Ordered {
+
+    private final GatewayFilter delegate;
+    private final int order;
+    private final LatencyRecorder.Series series;
+    private final LatencyRecorder upstreamRecorder;
+
+    /**
+     * Creates a timed filter.
+     *
+     * @param delegate The filter to time.
+     * @param order The order of the filter.
+     * @param series The series to record the time of the filter into, or null to not record it.
+     * @param upstreamRecorder The recorder of the upstream instances if the filter forwards requests upstream, null otherwise.
+     */
+    TimedGatewayFilter(GatewayFilter delegate, int order, LatencyRecorder.Series series, LatencyRecorder upstreamRecorder) {
+        this.delegate = delegate;
+        this.order = order;
+        this.series = series;
+        this.upstreamRecorder = upstreamRecorder;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (series == null && upstreamRecorder == null) {
+            return delegate.filter(exchange, chain);
+        }
+        Timing timing = new Timing(exchange);
+        return delegate.filter(exchange, next -> Mono.defer(() -> {
+                    timing.stop();
+                    return chain.filter(next);
+                }))
+                .doFinally(signal -> timing.stop());
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+    /**
+     * Time spent in the filter by one exchange.
+     */
+    private final class Timing {
+        private final ServerWebExchange exchange;
+        private final long start = System.nanoTime();
+        private volatile boolean stopped;
+
+        private Timing(ServerWebExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        private void stop() {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            long elapsed = System.nanoTime() - start;
+            if (series != null) {
+                series.record(elapsed);
+            }
+            if (upstreamRecorder != null) {
+                recordUpstream(elapsed);
+            }
+        }
+
+        private void recordUpstream(long elapsed) {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            URI requestUrl = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+            if (route == null || requestUrl == null || requestUrl.getHost() == null) {
+                return;
+            }
+            LatencyRecorder.Series upstream = upstreamRecorder.series(LatencyRecorder.Category.UPSTREAM,
+                    route.getId(), requestUrl.getHost() + ":" + requestUrl.getPort());
+            if (upstream != null) {
+                upstream.record(elapsed);
+            }
+        }
+    }
+}
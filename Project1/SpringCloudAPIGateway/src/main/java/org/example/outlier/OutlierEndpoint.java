@@ -0,0 +1,41 @@
+package org.example.outlier;
+
+import org.example.OutlierDetector;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import java.util.Map;
+
+/**
+ * Actuator endpoint exposing the instances ejected by the outlier detection of the API Gateway.
+ *
+ * A GET on {@code /monitor/outliers} returns, for every upstream instance, whether it is ejected and for how long,
+ * its ejection count and its error counts over the current interval, and a DELETE brings every instance back.
+ */
+@Endpoint(id = "outliers")
+public class OutlierEndpoint {
+
+    private final OutlierDetector outlierDetector;
+
+    public OutlierEndpoint(OutlierDetector outlierDetector) {
+        this.outlierDetector = outlierDetector;
+    }
+
+    /**
+     * Returns the outlier detection state of the upstream instances.
+     *
+     * @return The state of the instances by service and address.
+     */
+    @ReadOperation
+    public Map<String, Object> outliers() {
+        return outlierDetector.snapshot();
+    }
+
+    /**
+     * Brings every ejected instance back and discards the recorded errors.
+     */
+    @DeleteOperation
+    public void reset() {
+        outlierDetector.reset();
+    }
+}
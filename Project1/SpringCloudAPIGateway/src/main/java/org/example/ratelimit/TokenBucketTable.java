@@ -0,0 +1,133 @@
+package org.example.ratelimit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Table of token buckets, one per key (e.g. per user), refilled at a fixed rate up to a maximum burst.
+ *
+ * Buckets are refilled lazily: instead of a token count, each bucket holds the time at which it would be full again,
+ * from which the tokens available at any time follow. Taking tokens is a single compare-and-set on that time, so
+ * requests never lock, and buckets are never touched between requests.
+ *
+ * A bucket which has been full for longer than the idle timeout is indistinguishable from a new one and is dropped.
+ * The table is split into stripes which are swept for idle buckets in turn, by the request which finds the sweep of
+ * its stripe due, so no background thread is needed and no request pays for sweeping more than one stripe.
+ */
+public class TokenBucketTable {
+
+    private static final AtomicLongFieldUpdater<Bucket> FULL_AT = AtomicLongFieldUpdater.newUpdater(Bucket.class, "fullAt");
+    private static final AtomicLongFieldUpdater<Stripe> NEXT_SWEEP = AtomicLongFieldUpdater.newUpdater(Stripe.class, "nextSweep");
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final long idleNanos;
+    private final Stripe[] stripes;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param replenishRate The number of tokens added to a bucket per second.
+     * @param burstCapacity The maximum number of tokens a bucket holds.
+     * @param idleTimeoutMillis The time after which a full bucket is dropped.
+     * @param stripeCount The number of stripes, rounded up to a power of two.
+     */
+    public TokenBucketTable(double replenishRate, int burstCapacity, long idleTimeoutMillis, int stripeCount) {
+        if (replenishRate <= 0 || burstCapacity <= 0) {
+            throw new IllegalArgumentException("Replenish rate and burst capacity must be positive");
+        }
+        this.nanosPerToken = Math.max(1, (long) (1_000_000_000L / replenishRate));
+        this.burstNanos = nanosPerToken * burstCapacity;
+        this.idleNanos = Math.max(1, idleTimeoutMillis) * 1_000_000L;
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit((stripeCount - 1) << 1);
+        this.stripes = new Stripe[size];
+        long now = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            // Stagger the sweeps, so the stripes are not all swept at the same time
+            stripes[i] = new Stripe(now + idleNanos + i * (idleNanos / size));
+        }
+    }
+
+    /**
+     * Takes tokens from the bucket of a key.
+     *
+     * @param key The key of the bucket.
+     * @param tokens The number of tokens to take.
+     * @param now The current time, as returned by {@link System#nanoTime()}.
+     * @return If the tokens were taken, the number of tokens left in the bucket (zero or more). Otherwise, the negated
+     * time in nanoseconds until enough tokens are available.
+     */
+    public long tryAcquire(String key, int tokens, long now) {
+        int hash = key.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+        Bucket bucket = stripe.buckets.get(key);
+        if (bucket == null) {
+            bucket = stripe.buckets.computeIfAbsent(key, k -> new Bucket(now));
+        }
+        long cost = tokens * nanosPerToken;
+        long result;
+        while (true) {
+            long fullAt = bucket.fullAt;
+            long newFullAt = Math.max(fullAt, now) + cost;
+            long wait = newFullAt - now - burstNanos;
+            if (wait > 0) {
+                result = -wait;
+                break;
+            }
+            if (FULL_AT.compareAndSet(bucket, fullAt, newFullAt)) {
+                result = (burstNanos - (newFullAt - now)) / nanosPerToken;
+                break;
+            }
+        }
+        long nextSweep = stripe.nextSweep;
+        if (now - nextSweep >= 0 && NEXT_SWEEP.compareAndSet(stripe, nextSweep, now + idleNanos)) {
+            sweep(stripe, now);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of buckets currently held.
+     *
+     * @return The number of buckets.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.buckets.size();
+        }
+        return size;
+    }
+
+    /**
+     * Drops the buckets of a stripe which have been full for longer than the idle timeout.
+     * A request racing with the removal of its bucket may see its tokens refunded, which is harmless.
+     */
+    private void sweep(Stripe stripe, long now) {
+        Iterator<Bucket> iterator = stripe.buckets.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().fullAt > idleNanos) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private volatile long fullAt;
+
+        private Bucket(long fullAt) {
+            this.fullAt = fullAt;
+        }
+    }
+
+    private static final class Stripe {
+        private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+        private volatile long nextSweep;
+
+        private Stripe(long nextSweep) {
+            this.nextSweep = nextSweep;
+        }
+    }
+}
@@ -87,6 +87,7 @@ public class SecurityConfig {
         configureCSRF(http);
         configureExceptionHandling(http);
         configureFilters(http);
+        configureAdminPermissions(http);
         configureAuthorization(http);
         configurePermitAllPermissions(http);
         configureAuthenticationType(http);
@@ -243,6 +244,22 @@ public class SecurityConfig {
                 .anyRequest().permitAll();
     }
 
+    /**
+     * Configures authorization rules for administrative endpoints which are not backed by a permission in the database.
+     *
+     * The endpoint revoking every JWT token of a user is restricted to the administrator role. The rule is registered
+     * before the permission rules and the permit all fallback, so it always takes precedence and anonymous callers are
+     * rejected with {@link HttpStatus#UNAUTHORIZED}.
+     *
+     * @param http the {@link HttpSecurity} object to configure
+     * @throws Exception if an error occurs during configuration
+     */
+    private void configureAdminPermissions(HttpSecurity http) throws Exception {
+        http
+                .authorizeRequests()
+                .requestMatchers(environment.getProperty("revoke.url")).hasRole(environment.getProperty("admin.role"));
+    }
+
     /**
      * Configures authorization rules based on permissions and authorities.
      *
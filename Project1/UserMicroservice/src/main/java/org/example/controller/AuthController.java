@@ -3,15 +3,21 @@ package org.example.controller;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.JwtIdentity;
+import org.example.exception.InvalidTokenException;
 import org.example.exception.InvalidUsernameOrPasswordException;
 import org.example.model.UtbUser;
 import org.example.dto.ErrorResponseDTO;
 import org.example.dto.SuccessResponseDTO;
 import org.example.dto.UserDTO;
+import org.example.service.TokenRevocationServices;
 import org.example.service.UserServices;
 import org.example.utility.DTOMapperUtil;
 import org.example.utility.ResponseUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -19,7 +25,8 @@ import org.springframework.web.bind.annotation.*;
 
 /**
  * Controller for authentication-related operations.
- * Provides an endpoint for user login, handling authentication and returning appropriate responses.
+ * Provides endpoints for user login and logout, handling authentication and returning appropriate responses,
+ * and for revoking the JWT tokens of a user.
  */
 @RestController
 @RequestMapping("/user")
@@ -28,6 +35,12 @@ public class AuthController {
     @Autowired
     private UserServices userServices;  // Service for user-related database operations. Essential for fetching user details based on authentication.
 
+    @Autowired
+    private TokenRevocationServices tokenRevocationServices;  // Service broadcasting JWT token revocations to every service.
+
+    @Autowired
+    private Environment environment;  // Environment holding the JWT cookie name.
+
     /**
      * Endpoint to handle user login requests.
      * This endpoint utilizes Spring Security's Authentication object to determine if the login attempt is successful.
@@ -66,4 +79,56 @@ public class AuthController {
             throw new InvalidUsernameOrPasswordException("Login failed");
         }
     }
+
+    /**
+     * Endpoint to log the current user out.
+     * The JWT token of the request is revoked in every service, and the JWT cookie is cleared.
+     *
+     * @param authentication Spring Security Authentication object set from the JWT token of the request.
+     * @param response The HTTP response, used to clear the JWT cookie.
+     * @return A ResponseEntity with a success message.
+     */
+    @ApiOperation(value = "User Logout",
+            notes = "Revoke the JWT token of the request so that it can no longer be used, and clear the JWT cookie.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Logout successful", response = SuccessResponseDTO.class),
+            @ApiResponse(code = 401, message = "JWT token is missing or is invalid", response = ErrorResponseDTO.class)
+    })
+    @PostMapping("/logout")
+    public ResponseEntity<SuccessResponseDTO> logout(Authentication authentication, HttpServletResponse response) {
+        // The JWTTokenValidationFilter keeps the verified identity of the token as the authentication details
+        if (authentication == null || !(authentication.getDetails() instanceof JwtIdentity)) {
+            throw new InvalidTokenException("JWT token is missing or is invalid");
+        }
+        tokenRevocationServices.revokeToken((JwtIdentity) authentication.getDetails());
+
+        // Clear the JWT cookie on the client
+        Cookie JWTCookie = new Cookie(environment.getProperty("jwt.cookie.name"), "");
+        JWTCookie.setPath("/");
+        JWTCookie.setHttpOnly(true);
+        JWTCookie.setMaxAge(0);
+        response.addCookie(JWTCookie);
+        return ResponseUtil.buildSuccessResponse(HttpStatus.OK, null, "Logout successful");
+    }
+
+    /**
+     * Endpoint to revoke every JWT token issued so far to a user, e.g. after the account has been compromised.
+     * Access to this endpoint is restricted to administrators in the SecurityConfig.
+     * The username is not looked up, so the response does not reveal whether the user exists.
+     *
+     * @param username The username of the user whose tokens are revoked.
+     * @return A ResponseEntity with a success message.
+     */
+    @ApiOperation(value = "Revoke User Tokens",
+            notes = "Revoke every JWT token issued so far to the given user in every service.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Tokens revoked successfully", response = SuccessResponseDTO.class),
+            @ApiResponse(code = 401, message = "JWT token is missing or is invalid", response = ErrorResponseDTO.class),
+            @ApiResponse(code = 403, message = "Access Denied", response = ErrorResponseDTO.class)
+    })
+    @PostMapping("/revoke/{username}")
+    public ResponseEntity<SuccessResponseDTO> revokeUserTokens(@PathVariable String username) {
+        tokenRevocationServices.revokeUser(username);
+        return ResponseUtil.buildSuccessResponse(HttpStatus.OK, null, "Tokens revoked successfully");
+    }
 }
@@ -1,12 +1,14 @@
 package org.example.security.securityFilter;
 
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.JwtBuilder;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.AuthorityDictionary;
+import org.example.AuthorityDictionaryStore;
+import org.example.JwtSigner;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.security.core.Authentication;
@@ -14,9 +16,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import javax.crypto.SecretKey;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 @Component
@@ -25,6 +25,12 @@ public class JWTTokenGenerationFilter extends OncePerRequestFilter {
     @Autowired
     private Environment environment;
 
+    @Autowired
+    private JwtSigner jwtSigner;
+
+    @Autowired
+    private AuthorityDictionaryStore authorityDictionaryStore;
+
     /**
      * Generates a JWT token and saves it in a response cookie if the user is authenticated.
      *
@@ -41,19 +47,26 @@ public class JWTTokenGenerationFilter extends OncePerRequestFilter {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
         if (authentication != null) {
-            // Retrieve the secret key from the environment properties
-            SecretKey key = Keys.hmacShaKeyFor(environment.getProperty("jwt.secretKey").getBytes(StandardCharsets.UTF_8));
-
-            // Build the JWT token including required details in the payload and sign it with the secret key
-            String jwt = Jwts.builder()
+            // Build the JWT token including required details in the payload and sign it with the active signing key
+            JwtBuilder builder = jwtSigner.builder()
                     .issuer("Abhishek")
                     .subject("JWT Token")
+                    .id(UUID.randomUUID().toString()) // Unique token ID, used to revoke this token
                     .claim("username", authentication.getName())
-                    .claim("authorities", populateAuthorities(authentication.getAuthorities()))
                     .issuedAt(new Date())
-                    .expiration(new Date((new Date()).getTime() + 30000000)) // Token validity set to 30,000,000 ms (approximately 8 hours)
-                    .signWith(key)
-                    .compact();
+                    .expiration(new Date((new Date()).getTime() + 30000000)); // Token validity set to 30,000,000 ms (approximately 8 hours)
+
+            // Carry the authorities as a compact bitset over the authority dictionary if enabled,
+            // falling back to the comma-separated names if one of them is not in the dictionary
+            Set<String> authorities = populateAuthorities(authentication.getAuthorities());
+            String compactAuthorities = environment.getProperty("jwt.compactAuthorities.enabled", Boolean.class, false)
+                    ? authorityDictionaryStore.encode(authorities) : null;
+            if (compactAuthorities != null) {
+                builder.claim(AuthorityDictionary.CLAIM_NAME, compactAuthorities);
+            } else {
+                builder.claim("authorities", String.join(",", authorities));
+            }
+            String jwt = builder.compact();
 
             // Place the generated token inside a response cookie
             Cookie JWTCookie = new Cookie(environment.getProperty("jwt.cookie.name"), jwt);
@@ -86,16 +99,16 @@ public class JWTTokenGenerationFilter extends OncePerRequestFilter {
     }
 
     /**
-     * Converts a collection of GrantedAuthority objects into a comma-separated string.
+     * Converts a collection of GrantedAuthority objects into a set of authority names.
      *
      * @param collection The collection of GrantedAuthority
-     * @return A comma-separated string of authority names
+     * @return The set of authority names
      */
-    private String populateAuthorities(Collection<? extends GrantedAuthority> collection) {
+    private Set<String> populateAuthorities(Collection<? extends GrantedAuthority> collection) {
         Set<String> authoritiesSet = new HashSet<>();
         for (GrantedAuthority authority : collection) {
             authoritiesSet.add(authority.getAuthority());
         }
-        return String.join(",", authoritiesSet);
+        return authoritiesSet;
     }
 }
@@ -2,10 +2,8 @@ package org.example.service;
 
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.Query;
+import org.example.SessionTemplate;
 import org.example.model.UtbRole;
-import org.hibernate.Session;
-import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.util.Set;
@@ -15,7 +13,7 @@ import java.util.stream.Collectors;
  * Service class responsible for handling role-related operations.
  * <p>
  * This service provides methods for fetching roles by their name or ID, retrieving all available roles,
- * and extracting role IDs from the database. It leverages Hibernate's {@link SessionFactory} for
+ * and extracting role IDs from the database. It leverages the {@link SessionTemplate} for
  * interacting with the persistence layer.
  * </p>
  * <p>
@@ -27,33 +25,29 @@ import java.util.stream.Collectors;
 public class RoleServices {
 
     @Autowired
-    SessionFactory sessionFactory;
+    SessionTemplate sessionTemplate;
 
     /**
      * Retrieves a {@link UtbRole} entity by its name.
      * <p>
      * This method performs a query to find a role in the database that matches the specified role name.
-     * If no matching role is found, {@code null} is returned. The method ensures that the session and
-     * transaction are properly handled and closed after the operation.
+     * If no matching role is found, {@code null} is returned. The session and transaction are
+     * always closed after the operation, even when it fails.
      * </p>
      *
      * @param roleName the name of the role to be retrieved.
      * @return the {@link UtbRole} matching the given name, or {@code null} if no such role exists.
      */
     public UtbRole findByName(String roleName) {
-        UtbRole role;
         try {
-            Session session = sessionFactory.openSession();
-            Transaction transaction = session.beginTransaction();
-            Query query = session.createQuery("FROM UtbRole r WHERE r.name=:name");
-            query.setParameter("name", roleName);
-            role = (UtbRole) query.getSingleResult();
-            transaction.commit();
-            session.close();
+            return sessionTemplate.read("role.findByName", session -> {
+                Query query = session.createQuery("FROM UtbRole r WHERE r.name=:name");
+                query.setParameter("name", roleName);
+                return (UtbRole) query.getSingleResult();
+            });
         } catch (NoResultException ex) {
-            role = null;
+            return null;
         }
-        return role;
     }
 
     /**
@@ -67,17 +61,11 @@ public class RoleServices {
      * @return the {@link UtbRole} with the given ID, or {@code null} if no such role exists.
      */
     public UtbRole findById(Long roleId) {
-        UtbRole role;
         try {
-            Session session = sessionFactory.openSession();
-            Transaction transaction = session.beginTransaction();
-            role = session.get(UtbRole.class, roleId);
-            transaction.commit();
-            session.close();
+            return sessionTemplate.read("role.findById", session -> session.get(UtbRole.class, roleId));
         } catch (NoResultException ex) {
-            role = null;
+            return null;
         }
-        return role;
     }
 
     /**
@@ -91,14 +79,10 @@ public class RoleServices {
      * @return a {@link Set} of all {@link UtbRole} entities in the database.
      */
     public Set<UtbRole> getRoles() {
-        Set<UtbRole> roles;
-        Session session = sessionFactory.openSession();
-        Transaction transaction = session.beginTransaction();
-        Query query = session.createQuery("FROM UtbRole");
-        roles = (Set<UtbRole>) query.getResultStream().collect(Collectors.toSet());
-        transaction.commit();
-        session.close();
-        return roles;
+        return sessionTemplate.read("role.findAll", session -> {
+            Query query = session.createQuery("FROM UtbRole");
+            return (Set<UtbRole>) query.getResultStream().collect(Collectors.toSet());
+        });
     }
 
     /**
@@ -111,13 +95,9 @@ public class RoleServices {
      * @return a {@link Set} of Long values representing the IDs of all roles.
      */
     public Set<Long> getRolesId() {
-        Set<Long> rolesId;
-        Session session = sessionFactory.openSession();
-        Transaction transaction = session.beginTransaction();
-        Query query = session.createQuery("SELECT id FROM UtbRole", Long.class);
-        rolesId = (Set<Long>) query.getResultStream().collect(Collectors.toSet());
-        transaction.commit();
-        session.close();
-        return rolesId;
+        return sessionTemplate.read("role.findAllIds", session -> {
+            Query query = session.createQuery("SELECT id FROM UtbRole", Long.class);
+            return (Set<Long>) query.getResultStream().collect(Collectors.toSet());
+        });
     }
 }
@@ -0,0 +1,59 @@
+package org.example.service;
+
+import org.example.JwtIdentity;
+import org.example.TokenRevocationList;
+import org.example.TokenRevokedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.bus.BusProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class responsible for revoking JWT tokens before their expiry.
+ * <p>
+ * Revocations are published as {@link TokenRevokedEvent}s. The event is applied to the local {@link TokenRevocationList}
+ * straight away and is broadcast over Spring Cloud Bus to the API Gateway and every other service, so no service has to
+ * look revocations up in the database on each request.
+ * </p>
+ */
+@Service
+public class TokenRevocationServices {
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private BusProperties busProperties;
+
+    /**
+     * Revokes a single token, e.g. when the user logs out.
+     * <p>
+     * Tokens issued without a token ID can't be revoked individually, so every token of the user is revoked instead.
+     * </p>
+     *
+     * @param identity the identity of the token to revoke.
+     */
+    public void revokeToken(JwtIdentity identity) {
+        if (identity.getTokenId() == null) {
+            revokeUser(identity.getUsername());
+            return;
+        }
+        applicationEventPublisher.publishEvent(new TokenRevokedEvent(this, busProperties.getId(),
+                identity.getTokenId(), null, 0, identity.getExpiresAt()));
+    }
+
+    /**
+     * Revokes every token of a user issued up to now, e.g. when the user's password or roles change.
+     * <p>
+     * The issue time of a token has a precision of one second, so tokens issued during the rest of the current second
+     * are revoked as well.
+     * </p>
+     *
+     * @param username the username of the user whose tokens are revoked.
+     */
+    public void revokeUser(String username) {
+        long notBefore = (System.currentTimeMillis() / 1000 + 1) * 1000;
+        applicationEventPublisher.publishEvent(new TokenRevokedEvent(this, busProperties.getId(),
+                null, username, notBefore, notBefore + TokenRevocationList.DEFAULT_MAX_TOKEN_LIFETIME_MILLIS));
+    }
+}
@@ -1,9 +1,7 @@
 package org.example.service;
 
+import org.example.SessionTemplate;
 import org.example.model.UtbUser;
-import org.hibernate.Session;
-import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import jakarta.persistence.NoResultException;
@@ -13,7 +11,7 @@ import jakarta.persistence.Query;
  * Service class responsible for managing user-related operations.
  * <p>
  * This service interacts with the database to perform operations like saving a user
- * and retrieving users by their username. It uses Hibernate's {@link SessionFactory}
+ * and retrieving users by their username. It uses the {@link SessionTemplate}
  * to manage database sessions and transactions.
  * </p>
  */
@@ -21,25 +19,23 @@ import jakarta.persistence.Query;
 public class UserServices {
 
     @Autowired
-    SessionFactory sessionFactory;
+    SessionTemplate sessionTemplate;
 
     /**
      * Persists a new {@link UtbUser} entity in the database.
      * <p>
      * This method saves the provided user entity and commits the transaction
-     * to ensure data integrity. It opens and closes a Hibernate session for this purpose.
+     * to ensure data integrity. The Hibernate session is opened and closed by the {@link SessionTemplate}.
      * </p>
      *
      * @param user the {@link UtbUser} entity to be saved in the database.
      * @return the saved {@link UtbUser} entity.
      */
     public UtbUser save(UtbUser user) {
-        Session session = sessionFactory.openSession();
-        Transaction transaction = session.beginTransaction();
-        session.save(user);
-        transaction.commit();
-        session.close();
-        return user;
+        return sessionTemplate.write("user.save", session -> {
+            session.save(user);
+            return user;
+        });
     }
 
     /**
@@ -54,18 +50,14 @@ public class UserServices {
      * @return the {@link UtbUser} matching the provided username, or {@code null} if no such user exists.
      */
     public UtbUser findByUsername(String username) {
-        UtbUser user;
         try {
-            Session session = sessionFactory.openSession();
-            Transaction transaction = session.beginTransaction();
-            Query query = session.createQuery("FROM UtbUser u WHERE u.username=:username");
-            query.setParameter("username", username);
-            user = (UtbUser) query.getSingleResult();
-            transaction.commit();
-            session.close();
+            return sessionTemplate.read("user.findByUsername", session -> {
+                Query query = session.createQuery("FROM UtbUser u WHERE u.username=:username");
+                query.setParameter("username", username);
+                return (UtbUser) query.getSingleResult();
+            });
         } catch (NoResultException ex) {
-            user = null;
+            return null;
         }
-        return user;
     }
 }